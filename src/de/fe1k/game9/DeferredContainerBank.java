@@ -1,7 +1,5 @@
 package de.fe1k.game9;
 
-import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventBeforeRender;
 import de.nerogar.noise.render.*;
 import de.nerogar.noise.render.deferredRenderer.DeferredContainer;
 import de.nerogar.noise.util.Logger;
@@ -9,6 +7,7 @@ import de.nerogar.noise.util.Logger;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class DeferredContainerBank {
 
@@ -36,7 +35,12 @@ public class DeferredContainerBank {
 		}
 	}
 
-	private static Map<String, DeferredContainer> containers = new HashMap<>();
+	private static Map<String, DeferredContainer> containers    = new HashMap<>();
+	// the meshes of containers with their own mesh, freed when the container is released
+	private static Map<String, Mesh>              variantMeshes = new HashMap<>();
+
+	// all containers of an animated sprite share one shader
+	private static Map<String, Shader> animationShaders = new HashMap<>();
 
 	private static Map<String, AnimationProperties> animationPropertiesMap = new HashMap<>();
 	private static Map<String, SpriteProperties>    spritePropertiesMap    = new HashMap<>();
@@ -78,12 +82,15 @@ public class DeferredContainerBank {
 		);
 	}
 
-	private static void update(EventBeforeRender event) {
+	/**
+	 * Advances the animations, must only be called by the render thread like everything else in here.
+	 */
+	public static void update(float deltaTime) {
 		for (Map.Entry<String, DeferredContainerBank.AnimationProperties> entry : animationPropertiesMap.entrySet()) {
 			DeferredContainerBank.AnimationProperties properties = entry.getValue();
-			DeferredContainer container = containers.get(entry.getKey());
+			Shader shader = animationShaders.get(entry.getKey());
 
-			properties.lastUpdate += event.deltaTime;
+			properties.lastUpdate += deltaTime;
 
 			if (properties.lastUpdate > properties.delay) {
 
@@ -93,11 +100,11 @@ public class DeferredContainerBank {
 
 				properties.lastUpdate %= properties.delay;
 
-				if (container != null) {
+				if (shader != null) {
 					// no, there is no other way to set shader parameters
-					container.getSurfaceShader().activate();
-					container.getSurfaceShader().setUniform1f("currentFrame", properties.currentFrame);
-					container.getSurfaceShader().deactivate();
+					shader.activate();
+					shader.setUniform1f("currentFrame", properties.currentFrame);
+					shader.deactivate();
 				}
 
 			}
@@ -145,12 +152,14 @@ public class DeferredContainerBank {
 
 		Shader shader = transparentShader;
 		if (animationProperties != null) {
-			shader = DeferredContainer.createSurfaceShader("res/shaders/spriteAnimation.vert", "res/shaders/spriteAnimation.frag");
-
-			shader.activate();
-			shader.setUniform1f("frames", animationProperties.frames);
-			shader.deactivate();
-
+			shader = animationShaders.computeIfAbsent(name, k -> {
+				Shader animationShader = DeferredContainer.createSurfaceShader("res/shaders/spriteAnimation.vert", "res/shaders/spriteAnimation.frag");
+
+				animationShader.activate();
+				animationShader.setUniform1f("frames", animationProperties.frames);
+				animationShader.deactivate();
+				return animationShader;
+			});
 		}
 
 		return new DeferredContainer(mesh, shader, colorTexture, normalTexture, lightTexture);
@@ -163,9 +172,34 @@ public class DeferredContainerBank {
 		return containers.get(name);
 	}
 
-	static {
-		Event.register(EventBeforeRender.class, DeferredContainerBank::update);
+	/**
+	 * Gets a container of a sprite with its own mesh, e.g. for one chunk of the map.
+	 * The mesh is only created if there isn't a container for that variant yet.
+	 *
+	 * @param variant distinguishes containers of the same sprite with different meshes
+	 */
+	public static DeferredContainer getContainer(String name, String variant, Supplier<Mesh> mesh) {
+		return containers.computeIfAbsent(name + "#" + variant, k -> {
+			Mesh variantMesh = mesh.get();
+			variantMeshes.put(k, variantMesh);
+			return createContainer(name, variantMesh);
+		});
+	}
 
+	/**
+	 * Forgets a container created by {@link #getContainer(String, String, Supplier)} and frees its mesh,
+	 * once nothing renders it anymore. Textures and shaders are shared by all variants and stay.
+	 */
+	public static void releaseContainer(String name, String variant) {
+		String key = name + "#" + variant;
+		containers.remove(key);
+		Mesh mesh = variantMeshes.remove(key);
+		if (mesh != null) {
+			mesh.cleanup();
+		}
+	}
+
+	static {
 		transparentShader = DeferredContainer.createSurfaceShader("res/shaders/spriteTransparent.vert", "res/shaders/spriteTransparent.frag");
 
 		animationPropertiesMap.put("man", new AnimationProperties(6, 0.07f));
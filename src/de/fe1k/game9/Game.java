@@ -1,17 +1,23 @@
 package de.fe1k.game9;
 
 import de.fe1k.game9.commands.Console;
+import de.fe1k.game9.components.ComponentLight;
 import de.fe1k.game9.components.ComponentPlayer;
+import de.fe1k.game9.components.ComponentSpriteRenderer;
 import de.fe1k.game9.entities.Entity;
 import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventAfterRender;
-import de.fe1k.game9.events.EventBeforeRender;
 import de.fe1k.game9.events.EventUpdate;
+import de.fe1k.game9.map.ChunkStreamer;
+import de.fe1k.game9.map.MapReloader;
 import de.fe1k.game9.network.Network;
+import de.fe1k.game9.particles.ParticleEngine;
 import de.fe1k.game9.states.GameState;
 import de.fe1k.game9.states.StateIngame;
 import de.fe1k.game9.states.StateMainMenu;
 import de.fe1k.game9.systems.*;
+import de.fe1k.game9.utils.KeyStates;
+import de.fe1k.game9.utils.TaskQueue;
+import de.fe1k.game9.utils.TripleBuffer;
 import de.nerogar.noise.Noise;
 import de.nerogar.noise.render.GLWindow;
 import de.nerogar.noise.render.OrthographicCamera;
@@ -21,23 +27,45 @@ import de.nerogar.noise.util.Timer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 public class Game {
 
 	private static final float ZOOM = 1/32f;
 
+	public static final int DEFAULT_TICK_RATE = 60;
+
 	public static  GLWindow           window;
 	public static  DeferredRenderer   renderer;
 	private        OrthographicCamera camera;
+	private        ParticleEngine     particleEngine;
 	private static Timer              timer;  // TODO properly distinguish between static and non-static stuff
+	private        Timer              frameTimer;
 	private        long               lastFpsUpdate;
 	private        List<GameSystem>   systems;
+	private        ComponentPlayer    player;
 
 	private Console console;
 
+	// headless servers have no window, renderer or console, and tick at a fixed rate
+	private static boolean headless;
+	private        int     tickRate;
+
+	private volatile boolean        running;
+	private final    CountDownLatch stopped = new CountDownLatch(1);
+
+	// the simulation ticks on its own thread, while the main thread polls the window and renders the latest snapshot
+	private static final TaskQueue                    renderTasks     = new TaskQueue();
+	private static final TaskQueue                    simulationTasks = new TaskQueue();
+	private static final KeyStates                    keyStates       = new KeyStates();
+	private final        TripleBuffer<RenderSnapshot> snapshots       = new TripleBuffer<>(RenderSnapshot::new);
+	private              Thread                       simulation;
+
 	public Game() {
 		timer = new Timer();
+		frameTimer = new Timer();
 		systems = new ArrayList<>();
+		tickRate = DEFAULT_TICK_RATE;
 		Noise.init("noiseSettings.json");
 		setUpWindow();
 		setUpCamera();
@@ -47,12 +75,42 @@ public class Game {
 		GameState.transition(new StateMainMenu());
 	}
 
+	/**
+	 * Creates a dedicated server, which doesn't need a display.
+	 * Render components are never attached, and players are only controlled by the clients.
+	 */
+	private Game(int tickRate) {
+		headless = true;
+		timer = new Timer();
+		systems = new ArrayList<>();
+		this.tickRate = tickRate;
+		setUpSystems();
+	}
+
+	public static Game createHeadless(int tickRate) {
+		return new Game(tickRate);
+	}
+
 	private void setUpSystems() {
-		systems.add(new SystemPhysics());
+		ChunkStreamer chunkStreamer = new ChunkStreamer(renderer);
+		systems.add(chunkStreamer);
+		if (!headless) {
+			particleEngine = new ParticleEngine(renderer);
+			systems.add(particleEngine);
+		}
+		systems.add(new MapReloader(chunkStreamer));
+		systems.add(new SystemPhysics(chunkStreamer));
 		systems.add(new SystemCallbacks());
-		systems.add(new SystemDeathAnimation(renderer));
+		if (!headless) {
+			systems.add(new SystemDeathAnimation(particleEngine));
+		}
 		systems.add(new SystemKillOnCollision());
-		systems.add(new SystemParticles(renderer));
+		if (!headless) {
+			systems.add(new SystemParticles(particleEngine));
+		}
+		systems.add(new SystemPathMovers());
+		systems.add(new SystemTriggers());
+		systems.add(new SystemSimulationLod());
 
 		systems.forEach(GameSystem::start);
 	}
@@ -85,51 +143,177 @@ public class Game {
 		if (System.nanoTime() - lastFpsUpdate > 1_000_000_000 / 5) {
 			lastFpsUpdate = System.nanoTime();
 
-			float fps = Math.round(timer.getFrequency() * 10f) / 10f;
-			float time = Math.round(timer.getCalcTime() * 1000000f) / 1000f;
+			float fps = Math.round(frameTimer.getFrequency() * 10f) / 10f;
+			float time = Math.round(frameTimer.getCalcTime() * 1000000f) / 1000f;
+			float tickTime = Math.round(timer.getCalcTime() * 1000000f) / 1000f;
 
-			window.setTitle("FPS: " + fps + " -> frame time: " + time);
+			window.setTitle("FPS: " + fps + " -> frame time: " + time + " -> tick time: " + tickTime);
 		}
 	}
 
-	private void mainloop() {
+	/**
+	 * Renders the latest snapshot of the simulation, which keeps running meanwhile.
+	 */
+	private void renderFrame() {
 		GLWindow.updateAll();
-		float targetDelta = 1 / 60f;
-		timer.update(targetDelta);
+		keyStates.capture(window.getInputHandler());
+		float targetDelta = 1f / tickRate;
+		frameTimer.update(targetDelta);
 		displayFPS();
-		boolean shouldUpdate = GameState.getCurrent() instanceof StateIngame;
-		//boolean shouldUpdate = Network.isStarted() && (!Network.isServer() || Network.getClients().size() > 0);
-		Event.trigger(new EventUpdate(shouldUpdate ? targetDelta : 0));
-		Event.trigger(new EventBeforeRender(window, targetDelta, timer.getRuntime()));
 
-		ComponentPlayer player = Entity.getFirstComponent(ComponentPlayer.class);
+		// take the snapshot first, the tasks create everything it refers to
+		RenderSnapshot snapshot = snapshots.getFront();
+		renderTasks.runAll();
+		console.update();
+		DeferredContainerBank.update(targetDelta);
+		snapshot.apply();
 
-		if (player != null) {
-			camera.setX(player.getOwner().getPosition().getX());
-			camera.setY(player.getOwner().getPosition().getY());
+		if (snapshot.hasCamera()) {
+			camera.setX(snapshot.getCameraX());
+			camera.setY(snapshot.getCameraY());
 		}
 
 		renderer.render(camera);
 		console.render();
-		Event.trigger(new EventAfterRender(window, targetDelta, timer.getRuntime()));
+		GameState state = GameState.getCurrent();
+		if (state != null) {
+			state.render(window);
+		}
 		window.bind();
 		RenderHelper.blitTexture(renderer.getColorOutput());
 	}
 
+	/**
+	 * Only updates the game. Network polling happens within the update as well.
+	 */
+	private void tick() {
+		float targetDelta = 1f / tickRate;
+		timer.update(targetDelta);
+		simulationTasks.runAll();
+		boolean shouldUpdate = GameState.getCurrent() instanceof StateIngame;
+		//boolean shouldUpdate = Network.isStarted() && (!Network.isServer() || Network.getClients().size() > 0);
+		Event.trigger(new EventUpdate(shouldUpdate ? targetDelta : 0));
+	}
+
+	/**
+	 * Copies what the render thread needs from the tick that just ran.
+	 */
+	private void publishSnapshot() {
+		RenderSnapshot snapshot = snapshots.getBack();
+		snapshot.clear();
+		for (ComponentSpriteRenderer sprite : Entity.getComponents(ComponentSpriteRenderer.class)) {
+			snapshot.add(sprite, sprite.getOwner());
+		}
+		for (ComponentLight light : Entity.getComponents(ComponentLight.class)) {
+			snapshot.add(light, light.getOwner());
+		}
+
+		if (player == null || player.getOwner().getComponent(ComponentPlayer.class) != player) {
+			// only look up a player again once the previous one is gone
+			player = Entity.getFirstComponent(ComponentPlayer.class);
+		}
+
+		if (player != null) {
+			float x = player.getOwner().getPosition().getX();
+			float y = player.getOwner().getPosition().getY();
+			snapshot.setCamera(x, y);
+			float viewHeight = (float) window.getHeight() * ZOOM;
+			float viewWidth = (float) window.getWidth() * ZOOM;
+			particleEngine.getBudget().setCameraView(x, y, viewWidth, viewHeight);
+		}
+		particleEngine.capture(snapshot);
+
+		snapshots.publish();
+	}
+
+	private void simulate() {
+		while (running) {
+			tick();
+			publishSnapshot();
+		}
+	}
+
 	public void run() {
-		while (!window.shouldClose()) {
-			mainloop();
+		if (headless) {
+			runHeadless();
+			return;
+		}
+		running = true;
+		simulation = new Thread(this::simulate, "simulation");
+		simulation.start();
+		// stop rendering if the simulation crashed as well
+		while (!window.shouldClose() && simulation.isAlive()) {
+			renderFrame();
+		}
+		running = false;
+		try {
+			simulation.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 		shutdown();
 	}
 
+	private void runHeadless() {
+		running = true;
+		// there is no window to close, so stop cleanly when the process gets terminated
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			running = false;
+			try {
+				stopped.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		try {
+			while (running) {
+				tick();
+			}
+			shutdown();
+		} finally {
+			stopped.countDown();
+		}
+	}
+
 	private void shutdown() {
 		if (Network.isStarted()) Network.shutdown();
 		//Entity.despawnAll();  // too slow
 		systems.forEach(GameSystem::stop);
+		if (!headless) {
+			renderTasks.runAll();
+		}
 	}
 
 	public static double getRunTime() {
 		return timer.getRuntime();
 	}
+
+	public static boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * Runs a task on the render thread before it draws the next frame, e.g. to create or remove renderables.
+	 * Everything that touches the renderer has to go through here, as the simulation runs on another thread.
+	 * Headless servers have nothing to render, so the task is dropped.
+	 */
+	public static void runOnRenderThread(Runnable task) {
+		if (!headless) {
+			renderTasks.submit(task);
+		}
+	}
+
+	/**
+	 * Runs a task on the simulation thread before the next tick, e.g. a console command.
+	 */
+	public static void runOnSimulationThread(Runnable task) {
+		simulationTasks.submit(task);
+	}
+
+	/**
+	 * @return the keys held down as of the last frame, which the simulation thread may read
+	 */
+	public static KeyStates getKeyStates() {
+		return keyStates;
+	}
 }
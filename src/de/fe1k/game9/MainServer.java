@@ -0,0 +1,50 @@
+package de.fe1k.game9;
+
+import de.fe1k.game9.network.Network;
+import de.fe1k.game9.states.GameState;
+import de.fe1k.game9.states.StateWaitingForStart;
+import de.nerogar.noise.util.Logger;
+
+import java.net.BindException;
+
+/**
+ * Runs a dedicated server without a window, e.g. on machines without a display.
+ * Usage: {@code MainServer <port> [tick rate] [--nio]}, where {@code --nio} serves clients over the NIO transport.
+ */
+public class MainServer {
+	public static void main(String[] args) {
+		Logger.addStream(Logger.DEBUG, Logger.INFO, System.out);
+		Logger.addStream(Logger.WARNING, System.err);
+
+		if (args.length == 0) {
+			Logger.getErrorStream().println("usage: MainServer <port> [tick rate] [--nio]");
+			return;
+		}
+		boolean nio = args[args.length - 1].equals("--nio");
+		int numbers = nio ? args.length - 1 : args.length;
+		int port;
+		int tickRate;
+		try {
+			port = Integer.parseInt(args[0]);
+			tickRate = numbers > 1 ? Integer.parseInt(args[1]) : Game.DEFAULT_TICK_RATE;
+		} catch (NumberFormatException e) {
+			Logger.getErrorStream().println("not a number: " + e.getMessage());
+			return;
+		}
+		if (tickRate <= 0) {
+			Logger.getErrorStream().println("tick rate must be positive");
+			return;
+		}
+
+		Game game = Game.createHeadless(tickRate);
+		Network.setNioEnabled(nio);
+		try {
+			Network.startServer(port);
+		} catch (BindException e) {
+			Logger.getErrorStream().println("unable to start server at port " + port);
+			return;
+		}
+		GameState.transition(new StateWaitingForStart());
+		game.run();
+	}
+}
@@ -0,0 +1,115 @@
+package de.fe1k.game9;
+
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.particles.ParticleBuffer;
+import de.nerogar.noise.util.Vector2f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Everything the render thread needs to draw one tick of the simulation, copied at the end of that tick.
+ * Snapshots are handed over by a {@link de.fe1k.game9.utils.TripleBuffer} and reused, so capturing doesn't allocate once the arrays have grown.
+ */
+public class RenderSnapshot {
+
+	/**
+	 * The render thread's half of a component, which owns the renderables or lights only the render thread may touch.
+	 */
+	public interface Proxy {
+
+		void apply(float x, float y, float scaleX, float scaleY, float rotation);
+	}
+
+	private int     count;
+	private Proxy[] proxies  = new Proxy[64];
+	private float[] x        = new float[64];
+	private float[] y        = new float[64];
+	private float[] scaleX   = new float[64];
+	private float[] scaleY   = new float[64];
+	private float[] rotation = new float[64];
+
+	private List<ParticleBuffer.Frame> particles = new ArrayList<>();
+	private int                        particleCount;
+
+	private boolean hasCamera;
+	private float   cameraX;
+	private float   cameraY;
+
+	public void clear() {
+		// don't keep destroyed components alive
+		Arrays.fill(proxies, 0, count, null);
+		count = 0;
+		particleCount = 0;
+		hasCamera = false;
+	}
+
+	/**
+	 * Adds a proxy, which will be moved to where the entity is now.
+	 */
+	public void add(Proxy proxy, Entity entity) {
+		if (count == proxies.length) {
+			int capacity = count * 2;
+			proxies = Arrays.copyOf(proxies, capacity);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			scaleX = Arrays.copyOf(scaleX, capacity);
+			scaleY = Arrays.copyOf(scaleY, capacity);
+			rotation = Arrays.copyOf(rotation, capacity);
+		}
+		Vector2f position = entity.getPosition();
+		Vector2f scale = entity.getScale();
+		proxies[count] = proxy;
+		x[count] = position.getX();
+		y[count] = position.getY();
+		scaleX[count] = scale.getX();
+		scaleY[count] = scale.getY();
+		rotation[count] = entity.getRotation();
+		count++;
+	}
+
+	/**
+	 * @return a frame to copy the particles of one buffer into
+	 */
+	public ParticleBuffer.Frame addParticles() {
+		if (particleCount == particles.size()) {
+			particles.add(new ParticleBuffer.Frame());
+		}
+		return particles.get(particleCount++);
+	}
+
+	public void setCamera(float x, float y) {
+		hasCamera = true;
+		cameraX = x;
+		cameraY = y;
+	}
+
+	public boolean hasCamera() {
+		return hasCamera;
+	}
+
+	public float getCameraX() {
+		return cameraX;
+	}
+
+	public float getCameraY() {
+		return cameraY;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Moves everything to where the simulation had it, must only be called by the render thread.
+	 */
+	public void apply() {
+		for (int i = 0; i < count; i++) {
+			proxies[i].apply(x[i], y[i], scaleX[i], scaleY[i], rotation[i]);
+		}
+		for (int i = 0; i < particleCount; i++) {
+			particles.get(i).render();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package de.fe1k.game9.commands;
+
+import de.fe1k.game9.map.MapCache;
+import de.nerogar.noise.util.Logger;
+
+import java.util.function.Consumer;
+
+public class CommandMapCache implements Consumer<String[]> {
+
+	@Override
+	public void accept(String[] strings) {
+		if (strings.length == 1) {
+			Logger.getInfoStream().println(MapCache.getStats());
+			return;
+		}
+		if (strings.length == 3 && strings[1].equals("soft") && (strings[2].equals("on") || strings[2].equals("off"))) {
+			MapCache.setSoftReferencesEnabled(strings[2].equals("on"));
+			return;
+		}
+		if (strings.length != 2) {
+			Logger.log(Logger.ERROR, "usage: " + strings[0] + " [<size in KiB> | soft on/off]");
+			return;
+		}
+		long kib;
+		try {
+			kib = Long.parseLong(strings[1]);
+		} catch (NumberFormatException e) {
+			Logger.log(Logger.ERROR, "not a number: " + strings[1]);
+			return;
+		}
+		if (kib < 0) {
+			Logger.log(Logger.ERROR, "map cache size can't be negative");
+			return;
+		}
+		MapCache.setMaxBytes(kib << 10);
+	}
+}
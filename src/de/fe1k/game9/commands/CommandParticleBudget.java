@@ -0,0 +1,30 @@
+package de.fe1k.game9.commands;
+
+import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventSetParticleBudget;
+import de.nerogar.noise.util.Logger;
+
+import java.util.function.Consumer;
+
+public class CommandParticleBudget implements Consumer<String[]> {
+
+	@Override
+	public void accept(String[] strings) {
+		if (strings.length != 2) {
+			Logger.log(Logger.ERROR, "must provide the maximum number of particles for command " + strings[0]);
+			return;
+		}
+		int budget;
+		try {
+			budget = Integer.parseInt(strings[1]);
+		} catch (NumberFormatException e) {
+			Logger.log(Logger.ERROR, "not a number: " + strings[1]);
+			return;
+		}
+		if (budget < 0) {
+			Logger.log(Logger.ERROR, "particle budget can't be negative");
+			return;
+		}
+		Event.trigger(new EventSetParticleBudget(budget));
+	}
+}
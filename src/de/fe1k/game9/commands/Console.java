@@ -1,8 +1,6 @@
 package de.fe1k.game9.commands;
 
-import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventListener;
-import de.fe1k.game9.events.EventUpdate;
+import de.fe1k.game9.Game;
 import de.nerogar.noise.input.KeyboardKeyEvent;
 import de.nerogar.noise.render.GLWindow;
 import de.nerogar.noise.render.fontRenderer.Font;
@@ -14,9 +12,14 @@ import de.nerogar.noise.util.Matrix4fUtils;
 
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.lwjgl.glfw.GLFW.*;
 
+/**
+ * Lives on the render thread with the window it reads its input from.
+ * Commands are run by the simulation thread, as they may change the game.
+ */
 public class Console {
 	private GLWindow window;
 	private String   input;
@@ -27,7 +30,8 @@ public class Console {
 
 	private boolean                     enabled;
 	private Queue<FontRenderableString> lines;
-	private EventListener<EventUpdate>  eventUpdate = this::update;
+	// logged by any thread, turned into lines by the render thread
+	private Queue<String>               pendingLines;
 
 	private static final int numLines = 10;
 	private static final int fontSize = 15;
@@ -41,19 +45,21 @@ public class Console {
 		font = new Font("consolas", fontSize);
 		enabled = false;
 		lines = new ArrayDeque<>();
+		pendingLines = new ConcurrentLinkedQueue<>();
 
 		updateProjectionMatrix(window.getWidth(), window.getHeight());
-		Event.register(EventUpdate.class, eventUpdate);
 
 		Logger.addListener(Logger.WARNING, this::addLine);
 	}
 
 	private void addLine(String text) {
-		FontRenderableString string = new FontRenderableString(font, text, linesColor, projectionMatrix, 1f, 1f);
-		lines.add(string);
+		pendingLines.add(text);
 	}
 
-	private void update(EventUpdate updateEvent) {
+	/**
+	 * Handles the keyboard input of the current frame.
+	 */
+	public void update() {
 		for (KeyboardKeyEvent keyEvent : window.getInputHandler().getKeyboardKeyEvents()) {
 			boolean isTriggered = keyEvent.action == GLFW_PRESS || keyEvent.action == GLFW_REPEAT;
 			if (!isTriggered) continue;
@@ -84,11 +90,15 @@ public class Console {
 		if (command == null) {
 			Logger.getErrorStream().printf("Unknown command: %s\n", args[0]);
 		} else {
-			command.getCommandConsumer().accept(args);
+			Game.runOnSimulationThread(() -> command.getCommandConsumer().accept(args));
 		}
 	}
 
 	public void render() {
+		String text;
+		while ((text = pendingLines.poll()) != null) {
+			lines.add(new FontRenderableString(font, text, linesColor, projectionMatrix, 1f, 1f));
+		}
 		while (lines.size() > numLines) lines.poll().cleanup();
 		if (!enabled) return;
 		int margin = 8;
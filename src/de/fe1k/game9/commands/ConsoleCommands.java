@@ -1,9 +1,15 @@
 package de.fe1k.game9.commands;
 
 import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventReloadMap;
 import de.fe1k.game9.events.EventToggleCollisions;
 import de.fe1k.game9.events.EventToggleFlymode;
+import de.fe1k.game9.events.EventToggleMapWatcher;
+import de.fe1k.game9.events.EventToggleParallelPhysics;
+import de.fe1k.game9.events.EventToggleParticleCulling;
 import de.fe1k.game9.events.EventTogglePhysics;
+import de.fe1k.game9.events.EventToggleVerifyPhysics;
+import de.fe1k.game9.network.Network;
 import de.nerogar.noise.util.Logger;
 
 import java.util.function.Consumer;
@@ -11,15 +17,24 @@ import java.util.function.Consumer;
 public enum ConsoleCommands {
 	PHYSICS     (new OnOffHandler(enabled -> Event.trigger(new EventTogglePhysics(enabled)))),
 	COLLISIONS  (new OnOffHandler(enabled -> Event.trigger(new EventToggleCollisions(enabled)))),
+	PARALLELPHYSICS (new OnOffHandler(enabled -> Event.trigger(new EventToggleParallelPhysics(enabled)))),
+	VERIFYPHYSICS   (new OnOffHandler(enabled -> Event.trigger(new EventToggleVerifyPhysics(enabled)))),
 	FLYMODE     (new OnOffHandler(enabled -> {
 		Event.trigger(new EventToggleFlymode(enabled));
 		Event.trigger(new EventTogglePhysics(!enabled));
 		Event.trigger(new EventToggleCollisions(!enabled));
 	})),
+	PARTICLECULLING (new OnOffHandler(enabled -> Event.trigger(new EventToggleParticleCulling(enabled)))),
+	PARTICLEBUDGET  (new CommandParticleBudget()),
+	MAPCACHE    (new CommandMapCache()),
+	RELOADMAP   (args -> Event.trigger(new EventReloadMap())),
+	MAPWATCHER  (new OnOffHandler(enabled -> Event.trigger(new EventToggleMapWatcher(enabled)))),
 	CONNECT     (new CommandConnect()),
 	DISCONNECT  (new CommandDisconnect()),
 	STARTSERVER (new CommandStartServer()),
 	STOPSERVER  (new CommandStopServer()),
+	NIO         (new OnOffHandler(Network::setNioEnabled)),
+	NETSTATS    (args -> Logger.getInfoStream().println(Network.getStats())),
 	;  // end of enums. keep on separate line for better code diffs
 
 	private static class OnOffHandler implements Consumer<String[]> {
@@ -1,5 +1,6 @@
 package de.fe1k.game9.components;
 
+import de.fe1k.game9.entities.Entity;
 import de.fe1k.game9.utils.Bounding;
 
 public class ComponentBounding extends Component {
@@ -17,6 +18,17 @@ public class ComponentBounding extends Component {
 		this.layerSelf = layerSelf;
 		this.layerCollides = layerCollides;
 	}
+
+	@Override
+	public void init() {
+		Entity.addLayerLookup(this);
+	}
+
+	@Override
+	public void destroy() {
+		Entity.removeLayerLookup(this);
+	}
+
 	public Bounding getTranslatedBounding() {
 		return bounding.translated(getOwner().getPosition());
 	}
@@ -4,35 +4,40 @@ import de.fe1k.game9.entities.Entity;
 import de.fe1k.game9.events.*;
 import de.fe1k.game9.network.Network;
 import de.fe1k.game9.utils.Direction;
-import de.nerogar.noise.input.InputHandler;
-import de.nerogar.noise.input.KeyboardKeyEvent;
+import de.fe1k.game9.utils.KeyStates;
 import de.nerogar.noise.util.Logger;
-import org.lwjgl.glfw.GLFW;
 
 import static org.lwjgl.glfw.GLFW.*;
 
 @Depends(components = { ComponentMoving.class })
 public class ComponentControllable extends Component {
 
-	private InputHandler inputs;
-	private float   jumpPower  = 0;
-	private boolean wasKeyDown = false;
-	private boolean flymode    = false;
+	// null on headless servers, then the clients jump
+	private KeyStates inputs;
+	private float     jumpPower   = 0;
+	private boolean   wasKeyDown  = false;
+	private boolean   flymode     = false;
+	private boolean   networkJump = false;
+	// keys as of the previous tick on clients, which only send presses and releases
+	private boolean   wasJumpDown = false;
+	private boolean   wasTurnDown = false;
 
 	private int   targetMoveDirection = 1;
 	private float moveDirection       = targetMoveDirection;
 
-	private EventListener<EventUpdate>        eventUpdate        = this::update;
-	private EventListener<EventCollision>     eventCollision     = this::collision;
-	private EventListener<EventToggleFlymode> eventToggleFlymode = event -> flymode = event.enabled;
-	private EventListener<EventTurnAround>    eventTurnAround    = this::turnAround;
+	private EventListener<EventUpdate>         eventUpdate        = this::update;
+	private EventListener<EventCollisionBegin> eventCollision     = this::collision;
+	private EventListener<EventToggleFlymode>  eventToggleFlymode = event -> flymode = event.enabled;
+	private EventListener<EventTurnAround>     eventTurnAround    = this::turnAround;
+	private EventListener<EventJumpInput>      eventJumpInput     = event -> networkJump = event.pressed;
 
-	public ComponentControllable(InputHandler inputHandler) {
-		this.inputs = inputHandler;
+	public ComponentControllable(KeyStates keyStates) {
+		this.inputs = keyStates;
 		Event.register(EventUpdate.class, eventUpdate);
-		Event.register(EventCollision.class, eventCollision);
+		Event.register(EventCollisionBegin.class, eventCollision);
 		Event.register(EventToggleFlymode.class, eventToggleFlymode);
 		Event.register(EventTurnAround.class, eventTurnAround);
+		Event.register(EventJumpInput.class, eventJumpInput);
 	}
 
 	private void updateFlymode(EventUpdate event) {
@@ -45,7 +50,8 @@ public class ComponentControllable extends Component {
 		if (!Network.isStarted()) return;
 
 		if (Network.isServer()) {
-			if (flymode) {
+			moving.wake();  // controlled bodies must never fall asleep
+			if (flymode && inputs != null) {
 				moving.velocity.set(0);
 				float speed = 20 * event.deltaTime;
 				if (inputs.isKeyDown(GLFW_KEY_UP)) getOwner().move(0, speed);
@@ -53,7 +59,7 @@ public class ComponentControllable extends Component {
 				if (inputs.isKeyDown(GLFW_KEY_RIGHT)) getOwner().move(speed, 0);
 				if (inputs.isKeyDown(GLFW_KEY_LEFT)) getOwner().move(-speed, 0);
 			} else {
-				boolean isKeyDown = inputs.isKeyDown(GLFW_KEY_SPACE);
+				boolean isKeyDown = inputs == null ? networkJump : inputs.isKeyDown(GLFW_KEY_SPACE);
 				boolean onGround = moving.touching[Direction.DOWN.val];
 
 				if (onGround) {
@@ -69,11 +75,16 @@ public class ComponentControllable extends Component {
 				wasKeyDown = isKeyDown;
 			}
 		} else {
-			for (KeyboardKeyEvent keyboardKeyEvent : inputs.getKeyboardKeyEvents()) {
-				if (keyboardKeyEvent.action == GLFW.GLFW_PRESS && keyboardKeyEvent.key == GLFW.GLFW_KEY_ENTER) {
-					Event.trigger(new EventTurnAround());
-				}
+			boolean isTurnDown = inputs.isKeyDown(GLFW_KEY_ENTER);
+			if (isTurnDown && !wasTurnDown) {
+				Event.trigger(new EventTurnAround());
+			}
+			boolean isJumpDown = inputs.isKeyDown(GLFW_KEY_SPACE);
+			if (isJumpDown != wasJumpDown) {
+				Event.trigger(new EventJumpInput(isJumpDown));
 			}
+			wasTurnDown = isTurnDown;
+			wasJumpDown = isJumpDown;
 		}
 
 		if (moveDirection < targetMoveDirection) moveDirection += 10 * event.deltaTime;
@@ -86,7 +97,7 @@ public class ComponentControllable extends Component {
 		targetMoveDirection *= -1;
 	}
 
-	private void collision(EventCollision event) {
+	private void collision(EventCollisionBegin event) {
 		if (!event.movingComponent.getOwner().equals(getOwner())) {
 			return;
 		}
@@ -109,9 +120,10 @@ public class ComponentControllable extends Component {
 	@Override
 	public void destroy() {
 		Event.unregister(EventUpdate.class, eventUpdate);
-		Event.unregister(EventCollision.class, eventCollision);
+		Event.unregister(EventCollisionBegin.class, eventCollision);
 		Event.unregister(EventToggleFlymode.class, eventToggleFlymode);
 		Event.unregister(EventTurnAround.class, eventTurnAround);
+		Event.unregister(EventJumpInput.class, eventJumpInput);
 	}
 
 }
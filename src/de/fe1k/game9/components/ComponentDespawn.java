@@ -6,7 +6,8 @@ import de.fe1k.game9.events.EventCallback;
 
 public class ComponentDespawn extends ComponentRenderer {
 
-	private float delay;
+	private float         delay;
+	private EventCallback callback;
 
 	/**
 	 * This component causes the entity to despawn after {@code delay} seconds
@@ -15,8 +16,12 @@ public class ComponentDespawn extends ComponentRenderer {
 	 */
 	public ComponentDespawn(float delay) {
 		this.delay = delay;
+	}
 
-		Event.trigger(new EventCallback(delay, this::despawn));
+	@Override
+	public void init() {
+		callback = new EventCallback(delay, getOwner(), this::despawn);
+		Event.trigger(callback);
 	}
 
 	private void despawn() {
@@ -25,6 +30,9 @@ public class ComponentDespawn extends ComponentRenderer {
 
 	@Override
 	public void destroy() {
+		if (callback != null) {
+			callback.cancel();
+		}
 	}
 
 }
@@ -1,36 +1,34 @@
 package de.fe1k.game9.components;
 
-import de.fe1k.game9.entities.Entity;
 import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventListener;
-import de.fe1k.game9.events.EventUpdate;
+import de.fe1k.game9.events.EventAddTrigger;
+import de.fe1k.game9.events.EventRemoveTrigger;
+import de.fe1k.game9.utils.Direction;
+import de.fe1k.game9.utils.TriggerVolume;
 
 public class ComponentFallingBlock extends Component {
 
-	private EventListener<EventUpdate> eventUpdate;
+	private EventAddTrigger trigger;
 
-	public ComponentFallingBlock() {
-		eventUpdate = this::update;
-		Event.register(EventUpdate.class, eventUpdate);
+	@Override
+	public void init() {
+		// start falling as soon as a player passes this block
+		TriggerVolume volume = TriggerVolume.halfPlane(Direction.RIGHT, getOwner().getPosition().getX());
+		trigger = new EventAddTrigger(volume, ComponentPlayer.class, entity -> fall());
+		Event.trigger(trigger);
 	}
 
-	private void update(EventUpdate event) {
-		ComponentPlayer player = Entity.getFirstComponent(ComponentPlayer.class);
-
-		if (player == null) {
-			return;
-		}
-
-		if (player.getOwner().getPosition().getX() > getOwner().getPosition().getX()) {
-			Event.unregister(EventUpdate.class, eventUpdate);
-
-			getOwner().addComponent(new ComponentMoving());
-		}
-
+	private void fall() {
+		trigger = null;
+		ComponentMoving moving = new ComponentMoving();
+		moving.continuous = true;
+		getOwner().addComponent(moving);
 	}
 
 	@Override
 	public void destroy() {
-		Event.unregister(EventUpdate.class, eventUpdate);
+		if (trigger != null) {
+			Event.trigger(new EventRemoveTrigger(trigger));
+		}
 	}
 }
@@ -1,39 +1,34 @@
 package de.fe1k.game9.components;
 
-import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventBeforeRender;
-import de.fe1k.game9.events.EventListener;
+import de.fe1k.game9.Game;
+import de.fe1k.game9.RenderSnapshot;
 import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
 import de.nerogar.noise.render.deferredRenderer.Light;
 import de.nerogar.noise.util.Color;
 import de.nerogar.noise.util.Vector3f;
 
-public class ComponentLight extends Component {
+public class ComponentLight extends Component implements RenderSnapshot.Proxy {
 
-	private DeferredRenderer                 renderer;
-	private Light                            light;
-	private EventListener<EventBeforeRender> eventBeforeRender;
+	private DeferredRenderer renderer;
+	private Light            light;
 
 	public ComponentLight(DeferredRenderer renderer, Color color, float reach, float intensity) {
 
 		this.renderer = renderer;
 
 		light = new Light(new Vector3f(0, 0, 2), color, reach, intensity);
-		renderer.getLightContainer().add(light);
-
-		eventBeforeRender = this::updateLight;
-		Event.register(EventBeforeRender.class, eventBeforeRender);
+		Game.runOnRenderThread(() -> renderer.getLightContainer().add(light));
 	}
 
-	private void updateLight(EventBeforeRender event) {
-		light.position.setX(getOwner().getPosition().getX() + Math.abs(getOwner().getScale().getX()) * 0.5f);
-		light.position.setY(getOwner().getPosition().getY() + Math.abs(getOwner().getScale().getY()) * 0.5f);
+	@Override
+	public void apply(float x, float y, float scaleX, float scaleY, float rotation) {
+		light.position.setX(x + Math.abs(scaleX) * 0.5f);
+		light.position.setY(y + Math.abs(scaleY) * 0.5f);
 	}
 
 	@Override
 	public void destroy() {
 		super.destroy();
-		renderer.getLightContainer().remove(light);
-		Event.unregister(EventBeforeRender.class, eventBeforeRender);
+		Game.runOnRenderThread(() -> renderer.getLightContainer().remove(light));
 	}
 }
@@ -1,5 +1,7 @@
 package de.fe1k.game9.components;
 
+import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventBodyAwake;
 import de.fe1k.game9.systems.SystemPhysics;
 import de.nerogar.noise.util.Vector2f;
 
@@ -9,11 +11,50 @@ public class ComponentMoving extends Component {
 	public float friction;
 	public float airFriction;
 	public boolean[] touching;
+	// use swept collision detection for this body, so it doesn't tunnel through thin obstacles when moving fast
+	public boolean continuous;
+	// trigger EventCollision for every contact every tick, instead of only begin and end events
+	public boolean reportCollisions;
+	// trigger EventCollisionStay every this many ticks while a contact lasts, 0 to disable
+	public int stayInterval;
+	public int restingTicks;
+	private boolean sleeping;
 	public ComponentMoving() {
 		this.velocity = new Vector2f();
 		this.gravity = SystemPhysics.GRAVITY;
 		this.airFriction = 5;
 		this.friction = 10;
 		touching = new boolean[4];
+		sleeping = true;  // not simulated until attached to an entity
+	}
+
+	@Override
+	public void init() {
+		wake();
+	}
+
+	/**
+	 * Puts this body back into the physics simulation and resets its resting time.
+	 * Call this after applying a force to a body that might be sleeping.
+	 */
+	public void wake() {
+		restingTicks = 0;
+		if (!sleeping) {
+			return;
+		}
+		sleeping = false;
+		Event.trigger(new EventBodyAwake(this));
+	}
+
+	/**
+	 * Takes this body out of the physics simulation until {@link #wake()} is called.
+	 */
+	public void sleep() {
+		sleeping = true;
+		velocity.set(0);
+	}
+
+	public boolean isSleeping() {
+		return sleeping;
 	}
 }
@@ -1,5 +1,10 @@
 package de.fe1k.game9.components;
 
+import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventAddLodUpdate;
+import de.fe1k.game9.events.EventEmitParticles;
+import de.fe1k.game9.events.EventRemoveLodUpdate;
+import de.fe1k.game9.particles.ParticleBudget;
 import de.nerogar.noise.util.Color;
 import de.nerogar.noise.util.Vector2f;
 
@@ -33,6 +38,11 @@ public class ComponentParticleSystem extends ComponentRenderer {
 	// physics
 	public boolean colliding;
 
+	// emitters with a lower priority stop spawning first when the particle budget runs low
+	public ParticleBudget.Priority priority = ParticleBudget.Priority.NORMAL;
+
+	private EventAddLodUpdate lodUpdate;
+
 	public ComponentParticleSystem(String sprite, float spawnDelay, float spawnDelayRand, int spawnCount, int spawnCountRand, float lifetimeMin) {
 		this.sprite = sprite;
 		this.spawnDelay = spawnDelay;
@@ -49,6 +59,20 @@ public class ComponentParticleSystem extends ComponentRenderer {
 		this.scaleRandDelta = new Vector2f();
 	}
 
+	@Override
+	public void init() {
+		// emitters far away from any player don't need to spawn every tick
+		lodUpdate = new EventAddLodUpdate(getOwner(), event -> Event.trigger(new EventEmitParticles(this, event.deltaTime)));
+		Event.trigger(lodUpdate);
+	}
+
+	@Override
+	public void destroy() {
+		if (lodUpdate != null) {
+			Event.trigger(new EventRemoveLodUpdate(lodUpdate));
+		}
+	}
+
 	public int getSpawnCount(Random rand, float deltaTime) {
 		lastSpawn += deltaTime;
 
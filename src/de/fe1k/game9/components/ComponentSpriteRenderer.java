@@ -1,23 +1,21 @@
 package de.fe1k.game9.components;
 
 import de.fe1k.game9.DeferredContainerBank;
-import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventBeforeRender;
-import de.fe1k.game9.events.EventListener;
+import de.fe1k.game9.Game;
+import de.fe1k.game9.RenderSnapshot;
 import de.nerogar.noise.render.RenderProperties3f;
 import de.nerogar.noise.render.deferredRenderer.DeferredContainer;
 import de.nerogar.noise.render.deferredRenderer.DeferredRenderable;
 import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
-import de.nerogar.noise.util.Vector2f;
 
-public class ComponentSpriteRenderer extends ComponentRenderer {
+public class ComponentSpriteRenderer extends ComponentRenderer implements RenderSnapshot.Proxy {
 
+	// only touched by the render thread
 	protected DeferredRenderable renderable;
 	protected DeferredRenderer   renderer;
 	private   String             sprite;
 
-	private float                            z;
-	private EventListener<EventBeforeRender> eventBeforeRender;
+	private float z;
 
 	/**
 	 * This component causes a 2D-sprite to be rendered by the given renderer.
@@ -41,12 +39,10 @@ public class ComponentSpriteRenderer extends ComponentRenderer {
 		this.sprite = sprite;
 		this.z = z;
 
-		rebuildRenderable();
-		eventBeforeRender = this::beforeRender;
-		Event.register(EventBeforeRender.class, eventBeforeRender);
+		Game.runOnRenderThread(() -> rebuildRenderable(sprite));
 	}
 
-	private void rebuildRenderable() {
+	private void rebuildRenderable(String sprite) {
 		if (renderable != null) {
 			renderer.removeObject(renderable);
 		}
@@ -61,23 +57,20 @@ public class ComponentSpriteRenderer extends ComponentRenderer {
 
 	public void setSprite(String sprite) {
 		this.sprite = sprite;
-		rebuildRenderable();
+		Game.runOnRenderThread(() -> rebuildRenderable(sprite));
 	}
 
-	private void beforeRender(EventBeforeRender event) {
-		Vector2f pos = getOwner().getPosition();
-		Vector2f scale = getOwner().getScale();
-		float rot = getOwner().getRotation();
-		renderable.getRenderProperties().setXYZ(pos.getX(), pos.getY(), z);
-		renderable.getRenderProperties().setScale(scale.getX(), scale.getY(), 1);
+	@Override
+	public void apply(float x, float y, float scaleX, float scaleY, float rotation) {
+		renderable.getRenderProperties().setXYZ(x, y, z);
+		renderable.getRenderProperties().setScale(scaleX, scaleY, 1);
 		renderable.getRenderProperties().setPitch(0);
 		renderable.getRenderProperties().setYaw(0);
-		renderable.getRenderProperties().setRoll(rot);
+		renderable.getRenderProperties().setRoll(rotation);
 	}
 
 	@Override
 	public void destroy() {
-		renderer.removeObject(renderable);
-		Event.unregister(EventBeforeRender.class, eventBeforeRender);
+		Game.runOnRenderThread(() -> renderer.removeObject(renderable));
 	}
 }
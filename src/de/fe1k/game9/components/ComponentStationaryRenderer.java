@@ -1,28 +1,46 @@
 package de.fe1k.game9.components;
 
+import de.fe1k.game9.Game;
 import de.nerogar.noise.render.deferredRenderer.DeferredRenderable;
 import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
 
+import java.util.function.Supplier;
+
 public class ComponentStationaryRenderer extends ComponentRenderer {
 
+	// only touched by the render thread
 	private DeferredRenderable renderable;
 	private DeferredRenderer   renderer;
+	private Runnable           onRemoved;
 
 	/**
 	 * This component causes a renderable to be rendered by the given renderer.
 	 *
 	 * @param renderer   renderer to render the renderable in
-	 * @param renderable renderable to render
+	 * @param renderable creates the renderable to render, called by the render thread as it may need to create meshes or textures
+	 */
+	public ComponentStationaryRenderer(DeferredRenderer renderer, Supplier<DeferredRenderable> renderable) {
+		this(renderer, renderable, () -> {});
+	}
+
+	/**
+	 * @param onRemoved called by the render thread after the renderable was removed, e.g. to free its mesh
 	 */
-	public ComponentStationaryRenderer(DeferredRenderer renderer, DeferredRenderable renderable) {
+	public ComponentStationaryRenderer(DeferredRenderer renderer, Supplier<DeferredRenderable> renderable, Runnable onRemoved) {
 		this.renderer = renderer;
-		this.renderable = renderable;
+		this.onRemoved = onRemoved;
 
-		renderer.addObject(renderable);
+		Game.runOnRenderThread(() -> {
+			this.renderable = renderable.get();
+			renderer.addObject(this.renderable);
+		});
 	}
 
 	@Override
 	public void destroy() {
-		renderer.removeObject(renderable);
+		Game.runOnRenderThread(() -> {
+			renderer.removeObject(renderable);
+			onRemoved.run();
+		});
 	}
 }
@@ -0,0 +1,41 @@
+package de.fe1k.game9.debug;
+
+import de.nerogar.noise.debug.Profiler;
+import de.nerogar.noise.util.Color;
+
+public class NetworkProfiler extends Profiler {
+
+	private static final int QUEUES = 0;
+	private static final int EVENTS = 1;
+
+	public static final int INBOX_SIZE    = 0;
+	public static final int OUTBOX_SIZE   = 1;
+	public static final int INBOX_STALLS  = 2;
+	public static final int OUTBOX_STALLS = 3;
+
+	public static final int EVENTS_RECEIVED = 4;
+	public static final int EVENTS_SENT     = 5;
+
+	public NetworkProfiler() {
+		super("network", true);
+
+		registerProperty(INBOX_SIZE, QUEUES, new Color(0.0f, 0.8f, 0.0f, 1.0f), "inbox size");
+		registerProperty(OUTBOX_SIZE, QUEUES, new Color(0.0f, 0.4f, 1.0f, 1.0f), "outbox size");
+		registerProperty(INBOX_STALLS, QUEUES, new Color(1.0f, 0.6f, 0.0f, 1.0f), "inbox full");
+		registerProperty(OUTBOX_STALLS, QUEUES, new Color(1.0f, 0.2f, 0.2f, 1.0f), "outbox full");
+
+		registerProperty(EVENTS_RECEIVED, EVENTS, new Color(0.2f, 1.0f, 0.6f, 1.0f), "events received");
+		registerProperty(EVENTS_SENT, EVENTS, new Color(0.6f, 0.6f, 1.0f, 1.0f), "events sent");
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+
+		setValue(INBOX_STALLS, 0);
+		setValue(OUTBOX_STALLS, 0);
+
+		setValue(EVENTS_RECEIVED, 0);
+		setValue(EVENTS_SENT, 0);
+	}
+}
@@ -0,0 +1,38 @@
+package de.fe1k.game9.debug;
+
+import de.nerogar.noise.debug.Profiler;
+import de.nerogar.noise.util.Color;
+
+public class ParticleProfiler extends Profiler {
+
+	private static final int PARTICLES = 0;
+	private static final int EMITTERS  = 1;
+
+	public static final int PARTICLES_ALIVE   = 0;
+	public static final int PARTICLES_BUDGET  = 1;
+	public static final int PARTICLES_DROPPED = 2;
+
+	public static final int EMITTERS_ACTIVE    = 3;
+	public static final int EMITTERS_SUSPENDED = 4;
+
+	public ParticleProfiler() {
+		super("particles", true);
+
+		registerProperty(PARTICLES_ALIVE, PARTICLES, new Color(1.0f, 0.2f, 0.2f, 1.0f), "particles alive");
+		registerProperty(PARTICLES_BUDGET, PARTICLES, new Color(1.0f, 1.0f, 1.0f, 1.0f), "particle budget");
+		registerProperty(PARTICLES_DROPPED, PARTICLES, new Color(1.0f, 0.6f, 0.0f, 1.0f), "particles dropped");
+
+		registerProperty(EMITTERS_ACTIVE, EMITTERS, new Color(0.0f, 0.8f, 0.0f, 1.0f), "emitters active");
+		registerProperty(EMITTERS_SUSPENDED, EMITTERS, new Color(0.0f, 0.4f, 1.0f, 1.0f), "emitters suspended");
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+
+		setValue(PARTICLES_DROPPED, 0);
+
+		setValue(EMITTERS_ACTIVE, 0);
+		setValue(EMITTERS_SUSPENDED, 0);
+	}
+}
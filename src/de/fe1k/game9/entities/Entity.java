@@ -1,7 +1,9 @@
 package de.fe1k.game9.entities;
 
 import de.fe1k.game9.components.Component;
+import de.fe1k.game9.components.ComponentBounding;
 import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventEntitiesMoved;
 import de.fe1k.game9.events.EventEntityDestroyed;
 import de.fe1k.game9.events.EventEntityMoved;
 import de.fe1k.game9.events.EventEntitySpawned;
@@ -63,7 +65,11 @@ public class Entity {
 	 * @return the component removed, or null if no component got removed.
 	 */
 	public <T extends Component> Component removeComponent(Class<T> componentClass) {
-		return Entity.removeComponent(this, componentClass);
+		T component = Entity.removeComponent(this, componentClass);
+		if (component instanceof ComponentBounding) {
+			removeLayerLookup((ComponentBounding) component);  // it isn't destroyed, so it can't unregister itself
+		}
+		return component;
 	}
 
 	/**
@@ -107,6 +113,23 @@ public class Entity {
 		Event.trigger(new EventEntityMoved(this, from, position.clone()));
 	}
 
+	/**
+	 * Moves several entities by the same amount and triggers a single {@link EventEntitiesMoved} for all of them.
+	 */
+	public static void moveAll(Entity[] entities, float x, float y) {
+		if (x == 0 && y == 0) {
+			return;
+		}
+		for (Entity entity : entities) {
+			float fromX = entity.position.getX();
+			float fromY = entity.position.getY();
+			entity.position.addX(x);
+			entity.position.addY(y);
+			entity.moveLookup(fromX, fromY, entity.position.getX(), entity.position.getY());
+		}
+		Event.trigger(new EventEntitiesMoved(entities, x, y));
+	}
+
 	/**
 	 * Getter for the position of this entity.
 	 * DO NOT directly modify the vector returned by this, instead
@@ -168,11 +191,13 @@ public class Entity {
 	private static ComponentMap      componentMap;
 	private static Map<Long, Entity> entities;
 	private static Long              prevUniqueId;
+	private static long              prevLocalId;
 
 	static {
 		componentMap = new ComponentMap();
 		entities = new HashMap<>();
 		prevUniqueId = 0L;
+		prevLocalId = 0L;
 	}
 
 	private static long getUniqueId() {
@@ -276,7 +301,20 @@ public class Entity {
 	}
 
 	public static Entity spawn(Vector2f position) {
-		Entity entity = new Entity(getUniqueId(), position);
+		return spawn(getUniqueId(), position);
+	}
+
+	/**
+	 * Spawns an entity that is never referenced over the network, e.g. a block of a streamed map chunk.
+	 * Local entities get negative ids, so spawning them doesn't shift the ids of networked entities,
+	 * even if server and clients spawn different local entities.
+	 */
+	public static Entity spawnLocal(Vector2f position) {
+		return spawn(--prevLocalId, position);
+	}
+
+	private static Entity spawn(long id, Vector2f position) {
+		Entity entity = new Entity(id, position);
 		entities.put(entity.getId(), entity);
 		entity.addLookup(position.getX(), position.getY());
 		Event.trigger(new EventEntitySpawned(entity));
@@ -311,13 +349,17 @@ public class Entity {
 		if (components.containsKey(entity)) {
 			throw new ComponentAlreadyExistsException();
 		}
-		components.put(entity, component);
 		Entity previousOwner = component.getOwner();
-		component.setOwner(entity);
 		if (previousOwner != null) {
-			previousOwner.removeComponent(component.getClass());
-		} else {
+			// before changing the owner, the layer lookups of a bounding are found by the owner's position
+			previousOwner.removeComponent(componentClass);
+		}
+		components.put(entity, component);
+		component.setOwner(entity);
+		if (previousOwner == null) {
 			component.init();
+		} else if (component instanceof ComponentBounding) {
+			addLayerLookup((ComponentBounding) component);
 		}
 		entity.throwOnMissingDependencies();
 	}
@@ -348,26 +390,102 @@ public class Entity {
 			despawn(entities.keySet().iterator().next());
 		}
 		prevUniqueId = 0L;
+		prevLocalId = 0L;
 	}
 
 	////////////////// Entity Lookup Code //////////////////
 
 	private static Map<Vector2i, Set<Entity>> entityLookup = new HashMap<>();
-	private static Vector2i temp = new Vector2i();
+	// one temporary key per thread, lookups may happen from physics worker threads
+	private static ThreadLocal<Vector2i> temp = ThreadLocal.withInitial(Vector2i::new);
 
-	public static Set<Entity> getAt(int x, int y) {
-		Vector2i pos = getTempVector(x, y);
-		if (!entityLookup.containsKey(pos)) {
-			// clone temp to avoid mutation of the HashMap key
-			entityLookup.put(pos.clone(), new HashSet<>());
+	// entities with a bounding, one lookup per collision layer bit
+	private static final int                         LAYERS             = 32;
+	private static List<Map<Vector2i, Set<Entity>>> layerLookups       = new ArrayList<>();
+	private static int[]                             layerMembers       = new int[LAYERS];
+	private static int[]                             layerCollidesUnion = new int[LAYERS];
+	private static int                               populatedLayers;
+
+	static {
+		for (int i = 0; i < LAYERS; i++) {
+			layerLookups.add(new HashMap<>());
 		}
-		return entityLookup.get(pos);
+	}
+
+	/**
+	 * Returns all entities within the given cell.
+	 * Doesn't modify anything, so it is safe to call from multiple threads as long as no entity moves meanwhile.
+	 *
+	 * @return set of the entities within the cell, must not be modified
+	 */
+	public static Set<Entity> getAt(int x, int y) {
+		Set<Entity> cell = entityLookup.get(getTempVector(x, y));
+		return cell == null ? Collections.emptySet() : cell;
 	}
 
 	public static Set<Entity> getAt(float x, float y) {
 		return getAt((int) Math.floor(x), (int) Math.floor(y));
 	}
 
+	/**
+	 * Returns all entities within the given cell, whose bounding is in the given collision layer.
+	 *
+	 * @param layer index of the layer bit, e.g. 2 for {@link ComponentBounding#LAYER_PARTICLES}
+	 * @return set of the entities within the cell, must not be modified
+	 */
+	public static Set<Entity> getAtLayer(int x, int y, int layer) {
+		Set<Entity> cell = layerLookups.get(layer).get(getTempVector(x, y));
+		return cell == null ? Collections.emptySet() : cell;
+	}
+
+	/**
+	 * @return bitmask of all collision layers that currently have any boundings in them
+	 */
+	public static int getPopulatedLayers() {
+		return populatedLayers;
+	}
+
+	/**
+	 * @param layer index of the layer bit
+	 * @return all layers the boundings within the given layer collide with, combined.
+	 */
+	public static int getLayerCollides(int layer) {
+		return layerCollidesUnion[layer];
+	}
+
+	/**
+	 * Adds a bounding to the lookups of its layers. Called by the bounding itself.
+	 * The layers of a bounding must not change while it is added.
+	 */
+	public static void addLayerLookup(ComponentBounding bounding) {
+		Vector2f position = bounding.getOwner().getPosition();
+		int x = (int) Math.floor(position.getX());
+		int y = (int) Math.floor(position.getY());
+		for (int layer = 0; layer < LAYERS; layer++) {
+			if ((bounding.layerSelf & (1 << layer)) != 0) {
+				addToLookup(layerLookups.get(layer), bounding.getOwner(), x, y);
+				layerMembers[layer]++;
+				layerCollidesUnion[layer] |= bounding.layerCollides;
+				populatedLayers |= 1 << layer;
+			}
+		}
+	}
+
+	public static void removeLayerLookup(ComponentBounding bounding) {
+		Vector2f position = bounding.getOwner().getPosition();
+		int x = (int) Math.floor(position.getX());
+		int y = (int) Math.floor(position.getY());
+		for (int layer = 0; layer < LAYERS; layer++) {
+			if ((bounding.layerSelf & (1 << layer)) != 0) {
+				removeFromLookup(layerLookups.get(layer), bounding.getOwner(), x, y);
+				if (--layerMembers[layer] == 0) {
+					layerCollidesUnion[layer] = 0;
+					populatedLayers &= ~(1 << layer);
+				}
+			}
+		}
+	}
+
 	public static Entity getFirstAt(float x, float y) {
 		return getAt(x, y).stream().findFirst().orElse(null);
 	}
@@ -376,13 +494,24 @@ public class Entity {
 		return getAt(x, y).stream().filter(predicate).findFirst().orElse(null);
 	}
 
-	private void addLookup(int x, int y) {
+	private static void addToLookup(Map<Vector2i, Set<Entity>> lookup, Entity entity, int x, int y) {
 		Vector2i pos = getTempVector(x, y);
-		if (!entityLookup.containsKey(pos)) {
+		if (!lookup.containsKey(pos)) {
 			// clone temp to avoid mutation of the HashMap key
-			entityLookup.put(pos.clone(), new HashSet<>());
+			lookup.put(pos.clone(), new HashSet<>());
+		}
+		lookup.get(pos).add(entity);
+	}
+
+	private static void removeFromLookup(Map<Vector2i, Set<Entity>> lookup, Entity entity, int x, int y) {
+		Vector2i pos = getTempVector(x, y);
+		if (lookup.containsKey(pos)) {
+			lookup.get(pos).remove(entity);
 		}
-		entityLookup.get(pos).add(this);
+	}
+
+	private void addLookup(int x, int y) {
+		addToLookup(entityLookup, this, x, y);
 	}
 
 	private void addLookup(float x, float y) {
@@ -390,10 +519,7 @@ public class Entity {
 	}
 
 	private void removeLookup(int x, int y) {
-		Vector2i pos = getTempVector(x, y);
-		if (entityLookup.containsKey(pos)) {
-			entityLookup.get(pos).remove(this);
-		}
+		removeFromLookup(entityLookup, this, x, y);
 	}
 
 	private void removeLookup(float x, float y) {
@@ -404,6 +530,15 @@ public class Entity {
 		if (fromX == toX && fromY == toY) return;
 		removeLookup(fromX, fromY);
 		addLookup(toX, toY);
+		ComponentBounding bounding = getComponent(ComponentBounding.class);
+		if (bounding != null) {
+			for (int layer = 0; layer < LAYERS; layer++) {
+				if ((bounding.layerSelf & (1 << layer)) != 0) {
+					removeFromLookup(layerLookups.get(layer), this, fromX, fromY);
+					addToLookup(layerLookups.get(layer), this, toX, toY);
+				}
+			}
+		}
 	}
 
 	private void moveLookup(float fromX, float fromY, float toX, float toY) {
@@ -411,9 +546,10 @@ public class Entity {
 	}
 
 	private static Vector2i getTempVector(int x, int y) {
-		temp.setX(x);
-		temp.setY(y);
-		return temp;
+		Vector2i vector = temp.get();
+		vector.setX(x);
+		vector.setY(y);
+		return vector;
 	}
 
 }
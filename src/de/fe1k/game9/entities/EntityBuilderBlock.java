@@ -15,7 +15,7 @@ public class EntityBuilderBlock implements Tile.EntityBuilder {
 		if (tile.texname != null) {
 			if (tile.stationary) {
 				entity.addComponent(new ComponentRenderer());
-			} else {
+			} else if (!Game.isHeadless()) {
 				entity.addComponent(new ComponentSpriteRenderer(Game.renderer, tile.texname));
 			}
 		}
@@ -13,7 +13,9 @@ public class EntityBuilderFire implements Tile.EntityBuilder {
 
 	@Override
 	public void createEntity(Entity entity, Tile tile, int markerColor) {
-		entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.4f, 0.0f, 0.0f), 10, 1.5f));
+		if (!Game.isHeadless()) {
+			entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.4f, 0.0f, 0.0f), 10, 1.5f));
+		}
 		entity.addComponent(new ComponentKillOnCollision());
 		entity.addComponent(new ComponentBounding(new Bounding(0, 0, 1, 0.75f), ComponentBounding.LAYER_MAP, ComponentBounding.LAYER_ALL));
 		entity.addComponent(new ComponentRenderer());
@@ -9,6 +9,8 @@ public class EntityBuilderLamp implements Tile.EntityBuilder {
 
 	@Override
 	public void createEntity(Entity entity, Tile tile, int markerColor) {
-		entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.66f, 0.0f, 0.0f), 10, 2));
+		if (!Game.isHeadless()) {
+			entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.66f, 0.0f, 0.0f), 10, 2));
+		}
 	}
 }
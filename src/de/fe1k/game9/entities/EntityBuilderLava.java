@@ -5,6 +5,7 @@ import de.fe1k.game9.components.ComponentKillOnCollision;
 import de.fe1k.game9.components.ComponentLight;
 import de.fe1k.game9.components.ComponentParticleSystem;
 import de.fe1k.game9.map.Tile;
+import de.fe1k.game9.particles.ParticleBudget;
 import de.nerogar.noise.util.Color;
 
 public class EntityBuilderLava extends EntityBuilderBlock {
@@ -13,8 +14,11 @@ public class EntityBuilderLava extends EntityBuilderBlock {
 	public void createEntity(Entity entity, Tile tile, int markerColor) {
 		super.createEntity(entity, tile, markerColor);
 
-		entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.2f, 0.0f, 0.0f), 10, 1.0f));
 		entity.addComponent(new ComponentKillOnCollision());
+		if (Game.isHeadless()) {
+			return;
+		}
+		entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.2f, 0.0f, 0.0f), 10, 1.0f));
 
 		// particle system
 		ComponentParticleSystem particleSystem = new ComponentParticleSystem("blood", 1.5f, 0.5f, 3, 2, 0.2f);
@@ -28,6 +32,7 @@ public class EntityBuilderLava extends EntityBuilderBlock {
 		particleSystem.scaleRandDelta.set(0.2f);
 
 		particleSystem.setLight(new Color(1.0f, 0.2f, 0.2f, 0.0f), 2.5f, 1.0f);
+		particleSystem.priority = ParticleBudget.Priority.LOW;
 
 		entity.addComponent(particleSystem);
 
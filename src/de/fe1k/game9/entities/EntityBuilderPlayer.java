@@ -14,12 +14,19 @@ public class EntityBuilderPlayer implements Tile.EntityBuilder {
 		entity.addComponent(new ComponentPlayer());
 
 		entity.getScale().set(1.0f);
-		entity.addComponent(new ComponentSpriteRenderer(Game.renderer, "man"));
-		entity.addComponent(new ComponentMoving());
+		if (!Game.isHeadless()) {
+			entity.addComponent(new ComponentSpriteRenderer(Game.renderer, "man"));
+		}
+		ComponentMoving moving = new ComponentMoving();
+		moving.continuous = true;
+		entity.addComponent(moving);
 		entity.addComponent(new ComponentBounding(new Bounding(0.2f, 0.1f, 0.9f, 0.95f), ComponentBounding.LAYER_PLAYER, ComponentBounding.LAYER_ALL));
-		entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.8f, 0.8f, 0.0f), 20, 3));
+		if (!Game.isHeadless()) {
+			entity.addComponent(new ComponentLight(Game.renderer, new Color(1.0f, 0.8f, 0.8f, 0.0f), 20, 3));
+		}
 		entity.addComponent(new ComponentDeathAnimation());
-		ComponentControllable control = new ComponentControllable(Game.window.getInputHandler());
+		// without a window, the player is controlled by the clients only
+		ComponentControllable control = new ComponentControllable(Game.isHeadless() ? null : Game.getKeyStates());
 		entity.addComponent(control);
 		control.resetPosition();
 
@@ -0,0 +1,375 @@
+package de.fe1k.game9.entities;
+
+import de.fe1k.game9.components.ComponentBounding;
+import de.fe1k.game9.utils.Bounding;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Spatial queries backed by the entity lookup.
+ * Results are passed to a visitor or written into buffers supplied by the caller, so nothing gets allocated per query.
+ * <p>
+ * The layer mask selects entities by the {@link ComponentBounding#layerSelf} of their bounding.
+ * Entities without a bounding only match {@link ComponentBounding#LAYER_ALL}.
+ * Any other mask only walks the lookups of the layers it selects, so crowded layers don't slow down queries for other layers.
+ * Boundings are assumed to be at most one unit away from their entity's position.
+ */
+public class SpatialQuery {
+
+	public interface EntityVisitor {
+		/**
+		 * @return false to stop the query
+		 */
+		boolean visit(Entity entity);
+	}
+
+	public static class RaycastHit {
+		public Entity entity;
+		public float  distance;
+		public float  x;
+		public float  y;
+	}
+
+	private static class NearestCollector implements EntityVisitor {
+
+		private float    x;
+		private float    y;
+		private float    maxDistanceSq;
+		private Entity[] out;
+		private float[]  distances = new float[16];
+		private int      found;
+
+		@Override
+		public boolean visit(Entity entity) {
+			int n = out.length;
+			float distX = entity.getPosition().getX() - x;
+			float distY = entity.getPosition().getY() - y;
+			float distanceSq = distX * distX + distY * distY;
+			if (distanceSq > maxDistanceSq || (found == n && distanceSq >= distances[n - 1])) {
+				return true;
+			}
+			// insertion sort into the results
+			int i = found == n ? n - 1 : found++;
+			while (i > 0 && distances[i - 1] > distanceSq) {
+				distances[i] = distances[i - 1];
+				out[i] = out[i - 1];
+				i--;
+			}
+			distances[i] = distanceSq;
+			out[i] = entity;
+			return true;
+		}
+	}
+
+	private static class BufferCollector implements EntityVisitor {
+
+		private Collection<? super Entity> out;
+
+		@Override
+		public boolean visit(Entity entity) {
+			out.add(entity);
+			return true;
+		}
+	}
+
+	// one collector per thread, as queries may run on physics worker threads
+	private static ThreadLocal<NearestCollector> nearestCollector = ThreadLocal.withInitial(NearestCollector::new);
+	private static ThreadLocal<BufferCollector>  bufferCollector  = ThreadLocal.withInitial(BufferCollector::new);
+
+	private SpatialQuery() {
+	}
+
+	/**
+	 * Visits all entities positioned within a box.
+	 *
+	 * @param minX inclusive
+	 * @param minY inclusive
+	 * @param maxX exclusive
+	 * @param maxY exclusive
+	 * @return false if the visitor stopped the query, true otherwise
+	 */
+	public static boolean queryAabb(float minX, float minY, float maxX, float maxY, int layerMask, EntityVisitor visitor) {
+		int cellMaxX = (int) Math.ceil(maxX) - 1;
+		int cellMaxY = (int) Math.ceil(maxY) - 1;
+		for (int x = (int) Math.floor(minX); x <= cellMaxX; x++) {
+			for (int y = (int) Math.floor(minY); y <= cellMaxY; y++) {
+				// cells completely within the box don't need their entities' positions checked
+				boolean inside = x >= minX && y >= minY && x + 1 <= maxX && y + 1 <= maxY;
+				if (!visitCell(x, y, layerMask, !inside, minX, minY, maxX, maxY, visitor)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds all entities positioned within a box to a buffer.
+	 *
+	 * @return the number of entities added
+	 */
+	public static int queryAabb(float minX, float minY, float maxX, float maxY, int layerMask, Collection<? super Entity> out) {
+		int sizeBefore = out.size();
+		BufferCollector collector = bufferCollector.get();
+		collector.out = out;
+		queryAabb(minX, minY, maxX, maxY, layerMask, collector);
+		collector.out = null;
+		return out.size() - sizeBefore;
+	}
+
+	/**
+	 * Adds all entities within the given cell of the entity lookup to a buffer.
+	 *
+	 * @return the number of entities added
+	 */
+	public static int queryCell(int x, int y, int layerMask, Collection<? super Entity> out) {
+		int sizeBefore = out.size();
+		BufferCollector collector = bufferCollector.get();
+		collector.out = out;
+		visitCell(x, y, layerMask, false, 0, 0, 0, 0, collector);
+		collector.out = null;
+		return out.size() - sizeBefore;
+	}
+
+	/**
+	 * Determines the layers a bounding might actually collide with:
+	 * layers it collides with, containing boundings that collide with it as well.
+	 *
+	 * @return layer mask to query possible colliders of the bounding with
+	 */
+	public static int getCollisionMask(ComponentBounding bounding) {
+		int mask = 0;
+		int layers = bounding.layerCollides & Entity.getPopulatedLayers();
+		while (layers != 0) {
+			int layer = Integer.numberOfTrailingZeros(layers);
+			layers &= layers - 1;
+			if ((Entity.getLayerCollides(layer) & bounding.layerSelf) != 0) {
+				mask |= 1 << layer;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Checks whether a point lies within any bounding of the given layers.
+	 */
+	public static boolean isBlocked(float x, float y, int layerMask) {
+		int cellX = (int) Math.floor(x);
+		int cellY = (int) Math.floor(y);
+		int layers = layerMask & Entity.getPopulatedLayers();
+		while (layers != 0) {
+			int layer = Integer.numberOfTrailingZeros(layers);
+			layers &= layers - 1;
+			// boundings reaching this point belong to entities within its cell or the ones left of and below it
+			for (int cx = cellX - 1; cx <= cellX; cx++) {
+				for (int cy = cellY - 1; cy <= cellY; cy++) {
+					for (Entity entity : Entity.getAtLayer(cx, cy, layer)) {
+						Bounding bounding = entity.getComponent(ComponentBounding.class).bounding;
+						float localX = x - entity.getPosition().getX();
+						float localY = y - entity.getPosition().getY();
+						if (localX >= bounding.getMin().getX() && localX < bounding.getMax().getX()
+								&& localY >= bounding.getMin().getY() && localY < bounding.getMax().getY()) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the first bounding hit by a ray.
+	 * Walks along the cells of the entity lookup the ray passes, so the cost depends on the length of the ray, not on the number of entities.
+	 *
+	 * @param directionX doesn't need to be normalized
+	 * @param directionY doesn't need to be normalized
+	 * @param maxDistance maximum length of the ray
+	 * @param hit filled with the hit, if there is one
+	 * @return true if something got hit
+	 */
+	public static boolean raycast(float originX, float originY, float directionX, float directionY, float maxDistance, int layerMask, RaycastHit hit) {
+		float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+		if (length == 0) {
+			return false;
+		}
+		float dirX = directionX / length;
+		float dirY = directionY / length;
+
+		int cellX = (int) Math.floor(originX);
+		int cellY = (int) Math.floor(originY);
+		int stepX = dirX > 0 ? 1 : -1;
+		int stepY = dirY > 0 ? 1 : -1;
+		// distance along the ray to cross one cell, and to reach the next cell border
+		float deltaX = dirX == 0 ? Float.POSITIVE_INFINITY : Math.abs(1 / dirX);
+		float deltaY = dirY == 0 ? Float.POSITIVE_INFINITY : Math.abs(1 / dirY);
+		float nextX = dirX == 0 ? Float.POSITIVE_INFINITY : (dirX > 0 ? cellX + 1 - originX : originX - cellX) * deltaX;
+		float nextY = dirY == 0 ? Float.POSITIVE_INFINITY : (dirY > 0 ? cellY + 1 - originY : originY - cellY) * deltaY;
+
+		hit.entity = null;
+		hit.distance = maxDistance;
+		float cellEntry = 0;
+		while (cellEntry <= hit.distance) {
+			// boundings reaching into this cell belong to entities within this cell or the ones left of and below it
+			for (int x = cellX - 1; x <= cellX; x++) {
+				for (int y = cellY - 1; y <= cellY; y++) {
+					int layers = layerMask & Entity.getPopulatedLayers();
+					while (layers != 0) {
+						int layer = Integer.numberOfTrailingZeros(layers);
+						layers &= layers - 1;
+						for (Entity entity : Entity.getAtLayer(x, y, layer)) {
+							ComponentBounding bounding = entity.getComponent(ComponentBounding.class);
+							float distance = intersect(originX, originY, dirX, dirY, bounding.bounding, entity);
+							if (distance >= 0 && distance < hit.distance) {
+								hit.entity = entity;
+								hit.distance = distance;
+							}
+						}
+					}
+				}
+			}
+
+			if (nextX < nextY) {
+				cellEntry = nextX;
+				nextX += deltaX;
+				cellX += stepX;
+			} else {
+				cellEntry = nextY;
+				nextY += deltaY;
+				cellY += stepY;
+			}
+		}
+
+		if (hit.entity == null) {
+			return false;
+		}
+		hit.x = originX + dirX * hit.distance;
+		hit.y = originY + dirY * hit.distance;
+		return true;
+	}
+
+	/**
+	 * Finds the entities closest to a point, measured by their position.
+	 *
+	 * @param maxDistance entities further away than this are ignored
+	 * @param out filled with the found entities, closest first. Its length is the maximum number of entities to find
+	 * @return the number of entities found
+	 */
+	public static int nearest(float x, float y, float maxDistance, int layerMask, Entity[] out) {
+		int n = out.length;
+		if (n == 0) {
+			return 0;
+		}
+		NearestCollector collector = nearestCollector.get();
+		if (collector.distances.length < n) {
+			collector.distances = new float[n];
+		}
+		collector.x = x;
+		collector.y = y;
+		collector.maxDistanceSq = maxDistance * maxDistance;
+		collector.out = out;
+		collector.found = 0;
+
+		int cellX = (int) Math.floor(x);
+		int cellY = (int) Math.floor(y);
+		int maxRadius = (int) Math.ceil(maxDistance);
+		for (int radius = 0; radius <= maxRadius; radius++) {
+			// everything in this ring and further out is at least radius - 1 away
+			float ringDistance = Math.max(radius - 1, 0);
+			if (collector.found == n && collector.distances[n - 1] <= ringDistance * ringDistance) {
+				break;
+			}
+			for (int dx = -radius; dx <= radius; dx++) {
+				// only the border of the square, the inside has been visited already
+				int stepY = (dx == -radius || dx == radius) ? 1 : Math.max(2 * radius, 1);
+				for (int dy = -radius; dy <= radius; dy += stepY) {
+					visitCell(cellX + dx, cellY + dy, layerMask, false, 0, 0, 0, 0, collector);
+				}
+			}
+		}
+		int found = collector.found;
+		collector.out = null;
+		Arrays.fill(out, found, n, null);
+		return found;
+	}
+
+	/**
+	 * Visits all entities matching the layer mask within one cell of the entity lookup.
+	 *
+	 * @param clip whether to skip entities positioned outside of the given box
+	 * @return false if the visitor stopped the query, true otherwise
+	 */
+	private static boolean visitCell(int x, int y, int layerMask, boolean clip, float minX, float minY, float maxX, float maxY, EntityVisitor visitor) {
+		if (layerMask == ComponentBounding.LAYER_ALL) {
+			for (Entity entity : Entity.getAt(x, y)) {
+				if (clip && !contains(entity, minX, minY, maxX, maxY)) {
+					continue;
+				}
+				if (!visitor.visit(entity)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		int layers = layerMask & Entity.getPopulatedLayers();
+		while (layers != 0) {
+			int layer = Integer.numberOfTrailingZeros(layers);
+			layers &= layers - 1;
+			int lowerLayers = layerMask & ((1 << layer) - 1);
+			for (Entity entity : Entity.getAtLayer(x, y, layer)) {
+				if ((entity.getComponent(ComponentBounding.class).layerSelf & lowerLayers) != 0) {
+					continue;  // entities within several layers are only visited for the first one
+				}
+				if (clip && !contains(entity, minX, minY, maxX, maxY)) {
+					continue;
+				}
+				if (!visitor.visit(entity)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean contains(Entity entity, float minX, float minY, float maxX, float maxY) {
+		float posX = entity.getPosition().getX();
+		float posY = entity.getPosition().getY();
+		return posX >= minX && posY >= minY && posX < maxX && posY < maxY;
+	}
+
+	/**
+	 * Slab test of a ray against a bounding relative to an entity's position.
+	 *
+	 * @return distance along the ray to the bounding, 0 if the origin is inside, or -1 if it misses
+	 */
+	private static float intersect(float originX, float originY, float dirX, float dirY, Bounding bounding, Entity entity) {
+		float minX = entity.getPosition().getX() + bounding.getMin().getX();
+		float minY = entity.getPosition().getY() + bounding.getMin().getY();
+		float maxX = entity.getPosition().getX() + bounding.getMax().getX();
+		float maxY = entity.getPosition().getY() + bounding.getMax().getY();
+
+		float entry = Float.NEGATIVE_INFINITY;
+		float exit = Float.POSITIVE_INFINITY;
+		if (dirX != 0) {
+			float t1 = (minX - originX) / dirX;
+			float t2 = (maxX - originX) / dirX;
+			entry = Math.max(entry, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		} else if (originX < minX || originX >= maxX) {
+			return -1;
+		}
+		if (dirY != 0) {
+			float t1 = (minY - originY) / dirY;
+			float t2 = (maxY - originY) / dirY;
+			entry = Math.max(entry, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		} else if (originY < minY || originY >= maxY) {
+			return -1;
+		}
+		if (entry > exit || exit < 0) {
+			return -1;
+		}
+		return Math.max(entry, 0);
+	}
+}
@@ -0,0 +1,17 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.entities.Entity;
+
+/**
+ * Updates the listener at a rate depending on the entity's distance to the nearest player.
+ * Distant entities are updated less often, with the time since their last update as delta time.
+ * Keep this event around to remove the update again using {@link EventRemoveLodUpdate}.
+ */
+public class EventAddLodUpdate implements Event {
+	public Entity entity;
+	public EventListener<EventUpdate> listener;
+	public EventAddLodUpdate(Entity entity, EventListener<EventUpdate> listener) {
+		this.entity = entity;
+		this.listener = listener;
+	}
+}
@@ -0,0 +1,23 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.components.Component;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.utils.TriggerVolume;
+
+/**
+ * Calls the callback once, as soon as an entity with the tag component is within the volume.
+ * Keep this event around to remove the trigger again using {@link EventRemoveTrigger}.
+ */
+public class EventAddTrigger implements Event {
+	public interface Callback {
+		void call(Entity entity);
+	}
+	public TriggerVolume volume;
+	public Class<? extends Component> tag;
+	public Callback callback;
+	public EventAddTrigger(TriggerVolume volume, Class<? extends Component> tag, Callback callback) {
+		this.volume = volume;
+		this.tag = tag;
+		this.callback = callback;
+	}
+}
@@ -0,0 +1,10 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.components.ComponentMoving;
+
+public class EventBodyAwake implements Event {
+	public ComponentMoving body;
+	public EventBodyAwake(ComponentMoving body) {
+		this.body = body;
+	}
+}
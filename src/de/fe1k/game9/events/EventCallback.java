@@ -1,13 +1,45 @@
 package de.fe1k.game9.events;
 
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.utils.TimingWheel;
+
+/**
+ * Calls the callback after {@code time} seconds. The event itself is the handle to cancel the callback with.
+ */
 public class EventCallback implements Event {
 	public interface Callback {
 		void call();
 	}
-	public float time;
+	public float    time;
 	public Callback callback;
+	// the callback gets cancelled when this entity is despawned, may be null
+	public Entity   owner;
+
+	// set once the callback got scheduled
+	public TimingWheel.Timer<EventCallback> timer;
+	private boolean                         cancelled;
+
 	public EventCallback(float time, Callback callback) {
+		this(time, null, callback);
+	}
+
+	public EventCallback(float time, Entity owner, Callback callback) {
 		this.time = time;
+		this.owner = owner;
 		this.callback = callback;
 	}
+
+	/**
+	 * Cancels the callback, even if it didn't get scheduled yet.
+	 */
+	public void cancel() {
+		cancelled = true;
+		if (timer != null) {
+			timer.cancel();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
 }
@@ -1,10 +1,10 @@
 package de.fe1k.game9.events;
 
-import de.nerogar.noise.network.Connection;
+import de.fe1k.game9.network.Peer;
 
 public class EventClientConnected implements Event {
-	public Connection client;
-	public EventClientConnected(Connection client) {
+	public Peer client;
+	public EventClientConnected(Peer client) {
 		this.client = client;
 	}
 }
@@ -0,0 +1,18 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.components.ComponentBounding;
+import de.fe1k.game9.components.ComponentMoving;
+import de.fe1k.game9.utils.Direction;
+
+public class EventCollisionStay implements Event {
+	public ComponentMoving movingComponent;
+	public ComponentBounding obstacle;
+	public Direction collisionDirection;
+	public int ticks;  // how many ticks the contact lasted so far
+	public EventCollisionStay(ComponentMoving movingComponent, ComponentBounding obstacle, Direction collisionDirection, int ticks) {
+		this.movingComponent = movingComponent;
+		this.obstacle = obstacle;
+		this.collisionDirection = collisionDirection;
+		this.ticks = ticks;
+	}
+}
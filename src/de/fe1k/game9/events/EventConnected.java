@@ -1,10 +1,10 @@
 package de.fe1k.game9.events;
 
-import de.nerogar.noise.network.Connection;
+import de.fe1k.game9.network.Peer;
 
 public class EventConnected implements Event {
-	public Connection server;
-	public EventConnected(Connection server) {
+	public Peer server;
+	public EventConnected(Peer server) {
 		this.server = server;
 	}
 }
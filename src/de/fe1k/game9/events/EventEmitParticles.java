@@ -0,0 +1,12 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.components.ComponentParticleSystem;
+
+public class EventEmitParticles implements Event {
+	public ComponentParticleSystem emitter;
+	public float deltaTime;
+	public EventEmitParticles(ComponentParticleSystem emitter, float deltaTime) {
+		this.emitter = emitter;
+		this.deltaTime = deltaTime;
+	}
+}
@@ -0,0 +1,31 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.entities.Entity;
+
+import java.util.Arrays;
+
+/**
+ * Several entities got moved by the same amount at once, e.g. the blocks of a platform.
+ * Triggered instead of an {@link EventEntityMoved} for each of them.
+ */
+public class EventEntitiesMoved implements Event {
+
+	public Entity[] entities;
+	public float    deltaX;
+	public float    deltaY;
+
+	public EventEntitiesMoved(Entity[] entities, float deltaX, float deltaY) {
+		this.entities = entities;
+		this.deltaX = deltaX;
+		this.deltaY = deltaY;
+	}
+
+	@Override
+	public String toString() {
+		return "EventEntitiesMoved{" +
+				"entities=" + Arrays.toString(entities) +
+				", deltaX=" + deltaX +
+				", deltaY=" + deltaY +
+				'}';
+	}
+}
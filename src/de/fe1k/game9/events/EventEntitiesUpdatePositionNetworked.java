@@ -0,0 +1,58 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.utils.VarInt;
+import de.nerogar.noise.util.Vector2f;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Moves entities that keep their relative positions, given the new position of the first one.
+ */
+public class EventEntitiesUpdatePositionNetworked implements EventToClients {
+
+	public Entity[] entities;
+	public Vector2f to;
+
+	public EventEntitiesUpdatePositionNetworked() {
+	}
+
+	public EventEntitiesUpdatePositionNetworked(Entity[] entities, Vector2f to) {
+		this.entities = entities;
+		this.to = to;
+	}
+
+	@Override
+	public String toString() {
+		return "EventEntitiesUpdatePositionNetworked{" +
+				"entities=" + Arrays.toString(entities) +
+				", to=" + to +
+				'}';
+	}
+
+	@Override
+	public void fromStream(DataInputStream in) throws IOException {
+		int count = VarInt.readVarInt(in);
+		if (count < 0 || count > in.available()) {
+			throw new IOException("bad entity count: " + count);  // every id takes at least one byte
+		}
+		entities = new Entity[count];
+		for (int i = 0; i < entities.length; i++) {
+			entities[i] = Entity.getById(VarInt.readSignedVarLong(in));
+		}
+		to = new Vector2f(in.readFloat(), in.readFloat());
+	}
+
+	@Override
+	public void toStream(DataOutputStream out) throws IOException {
+		VarInt.writeVarInt(out, entities.length);
+		for (Entity entity : entities) {
+			VarInt.writeSignedVarLong(out, entity.getId());
+		}
+		out.writeFloat(to.getX());
+		out.writeFloat(to.getY());
+	}
+}
@@ -1,6 +1,7 @@
 package de.fe1k.game9.events;
 
 import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.utils.VarInt;
 import de.nerogar.noise.util.Vector2f;
 
 import java.io.DataInputStream;
@@ -30,13 +31,13 @@ public class EventEntityUpdatePositionNetworked implements EventToClients {
 
 	@Override
 	public void fromStream(DataInputStream in) throws IOException {
-		entity = Entity.getById(in.readLong());
+		entity = Entity.getById(VarInt.readSignedVarLong(in));
 		to = new Vector2f(in.readFloat(), in.readFloat());
 	}
 
 	@Override
 	public void toStream(DataOutputStream out) throws IOException {
-		out.writeLong(entity.getId());
+		VarInt.writeSignedVarLong(out, entity.getId());
 		out.writeFloat(to.getX());
 		out.writeFloat(to.getY());
 	}
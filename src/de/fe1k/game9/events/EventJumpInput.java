@@ -0,0 +1,29 @@
+package de.fe1k.game9.events;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Sent by clients whenever they press or release the jump key, for servers without a keyboard.
+ */
+public class EventJumpInput implements EventToServer {
+	public boolean pressed;
+
+	public EventJumpInput() {
+	}
+
+	public EventJumpInput(boolean pressed) {
+		this.pressed = pressed;
+	}
+
+	@Override
+	public void fromStream(DataInputStream in) throws IOException {
+		pressed = in.readBoolean();
+	}
+
+	@Override
+	public void toStream(DataOutputStream out) throws IOException {
+		out.writeBoolean(pressed);
+	}
+}
@@ -1,5 +1,7 @@
 package de.fe1k.game9.events;
 
+import de.fe1k.game9.utils.VarInt;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -16,19 +18,11 @@ public class EventLoadMap implements EventToClients {
 
 	@Override
 	public void fromStream(DataInputStream in) throws IOException {
-		int length = in.readInt();
-		char[] chars = new char[length];
-		for (int i = 0; i < length; i++) {
-			chars[i] = in.readChar();
-		}
-		mapName = new String(chars);
+		mapName = VarInt.readString(in);
 	}
 
 	@Override
 	public void toStream(DataOutputStream out) throws IOException {
-		out.writeInt(mapName.length());
-		for (char c : mapName.toCharArray()) {
-			out.writeChar(c);
-		}
+		VarInt.writeString(out, mapName);
 	}
 }
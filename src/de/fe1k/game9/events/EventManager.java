@@ -1,5 +1,6 @@
 package de.fe1k.game9.events;
 
+import de.fe1k.game9.Game;
 import de.fe1k.game9.debug.EventProfiler;
 import de.nerogar.noise.Noise;
 
@@ -23,7 +24,9 @@ public class EventManager {
 		eventQueue = new ArrayDeque<>();
 
 		profiler = new EventProfiler();
-		Noise.getDebugWindow().addProfiler(profiler);
+		if (!Game.isHeadless()) {
+			Noise.getDebugWindow().addProfiler(profiler);
+		}
 	}
 
 	public <T extends Event> boolean register(Class<T> eventClass, EventListener<? super T> listener) {
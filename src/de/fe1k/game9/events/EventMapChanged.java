@@ -0,0 +1,31 @@
+package de.fe1k.game9.events;
+
+import de.fe1k.game9.utils.VarInt;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Tells everyone to reload the map's files, because they have been edited.
+ */
+public class EventMapChanged implements EventToClients {
+	public String mapName;
+
+	public EventMapChanged() {
+	}
+
+	public EventMapChanged(String mapName) {
+		this.mapName = mapName;
+	}
+
+	@Override
+	public void fromStream(DataInputStream in) throws IOException {
+		mapName = VarInt.readString(in);
+	}
+
+	@Override
+	public void toStream(DataOutputStream out) throws IOException {
+		VarInt.writeString(out, mapName);
+	}
+}
@@ -0,0 +1,10 @@
+package de.fe1k.game9.events;
+
+public class EventMapLoadProgress implements Event {
+	public String mapname;
+	public float  progress;
+	public EventMapLoadProgress(String mapname, float progress) {
+		this.mapname = mapname;
+		this.progress = progress;
+	}
+}
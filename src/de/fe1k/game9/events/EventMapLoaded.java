@@ -1,8 +1,15 @@
 package de.fe1k.game9.events;
 
+import de.fe1k.game9.map.MapData;
+import de.fe1k.game9.map.PathGraph;
+
 public class EventMapLoaded implements Event {
-	public String mapname;
-	public EventMapLoaded(String mapname) {
+	public String    mapname;
+	public MapData   mapData;
+	public PathGraph pathGraph;
+	public EventMapLoaded(String mapname, MapData mapData, PathGraph pathGraph) {
 		this.mapname = mapname;
+		this.mapData = mapData;
+		this.pathGraph = pathGraph;
 	}
 }
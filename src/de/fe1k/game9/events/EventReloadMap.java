@@ -0,0 +1,4 @@
+package de.fe1k.game9.events;
+
+public class EventReloadMap implements Event {
+}
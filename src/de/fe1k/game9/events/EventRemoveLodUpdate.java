@@ -0,0 +1,8 @@
+package de.fe1k.game9.events;
+
+public class EventRemoveLodUpdate implements Event {
+	public EventAddLodUpdate update;
+	public EventRemoveLodUpdate(EventAddLodUpdate update) {
+		this.update = update;
+	}
+}
@@ -0,0 +1,8 @@
+package de.fe1k.game9.events;
+
+public class EventRemoveTrigger implements Event {
+	public EventAddTrigger trigger;
+	public EventRemoveTrigger(EventAddTrigger trigger) {
+		this.trigger = trigger;
+	}
+}
@@ -0,0 +1,9 @@
+package de.fe1k.game9.events;
+
+public class EventSetParticleBudget implements Event {
+	public int budget;
+
+	public EventSetParticleBudget(int budget) {
+		this.budget = budget;
+	}
+}
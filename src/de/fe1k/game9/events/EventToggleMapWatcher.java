@@ -0,0 +1,9 @@
+package de.fe1k.game9.events;
+
+public class EventToggleMapWatcher implements Event {
+	public boolean enabled;
+
+	public EventToggleMapWatcher(boolean enabled) {
+		this.enabled = enabled;
+	}
+}
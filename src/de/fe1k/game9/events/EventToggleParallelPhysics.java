@@ -0,0 +1,9 @@
+package de.fe1k.game9.events;
+
+public class EventToggleParallelPhysics implements Event {
+	public boolean enabled;
+
+	public EventToggleParallelPhysics(boolean enabled) {
+		this.enabled = enabled;
+	}
+}
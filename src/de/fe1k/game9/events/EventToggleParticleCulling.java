@@ -0,0 +1,9 @@
+package de.fe1k.game9.events;
+
+public class EventToggleParticleCulling implements Event {
+	public boolean enabled;
+
+	public EventToggleParticleCulling(boolean enabled) {
+		this.enabled = enabled;
+	}
+}
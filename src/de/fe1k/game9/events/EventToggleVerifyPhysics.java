@@ -0,0 +1,9 @@
+package de.fe1k.game9.events;
+
+public class EventToggleVerifyPhysics implements Event {
+	public boolean enabled;
+
+	public EventToggleVerifyPhysics(boolean enabled) {
+		this.enabled = enabled;
+	}
+}
@@ -0,0 +1,386 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.DeferredContainerBank;
+import de.fe1k.game9.components.ComponentPlayer;
+import de.fe1k.game9.components.ComponentStationaryRenderer;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.events.EventListener;
+import de.fe1k.game9.systems.GameSystem;
+import de.nerogar.noise.render.RenderProperties3f;
+import de.nerogar.noise.render.deferredRenderer.DeferredContainer;
+import de.nerogar.noise.render.deferredRenderer.DeferredRenderable;
+import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
+import de.nerogar.noise.util.Logger;
+import de.nerogar.noise.util.Vector2f;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps only the stationary tiles of the chunks around players spawned.
+ * Chunks get decoded on a background thread and spawned on the main thread once they are done.
+ * They load within {@value #LOAD_DISTANCE} chunks of any player, but only unload further away than
+ * {@value #UNLOAD_DISTANCE} chunks, so walking along a chunk border doesn't load and unload the same chunks over and over.
+ */
+public class ChunkStreamer implements GameSystem {
+
+	private static final int LOAD_DISTANCE   = 2;
+	private static final int UNLOAD_DISTANCE = 3;
+
+	/**
+	 * A chunk as it has been decoded from the map, not spawned yet.
+	 */
+	private static class DecodedChunk {
+
+		private final int                         chunkX;
+		private final int                         chunkY;
+		// x, y and meta color of each stationary tile, by tile
+		private final Map<Tile, List<int[]>>      cells  = new EnumMap<>(Tile.class);
+		private final Map<Tile, MapData.MeshData> meshes = new EnumMap<>(Tile.class);
+
+		private DecodedChunk(int chunkX, int chunkY) {
+			this.chunkX = chunkX;
+			this.chunkY = chunkY;
+		}
+	}
+
+	/**
+	 * The entities of a spawned chunk.
+	 */
+	private static class LoadedChunk {
+
+		// blocks by cell index, see MapData
+		private final Map<Integer, Entity> blocks    = new HashMap<>();
+		private final Map<Tile, Entity>    renderers = new EnumMap<>(Tile.class);
+	}
+
+	private final DeferredRenderer renderer;
+
+	private ExecutorService decoder;
+
+	private EventListener<EventUpdate>    eventUpdate    = this::update;
+	private EventListener<EventMapLoaded> eventMapLoaded = this::mapLoaded;
+
+	private MapData                         map;
+	private String                          mapName;
+	private Map<Long, LoadedChunk>          loaded  = new HashMap<>();
+	private Map<Long, Future<DecodedChunk>> pending = new HashMap<>();
+	private List<Vector2f>                  players = new ArrayList<>();
+
+	// meshes are cached per map data, so chunks of a reloaded map don't get the old meshes
+	private Map<MapData, Long> mapIds    = new WeakHashMap<>();
+	private long               nextMapId = 0;
+
+	/**
+	 * @param renderer the renderer for the chunks' meshes, or null to only spawn the tiles, e.g. on a headless server
+	 */
+	public ChunkStreamer(DeferredRenderer renderer) {
+		this.renderer = renderer;
+	}
+
+	@Override
+	public void start() {
+		decoder = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chunk decoder");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Event.register(EventUpdate.class, eventUpdate);
+		Event.register(EventMapLoaded.class, eventMapLoaded);
+	}
+
+	@Override
+	public void stop() {
+		Event.unregister(EventUpdate.class, eventUpdate);
+		Event.unregister(EventMapLoaded.class, eventMapLoaded);
+		decoder.shutdownNow();
+	}
+
+	/**
+	 * Bodies may only move where all chunks they could touch are there, otherwise they would fall through the map.
+	 *
+	 * @return whether the chunk of the given position and all chunks around it are loaded
+	 */
+	public boolean isSimulated(Vector2f position) {
+		if (map == null) {
+			return true;
+		}
+		int chunkX = toChunk(position.getX());
+		int chunkY = toChunk(position.getY());
+		for (int x = Math.max(0, chunkX - 1); x <= Math.min(map.getChunksX() - 1, chunkX + 1); x++) {
+			for (int y = Math.max(0, chunkY - 1); y <= Math.min(map.getChunksY() - 1, chunkY + 1); y++) {
+				if (!loaded.containsKey(getKey(x, y))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of chunks that are currently spawned
+	 */
+	public int getLoadedChunks() {
+		return loaded.size();
+	}
+
+	private void mapLoaded(EventMapLoaded event) {
+		unloadAll();
+		map = event.mapData;
+		mapName = event.mapname;
+		mapIds.computeIfAbsent(map, k -> nextMapId++);
+
+		// the chunks the players start in have to be there right away
+		updatePlayers();
+		for (Vector2f player : players) {
+			forEachChunkWithin(toChunk(player.getX()), toChunk(player.getY()), LOAD_DISTANCE, (x, y) -> {
+				if (!loaded.containsKey(getKey(x, y))) {
+					apply(decode(map, x, y, renderer != null));
+				}
+			});
+		}
+	}
+
+	private void update(EventUpdate event) {
+		if (map == null) {
+			return;
+		}
+		updatePlayers();
+
+		// spawn what has been decoded in the meantime
+		Iterator<Map.Entry<Long, Future<DecodedChunk>>> pendingIter = pending.entrySet().iterator();
+		while (pendingIter.hasNext()) {
+			Future<DecodedChunk> future = pendingIter.next().getValue();
+			if (!future.isDone()) {
+				continue;
+			}
+			pendingIter.remove();
+			try {
+				DecodedChunk chunk = future.get();
+				if (getDistance(chunk.chunkX, chunk.chunkY) <= UNLOAD_DISTANCE) {
+					apply(chunk);
+				}
+			} catch (InterruptedException | CancellationException e) {
+				// map changed while decoding
+			} catch (ExecutionException e) {
+				Logger.getErrorStream().println("Could not decode chunk: " + e.getCause());
+			}
+		}
+
+		// request chunks that came into range
+		for (Vector2f player : players) {
+			forEachChunkWithin(toChunk(player.getX()), toChunk(player.getY()), LOAD_DISTANCE, (x, y) -> {
+				long key = getKey(x, y);
+				if (!loaded.containsKey(key) && !pending.containsKey(key)) {
+					MapData decodedMap = map;
+					boolean withMeshes = renderer != null;
+					pending.put(key, decoder.submit(() -> decode(decodedMap, x, y, withMeshes)));
+				}
+			});
+		}
+
+		// without players there is nobody to decide what's out of range
+		if (players.isEmpty()) {
+			return;
+		}
+		Iterator<Map.Entry<Long, LoadedChunk>> loadedIter = loaded.entrySet().iterator();
+		while (loadedIter.hasNext()) {
+			Map.Entry<Long, LoadedChunk> entry = loadedIter.next();
+			if (getDistance(getChunkX(entry.getKey()), getChunkY(entry.getKey())) > UNLOAD_DISTANCE) {
+				despawn(entry.getValue());
+				loadedIter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Collects the stationary tiles and meshes of a chunk. Only reads the map, so it runs on the decoder thread.
+	 */
+	private static DecodedChunk decode(MapData map, int chunkX, int chunkY, boolean withMeshes) {
+		DecodedChunk chunk = new DecodedChunk(chunkX, chunkY);
+		int maxX = Math.min(map.width, (chunkX + 1) * MapData.CHUNK_SIZE);
+		int maxY = Math.min(map.height, (chunkY + 1) * MapData.CHUNK_SIZE);
+		for (int x = chunkX * MapData.CHUNK_SIZE; x < maxX; x++) {
+			for (int y = chunkY * MapData.CHUNK_SIZE; y < maxY; y++) {
+				Tile tile = map.getTileOrFallback(x, y);
+				if (tile != null && tile.stationary) {
+					chunk.cells.computeIfAbsent(tile, k -> new ArrayList<>()).add(new int[] { x, y, map.getMeta(x, y) });
+				}
+			}
+		}
+		if (withMeshes) {
+			for (Tile tile : chunk.cells.keySet()) {
+				chunk.meshes.put(tile, map.getMesh(tile, chunkX, chunkY));
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * Spawns a decoded chunk. Creates the meshes too, so this has to run on the main thread.
+	 */
+	private void apply(DecodedChunk chunk) {
+		LoadedChunk loadedChunk = new LoadedChunk();
+		for (Map.Entry<Tile, List<int[]>> entry : chunk.cells.entrySet()) {
+			Tile tile = entry.getKey();
+			for (int[] cell : entry.getValue()) {
+				loadedChunk.blocks.put(cell[1] * map.width + cell[0], tile.createLocalEntity(new Vector2f(cell[0], cell[1]), cell[2]));
+			}
+			if (renderer != null) {
+				loadedChunk.renderers.put(tile, spawnRenderer(tile, chunk.chunkX, chunk.chunkY, chunk.meshes.get(tile)));
+			}
+		}
+		loaded.put(getKey(chunk.chunkX, chunk.chunkY), loadedChunk);
+	}
+
+	private Entity spawnRenderer(Tile tile, int chunkX, int chunkY, MapData.MeshData mesh) {
+		String variant = mapName + "@" + mapIds.get(map) + ":" + chunkX + "," + chunkY;
+
+		Entity renderableEntity = Entity.spawnLocal(new Vector2f());
+		// nothing else renders the chunk's mesh, so it's freed once the chunk is unloaded or the tile changed
+		renderableEntity.addComponent(new ComponentStationaryRenderer(renderer, () -> {
+			DeferredContainer container = DeferredContainerBank.getContainer(tile.texname, variant, mesh::createMesh);
+			return new DeferredRenderable(container, new RenderProperties3f());
+		}, () -> DeferredContainerBank.releaseContainer(tile.texname, variant)));
+		return renderableEntity;
+	}
+
+	/**
+	 * Replaces the map with a changed version of it, e.g. after the level has been edited.
+	 * Only the changed cells of spawned chunks are respawned, and only the meshes of the tiles that changed
+	 * within a chunk are rebuilt. Chunks that aren't spawned just get loaded from the new map later.
+	 *
+	 * @param diff the changes from the current map to the new one
+	 * @return the number of cells that have been respawned
+	 */
+	int reload(MapData newMap, MapDiff diff) {
+		// chunks being decoded are of the old map
+		pending.values().forEach(future -> future.cancel(true));
+		pending.clear();
+
+		MapData oldMap = map;
+		map = newMap;
+		mapIds.computeIfAbsent(map, k -> nextMapId++);
+
+		int changed = 0;
+		for (Map.Entry<Long, LoadedChunk> entry : loaded.entrySet()) {
+			List<Integer> cells = diff.getCells(entry.getKey());
+			if (!cells.isEmpty()) {
+				changed += reloadChunk(oldMap, getChunkX(entry.getKey()), getChunkY(entry.getKey()), entry.getValue(), cells);
+			}
+		}
+		return changed;
+	}
+
+	private int reloadChunk(MapData oldMap, int chunkX, int chunkY, LoadedChunk chunk, List<Integer> cells) {
+		Set<Tile> changedTiles = EnumSet.noneOf(Tile.class);
+		int changed = 0;
+		for (int cell : cells) {
+			int x = cell % map.width;
+			int y = cell / map.width;
+			Tile oldTile = getStationaryTile(oldMap, x, y);
+			Tile newTile = getStationaryTile(map, x, y);
+			if (oldTile == newTile && (newTile == null || oldMap.getMeta(x, y) == map.getMeta(x, y))) {
+				continue;  // e.g. a marker changed
+			}
+			changed++;
+			Entity block = chunk.blocks.remove(cell);
+			if (block != null) {
+				despawn(block);
+			}
+			if (newTile != null) {
+				chunk.blocks.put(cell, newTile.createLocalEntity(new Vector2f(x, y), map.getMeta(x, y)));
+			}
+			if (oldTile != newTile) {
+				if (oldTile != null) changedTiles.add(oldTile);
+				if (newTile != null) changedTiles.add(newTile);
+			}
+		}
+
+		for (Tile tile : changedTiles) {
+			Entity oldRenderer = chunk.renderers.remove(tile);
+			if (oldRenderer != null) {
+				despawn(oldRenderer);
+			}
+			MapData.MeshData mesh = map.getMesh(tile, chunkX, chunkY);
+			if (mesh != null && renderer != null) {
+				chunk.renderers.put(tile, spawnRenderer(tile, chunkX, chunkY, mesh));
+			}
+		}
+		return changed;
+	}
+
+	private static Tile getStationaryTile(MapData map, int x, int y) {
+		Tile tile = map.getTileOrFallback(x, y);
+		return tile != null && tile.stationary ? tile : null;
+	}
+
+	private void unloadAll() {
+		pending.values().forEach(future -> future.cancel(true));
+		pending.clear();
+		loaded.values().forEach(this::despawn);
+		loaded.clear();
+	}
+
+	private void despawn(LoadedChunk chunk) {
+		chunk.blocks.values().forEach(this::despawn);
+		chunk.renderers.values().forEach(this::despawn);
+	}
+
+	private void despawn(Entity entity) {
+		// might be gone already, e.g. after all entities got despawned
+		if (Entity.getById(entity.getId()) == entity) {
+			Entity.despawn(entity.getId());
+		}
+	}
+
+	private void updatePlayers() {
+		players.clear();
+		for (ComponentPlayer player : Entity.getComponents(ComponentPlayer.class)) {
+			players.add(player.getOwner().getPosition());
+		}
+	}
+
+	/**
+	 * @return the distance in chunks to the nearest player, measured along the axis that is further away
+	 */
+	private int getDistance(int chunkX, int chunkY) {
+		int distance = Integer.MAX_VALUE;
+		for (Vector2f player : players) {
+			int dx = Math.abs(toChunk(player.getX()) - chunkX);
+			int dy = Math.abs(toChunk(player.getY()) - chunkY);
+			distance = Math.min(distance, Math.max(dx, dy));
+		}
+		return distance;
+	}
+
+	private interface ChunkConsumer {
+
+		void accept(int chunkX, int chunkY);
+	}
+
+	private void forEachChunkWithin(int chunkX, int chunkY, int distance, ChunkConsumer consumer) {
+		for (int x = Math.max(0, chunkX - distance); x <= Math.min(map.getChunksX() - 1, chunkX + distance); x++) {
+			for (int y = Math.max(0, chunkY - distance); y <= Math.min(map.getChunksY() - 1, chunkY + distance); y++) {
+				consumer.accept(x, y);
+			}
+		}
+	}
+
+	private static int toChunk(float coordinate) {
+		return Math.floorDiv((int) Math.floor(coordinate), MapData.CHUNK_SIZE);
+	}
+
+	static long getKey(int chunkX, int chunkY) {
+		return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+	}
+
+	private static int getChunkX(long key) {
+		return (int) (key >> 32);
+	}
+
+	private static int getChunkY(long key) {
+		return (int) key;
+	}
+}
@@ -2,45 +2,131 @@ package de.fe1k.game9.map;
 
 import de.nerogar.noise.util.Logger;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Keeps recently used maps, up to a total size in bytes.
+ * The least recently used maps get evicted first. If soft references are enabled, evicted maps are kept around
+ * until the garbage collector needs the memory, and are used again if they are requested before that.
+ */
 public class MapCache {
-	public static class MapFileContainer {
-		public BufferedImage levelImg;
-		public BufferedImage metaImg;
-		public BufferedImage markerImg;
-		public MapFileContainer(BufferedImage levelImg, BufferedImage metaImg, BufferedImage markerImg) {
-			this.levelImg = levelImg;
-			this.metaImg = metaImg;
-			this.markerImg = markerImg;
+
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+	// in access order, the least recently used map comes first
+	private static LinkedHashMap<String, MapData>       maps;
+	private static Map<String, SoftReference<MapData>> evicted;
+
+	private static long    maxBytes;
+	private static long    bytes;
+	private static boolean softReferencesEnabled;
+
+	private static long hits;
+	private static long softHits;
+	private static long misses;
+	private static long evictions;
+
+	static {
+		maps = new LinkedHashMap<>(16, 0.75f, true);
+		evicted = new HashMap<>();
+		maxBytes = DEFAULT_MAX_BYTES;
+		softReferencesEnabled = true;
+	}
+
+	/**
+	 * Loads the compiled map if it's up to date, and decodes the map's images otherwise.
+	 *
+	 * @return the map, or null if it couldn't be loaded
+	 */
+	public static synchronized MapData getMapData(String mapName) {
+		MapData data = maps.get(mapName);
+		if (data != null) {
+			hits++;
+			return data;
+		}
+
+		SoftReference<MapData> reference = evicted.remove(mapName);
+		data = reference == null ? null : reference.get();
+		if (data != null) {
+			softHits++;
+		} else {
+			misses++;
+			data = load(mapName);
+			if (data == null) {
+				return null;
+			}
 		}
+		maps.put(mapName, data);
+		bytes += data.getSizeInBytes();
+		evict();
+		return data;
 	}
 
-	private static Map<String, MapFileContainer> mapContainers;
+	/**
+	 * Drops a map from the cache, so it gets loaded again the next time it's requested.
+	 */
+	public static synchronized void invalidate(String mapName) {
+		MapData data = maps.remove(mapName);
+		if (data != null) {
+			bytes -= data.getSizeInBytes();
+		}
+		evicted.remove(mapName);
+	}
 
-	static {
-		mapContainers = new HashMap<>();
+	/**
+	 * Evicts the least recently used maps until the cache fits into its size again.
+	 * The most recently used map always stays, even if it's bigger than the whole cache.
+	 */
+	private static void evict() {
+		Iterator<Map.Entry<String, MapData>> iter = maps.entrySet().iterator();
+		while (bytes > maxBytes && maps.size() > 1) {
+			Map.Entry<String, MapData> eldest = iter.next();
+			iter.remove();
+			bytes -= eldest.getValue().getSizeInBytes();
+			evictions++;
+			if (softReferencesEnabled) {
+				evicted.put(eldest.getKey(), new SoftReference<>(eldest.getValue()));
+			}
+		}
+		evicted.values().removeIf(reference -> reference.get() == null);
 	}
 
-	public static MapFileContainer getMapContainer(String mapName) {
-		MapFileContainer container = mapContainers.get(mapName);
-		if (container == null) {
+	private static MapData load(String mapName) {
+		if (MapCompiler.isCompiled(mapName)) {
 			try {
-				BufferedImage levelImg = ImageIO.read(new File(mapName + "/level.png"));
-				BufferedImage metaImg = ImageIO.read(new File(mapName + "/meta.png"));
-				BufferedImage markerImg = ImageIO.read(new File(mapName + "/marker.png"));
-				container = new MapFileContainer(levelImg, metaImg, markerImg);
-				mapContainers.put(mapName, container);
+				return MapFile.read(MapCompiler.getCompiledPath(mapName));
 			} catch (IOException e) {
-				Logger.getErrorStream().printf("Could not load map file: %s", mapName);
-				e.printStackTrace();
+				Logger.getWarningStream().printf("Could not load compiled map, using images instead: %s\n", e.getMessage());
 			}
 		}
-		return container;
+		try {
+			return MapCompiler.decodeImages(mapName);
+		} catch (IOException e) {
+			Logger.getErrorStream().printf("Could not load map file: %s", mapName);
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	public static synchronized void setMaxBytes(long maxBytes) {
+		MapCache.maxBytes = maxBytes;
+		evict();
+	}
+
+	public static synchronized void setSoftReferencesEnabled(boolean softReferencesEnabled) {
+		MapCache.softReferencesEnabled = softReferencesEnabled;
+		if (!softReferencesEnabled) {
+			evicted.clear();
+		}
+	}
+
+	public static synchronized String getStats() {
+		return String.format("%d maps, %d of %d KiB, %d hits, %d soft hits, %d misses, %d evictions",
+		                     maps.size(), bytes >> 10, maxBytes >> 10, hits, softHits, misses, evictions);
 	}
 }
@@ -0,0 +1,79 @@
+package de.fe1k.game9.map;
+
+import de.nerogar.noise.util.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles the images of a map into a single {@link MapFile}, next to the images.
+ * Usage: {@code MapCompiler <map folder>...}
+ */
+public class MapCompiler {
+
+	public static final String LEVEL_IMAGE  = "level.png";
+	public static final String META_IMAGE   = "meta.png";
+	public static final String MARKER_IMAGE = "marker.png";
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			Logger.getErrorStream().println("usage: MapCompiler <map folder>...");
+			return;
+		}
+		for (String mapName : args) {
+			try {
+				compile(mapName);
+				Logger.getInfoStream().println("compiled map: " + mapName);
+			} catch (IOException e) {
+				Logger.getErrorStream().printf("Could not compile map: %s\n", mapName);
+				e.printStackTrace();
+			}
+		}
+	}
+
+	public static void compile(String mapName) throws IOException {
+		MapData data = decodeImages(mapName);
+		for (int x = 0; x < data.width; x++) {
+			for (int y = 0; y < data.height; y++) {
+				if (data.getTile(x, y) == MapData.UNKNOWN) {
+					Logger.getWarningStream().printf("Unrecognized tile for color: 0x%06x\n", data.getUnknownColor(x, y));
+				}
+			}
+		}
+		MapFile.write(data, getCompiledPath(mapName));
+	}
+
+	/**
+	 * Decodes a map from its images, which is what compiled maps save.
+	 */
+	public static MapData decodeImages(String mapName) throws IOException {
+		BufferedImage levelImg = ImageIO.read(new File(mapName, LEVEL_IMAGE));
+		BufferedImage metaImg = ImageIO.read(new File(mapName, META_IMAGE));
+		BufferedImage markerImg = ImageIO.read(new File(mapName, MARKER_IMAGE));
+		return MapData.decode(levelImg, metaImg, markerImg);
+	}
+
+	public static Path getCompiledPath(String mapName) {
+		return Paths.get(mapName, MapFile.FILE_NAME);
+	}
+
+	/**
+	 * @return whether the map has been compiled after its images have been changed the last time
+	 */
+	public static boolean isCompiled(String mapName) {
+		File compiled = getCompiledPath(mapName).toFile();
+		if (!compiled.isFile()) {
+			return false;
+		}
+		for (String image : new String[] { LEVEL_IMAGE, META_IMAGE, MARKER_IMAGE }) {
+			if (new File(mapName, image).lastModified() > compiled.lastModified()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,286 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.components.ComponentMarker;
+import de.fe1k.game9.utils.Vector2i;
+import de.nerogar.noise.render.Mesh;
+import de.nerogar.noise.render.VertexList;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The layers of a map with the tiles already classified, either decoded from the map's images
+ * or viewed directly from a compiled {@link MapFile}.
+ * Cells are indexed by {@code y * width + x}, with y pointing up like in the game.
+ * For streaming, the map is split into square chunks of {@value #CHUNK_SIZE} cells.
+ */
+public class MapData {
+
+	// tile value of empty cells, and marker value of cells without a marker
+	public static final int NONE    = -1;
+	// tile value of cells whose color doesn't belong to any tile, see getUnknownColor
+	public static final int UNKNOWN = -2;
+
+	public static final int CHUNK_SIZE = 32;
+
+	// number of rows classified together in one task
+	private static final int BAND_HEIGHT = 32;
+
+	private static final Tile[] TILES = Tile.values();
+
+	/**
+	 * Vertex data of the static mesh of one tile.
+	 */
+	public static class MeshData {
+
+		public final int         indexCount;
+		public final int         vertexCount;
+		public final IntBuffer   indices;
+		public final FloatBuffer positions;
+		public final FloatBuffer uvs;
+
+		MeshData(int indexCount, int vertexCount, IntBuffer indices, FloatBuffer positions, FloatBuffer uvs) {
+			this.indexCount = indexCount;
+			this.vertexCount = vertexCount;
+			this.indices = indices;
+			this.positions = positions;
+			this.uvs = uvs;
+		}
+
+		public Mesh createMesh() {
+			int[] indexArray = new int[indices.remaining()];
+			float[] positionArray = new float[positions.remaining()];
+			float[] uvArray = new float[uvs.remaining()];
+			indices.duplicate().get(indexArray);
+			positions.duplicate().get(positionArray);
+			uvs.duplicate().get(uvArray);
+			return new Mesh(indexCount, vertexCount, indexArray, positionArray, uvArray);
+		}
+	}
+
+	public final int width;
+	public final int height;
+
+	// ordinal of the tile of each cell, or NONE or UNKNOWN
+	private final ByteBuffer  tiles;
+	// meta color of each cell, without alpha
+	private final SparseLayer meta;
+	// marker color of each cell without alpha, or NONE
+	private final SparseLayer markers;
+	// level color of cells with an UNKNOWN tile, null if there are none
+	private final SparseLayer unknownColors;
+
+	// derived from the layers on first use, unless they have been compiled already
+	private PathGraph           pathGraph;
+	// meshes by tile and chunk, see getMeshKey. Null if they haven't been compiled
+	private Map<Long, MeshData> meshes;
+
+	MapData(int width, int height, ByteBuffer tiles, SparseLayer meta, SparseLayer markers, SparseLayer unknownColors,
+	        PathGraph pathGraph, Map<Long, MeshData> meshes) {
+		this.width = width;
+		this.height = height;
+		this.tiles = tiles;
+		this.meta = meta;
+		this.markers = markers;
+		this.unknownColors = unknownColors;
+		this.pathGraph = pathGraph;
+		this.meshes = meshes;
+	}
+
+	/**
+	 * Reads all three images in bulk and classifies the tiles in parallel, in bands of rows.
+	 * Doesn't touch any entities, so it may run on any thread.
+	 */
+	public static MapData decode(BufferedImage levelImg, BufferedImage metaImg, BufferedImage markerImg) {
+		int width = levelImg.getWidth();
+		int height = levelImg.getHeight();
+		return decode(width, height,
+		              levelImg.getRGB(0, 0, width, height, null, 0, width),
+		              metaImg.getRGB(0, 0, width, height, null, 0, width),
+		              markerImg.getRGB(0, 0, width, height, null, 0, width));
+	}
+
+	/**
+	 * Decodes the ARGB pixels of the three images, with rows going top down like in the images.
+	 */
+	public static MapData decode(int width, int height, int[] levelPixels, int[] metaPixels, int[] markerPixels) {
+		byte[] tiles = new byte[width * height];
+		int[] meta = new int[width * height];
+		int[] markers = new int[width * height];
+		int[] unknownColors = new int[width * height];
+
+		int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+		IntStream.range(0, bands).parallel().forEach(band -> {
+			int end = Math.min(height, (band + 1) * BAND_HEIGHT);
+			for (int row = band * BAND_HEIGHT; row < end; row++) {
+				int y = height - row - 1;
+				for (int x = 0; x < width; x++) {
+					int pixel = row * width + x;
+					int cell = y * width + x;
+
+					int blockColor = levelPixels[pixel];
+					if ((blockColor & 0xFF000000) == 0) {
+						tiles[cell] = NONE;
+					} else {
+						Tile tile = Tile.fromColor(blockColor & 0xFFFFFF);
+						if (tile == null) {
+							tiles[cell] = UNKNOWN;
+							unknownColors[cell] = blockColor & 0xFFFFFF;
+						} else {
+							tiles[cell] = (byte) tile.ordinal();
+						}
+					}
+
+					meta[cell] = metaPixels[pixel] & 0xFFFFFF;
+
+					int markerColor = markerPixels[pixel];
+					markers[cell] = (markerColor & 0xFF000000) == 0 ? NONE : markerColor & 0xFFFFFF;
+				}
+			}
+		});
+
+		// the pixel arrays are garbage from here on, only the tiles are kept a byte per cell
+		return new MapData(width, height, ByteBuffer.wrap(tiles), SparseLayer.compress(meta), SparseLayer.compress(markers, NONE),
+		                   SparseLayer.compress(unknownColors, 0), null, null);
+	}
+
+	/**
+	 * @return the ordinal of the tile, or NONE or UNKNOWN
+	 */
+	public int getTile(int x, int y) {
+		return tiles.get(y * width + x);
+	}
+
+	/**
+	 * @return the tile to spawn, which is a lamp for unknown colors
+	 */
+	public Tile getTileOrFallback(int x, int y) {
+		int tile = getTile(x, y);
+		if (tile == NONE) {
+			return null;
+		}
+		return tile == UNKNOWN ? Tile.LAMP : TILES[tile];
+	}
+
+	/**
+	 * @return the level color of a cell with an UNKNOWN tile
+	 */
+	public int getUnknownColor(int x, int y) {
+		return unknownColors == null ? 0 : unknownColors.get(y * width + x);
+	}
+
+	public int getMeta(int x, int y) {
+		return meta.get(y * width + x);
+	}
+
+	/**
+	 * @return the marker color, or NONE
+	 */
+	public int getMarker(int x, int y) {
+		return markers.get(y * width + x);
+	}
+
+	/**
+	 * @return the tile of each cell as a byte, see {@link #getTile}
+	 */
+	ByteBuffer getTileLayer() {
+		return tiles.duplicate();
+	}
+
+	SparseLayer getMetaLayer() {
+		return meta;
+	}
+
+	SparseLayer getMarkerLayer() {
+		return markers;
+	}
+
+	/**
+	 * @return roughly how much memory this map takes up, including memory-mapped parts
+	 */
+	public long getSizeInBytes() {
+		long size = tiles.capacity() + meta.getSizeInBytes() + markers.getSizeInBytes();
+		if (unknownColors != null) {
+			size += unknownColors.getSizeInBytes();
+		}
+		if (meshes != null) {
+			for (MeshData mesh : meshes.values()) {
+				size += 4L * (mesh.indices.capacity() + mesh.positions.capacity() + mesh.uvs.capacity());
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the path markers of this map, linked into a graph
+	 */
+	public PathGraph getPathGraph() {
+		if (pathGraph == null) {
+			List<Vector2i> pathCells = new ArrayList<>();
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					if (getMarker(x, y) == ComponentMarker.MARKER_PATH) {
+						pathCells.add(new Vector2i(x, y));
+					}
+				}
+			}
+			pathGraph = PathGraph.build(pathCells);
+		}
+		return pathGraph;
+	}
+
+	public int getChunksX() {
+		return (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	public int getChunksY() {
+		return (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	/**
+	 * Returns the vertex data of one quad per cell of a stationary tile within a chunk.
+	 * Meshes of maps that haven't been compiled are built on every call. This is safe to call from any thread.
+	 *
+	 * @return the vertex data, or null if the chunk doesn't contain that tile
+	 */
+	public MeshData getMesh(Tile tile, int chunkX, int chunkY) {
+		if (meshes != null) {
+			return meshes.get(getMeshKey(tile, chunkX, chunkY));
+		}
+		return buildMesh(tile, chunkX, chunkY);
+	}
+
+	static long getMeshKey(Tile tile, int chunkX, int chunkY) {
+		return ((long) chunkX << 40) | ((long) chunkY << 16) | tile.ordinal();
+	}
+
+	private MeshData buildMesh(Tile tile, int chunkX, int chunkY) {
+		VertexList vl = new VertexList();
+		int maxX = Math.min(width, (chunkX + 1) * CHUNK_SIZE);
+		int maxY = Math.min(height, (chunkY + 1) * CHUNK_SIZE);
+		for (int x = chunkX * CHUNK_SIZE; x < maxX; x++) {
+			for (int y = chunkY * CHUNK_SIZE; y < maxY; y++) {
+				if (getTileOrFallback(x, y) != tile) {
+					continue;
+				}
+				int p0 = vl.addVertex(x + 0, y + 0, 0, 0, 0, 0, 0, 0);
+				int p1 = vl.addVertex(x + 1, y + 0, 0, 1, 0, 0, 0, 0);
+				int p2 = vl.addVertex(x + 1, y + 1, 0, 1, 1, 0, 0, 0);
+				int p3 = vl.addVertex(x + 0, y + 1, 0, 0, 1, 0, 0, 0);
+				vl.addIndex(p0, p1, p3);
+				vl.addIndex(p1, p2, p3);
+			}
+		}
+		if (vl.getVertexCount() == 0) {
+			return null;
+		}
+		return new MeshData(vl.getIndexCount(), vl.getVertexCount(),
+		                    IntBuffer.wrap(vl.getIndexArray()), FloatBuffer.wrap(vl.getPositionArray()), FloatBuffer.wrap(vl.getUVArray()));
+	}
+}
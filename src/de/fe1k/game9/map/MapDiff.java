@@ -0,0 +1,132 @@
+package de.fe1k.game9.map;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * The cells that differ between two versions of a map of the same size, grouped by chunk.
+ * The tile layers are compared a row of a chunk at a time, which only looks at the single cells of rows that changed,
+ * and the sparse meta and marker layers only by the cells they store.
+ */
+class MapDiff {
+
+	// changed cell indices by chunk key, see ChunkStreamer.getKey
+	private final Map<Long, List<Integer>> chunks = new HashMap<>();
+	private       int                      size;
+	private       boolean                  networked;
+
+	private MapDiff() {
+	}
+
+	/**
+	 * @return null if the maps' sizes differ
+	 */
+	static MapDiff compute(MapData oldMap, MapData newMap) {
+		if (oldMap.width != newMap.width || oldMap.height != newMap.height) {
+			return null;
+		}
+		Set<Integer> cells = new HashSet<>();
+		diffTiles(oldMap, newMap, cells);
+		if (!diffLayers(oldMap.getMetaLayer(), newMap.getMetaLayer(), cells)
+				| !diffLayers(oldMap.getMarkerLayer(), newMap.getMarkerLayer(), cells)) {
+			// every cell with the default value changed, there's no way around looking at all of them
+			for (int cell = 0; cell < oldMap.width * oldMap.height; cell++) {
+				cells.add(cell);
+			}
+		}
+
+		MapDiff diff = new MapDiff();
+		for (int cell : cells) {
+			int x = cell % oldMap.width;
+			int y = cell / oldMap.width;
+			boolean markerChanged = oldMap.getMarker(x, y) != newMap.getMarker(x, y);
+			Tile oldTile = oldMap.getTileOrFallback(x, y);
+			Tile newTile = newMap.getTileOrFallback(x, y);
+			boolean tileChanged = oldTile != newTile;
+			if (!markerChanged && !tileChanged && oldMap.getMeta(x, y) == newMap.getMeta(x, y)) {
+				continue;  // only the sparse layers' defaults moved
+			}
+			// markers and tiles that aren't stationary are networked entities
+			diff.networked |= markerChanged
+					|| tileChanged && ((oldTile != null && !oldTile.stationary) || (newTile != null && !newTile.stationary));
+			long key = ChunkStreamer.getKey(x / MapData.CHUNK_SIZE, y / MapData.CHUNK_SIZE);
+			diff.chunks.computeIfAbsent(key, k -> new ArrayList<>()).add(cell);
+			diff.size++;
+		}
+		return diff;
+	}
+
+	private static void diffTiles(MapData oldMap, MapData newMap, Set<Integer> cells) {
+		ByteBuffer oldTiles = oldMap.getTileLayer();
+		ByteBuffer newTiles = newMap.getTileLayer();
+		for (int y = 0; y < oldMap.height; y++) {
+			for (int x = 0; x < oldMap.width; x += MapData.CHUNK_SIZE) {
+				int start = y * oldMap.width + x;
+				int end = start + Math.min(MapData.CHUNK_SIZE, oldMap.width - x);
+				oldTiles.limit(end).position(start);
+				newTiles.limit(end).position(start);
+				if (oldTiles.equals(newTiles)) {
+					continue;
+				}
+				for (int cell = start; cell < end; cell++) {
+					if (oldTiles.get(cell) != newTiles.get(cell)) {
+						cells.add(cell);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the cells whose values differ, looking only at the cells either layer stores.
+	 *
+	 * @return false if the default values differ, so all other cells changed as well
+	 */
+	private static boolean diffLayers(SparseLayer oldLayer, SparseLayer newLayer, Set<Integer> cells) {
+		int i = 0;
+		int j = 0;
+		while (i < oldLayer.size() || j < newLayer.size()) {
+			int oldCell = i < oldLayer.size() ? oldLayer.getCell(i) : Integer.MAX_VALUE;
+			int newCell = j < newLayer.size() ? newLayer.getCell(j) : Integer.MAX_VALUE;
+			if (oldCell == newCell) {
+				if (oldLayer.getValue(i) != newLayer.getValue(j)) {
+					cells.add(oldCell);
+				}
+				i++;
+				j++;
+			} else if (oldCell < newCell) {
+				if (oldLayer.getValue(i) != newLayer.getDefaultValue()) {
+					cells.add(oldCell);
+				}
+				i++;
+			} else {
+				if (newLayer.getValue(j) != oldLayer.getDefaultValue()) {
+					cells.add(newCell);
+				}
+				j++;
+			}
+		}
+		return oldLayer.getDefaultValue() == newLayer.getDefaultValue();
+	}
+
+	/**
+	 * @return the changed cells of a chunk, or an empty list
+	 */
+	List<Integer> getCells(long chunkKey) {
+		return chunks.getOrDefault(chunkKey, Collections.emptyList());
+	}
+
+	/**
+	 * @return the number of changed cells
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether a marker or a tile that isn't stationary changed, which are networked entities
+	 */
+	boolean hasNetworkedChanges() {
+		return networked;
+	}
+}
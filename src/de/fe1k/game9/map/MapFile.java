@@ -0,0 +1,205 @@
+package de.fe1k.game9.map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled binary map format, see {@link MapCompiler}.
+ * Compiled maps are memory-mapped and the layers are read straight from the mapping, without copying them.
+ * <p>
+ * Layout, all big endian:
+ * <pre>
+ * int   magic, version, tile table hash, width, height
+ * byte  tile of each cell, padded to a multiple of 4
+ * int   meta layer, marker layer: default value, count n, n cell indices, n values
+ * int   waypoint count n, then n ints each of x, y, next, prev
+ * int   mesh count, then for each non-empty chunk mesh of a stationary tile:
+ *       int tile color, chunk x, chunk y, index count, vertex count,
+ *       n + n ints of indices, n + n floats of positions, n + n floats of uvs
+ * </pre>
+ */
+public class MapFile {
+
+	public static final String FILE_NAME = "map.g9map";
+
+	private static final int MAGIC   = 0x47394D50;  // "G9MP"
+	private static final int VERSION = 3;
+
+	/**
+	 * Maps a compiled map into memory.
+	 *
+	 * @throws IOException if the file can't be read, or has been compiled by a different version of the game
+	 */
+	public static MapData read(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("not a compiled map: " + file);
+			}
+			if (buffer.getInt() != VERSION || buffer.getInt() != getTileTableHash()) {
+				throw new IOException("map has been compiled for a different version: " + file);
+			}
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			int cells = width * height;
+
+			ByteBuffer tiles = view(buffer, cells);
+			view(buffer, padding(cells));
+			SparseLayer meta = readLayer(buffer);
+			SparseLayer markers = readLayer(buffer);
+
+			int waypoints = buffer.getInt();
+			int[] x = readInts(buffer, waypoints);
+			int[] y = readInts(buffer, waypoints);
+			int[] next = readInts(buffer, waypoints);
+			int[] prev = readInts(buffer, waypoints);
+			PathGraph pathGraph = PathGraph.fromLinks(x, y, next, prev);
+
+			Map<Long, MapData.MeshData> meshes = new HashMap<>();
+			int meshCount = buffer.getInt();
+			for (int i = 0; i < meshCount; i++) {
+				Tile tile = Tile.fromColor(buffer.getInt());
+				int chunkX = buffer.getInt();
+				int chunkY = buffer.getInt();
+				int indexCount = buffer.getInt();
+				int vertexCount = buffer.getInt();
+				IntBuffer indices = view(buffer, buffer.getInt() * 4).asIntBuffer();
+				FloatBuffer positions = view(buffer, buffer.getInt() * 4).asFloatBuffer();
+				FloatBuffer uvs = view(buffer, buffer.getInt() * 4).asFloatBuffer();
+				meshes.put(MapData.getMeshKey(tile, chunkX, chunkY), new MapData.MeshData(indexCount, vertexCount, indices, positions, uvs));
+			}
+
+			return new MapData(width, height, tiles, meta, markers, null, pathGraph, meshes);
+		} catch (RuntimeException e) {
+			// buffer underflows and the like, the file got truncated
+			throw new IOException("corrupt compiled map: " + file, e);
+		}
+	}
+
+	/**
+	 * Writes a map to a temporary file first and then replaces the target, so readers never see half a file.
+	 */
+	public static void write(MapData data, Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(getTileTableHash());
+			out.writeInt(data.width);
+			out.writeInt(data.height);
+
+			for (int y = 0; y < data.height; y++) {
+				for (int x = 0; x < data.width; x++) {
+					Tile tile = data.getTileOrFallback(x, y);
+					out.writeByte(tile == null ? MapData.NONE : tile.ordinal());
+				}
+			}
+			out.write(new byte[padding(data.width * data.height)]);
+			writeLayer(out, data.getMetaLayer());
+			writeLayer(out, data.getMarkerLayer());
+
+			PathGraph pathGraph = data.getPathGraph();
+			out.writeInt(pathGraph.size());
+			for (int i = 0; i < pathGraph.size(); i++) out.writeInt(pathGraph.getX(i));
+			for (int i = 0; i < pathGraph.size(); i++) out.writeInt(pathGraph.getY(i));
+			for (int i = 0; i < pathGraph.size(); i++) out.writeInt(pathGraph.getNext(i));
+			for (int i = 0; i < pathGraph.size(); i++) out.writeInt(pathGraph.getPrev(i));
+
+			Tile[] stationary = Tile.getStaticTiles().toArray(Tile[]::new);
+			List<MapData.MeshData> meshes = new ArrayList<>();
+			List<int[]> meshChunks = new ArrayList<>();
+			for (int chunkX = 0; chunkX < data.getChunksX(); chunkX++) {
+				for (int chunkY = 0; chunkY < data.getChunksY(); chunkY++) {
+					for (Tile tile : stationary) {
+						MapData.MeshData mesh = data.getMesh(tile, chunkX, chunkY);
+						if (mesh != null) {
+							meshes.add(mesh);
+							meshChunks.add(new int[] { tile.color, chunkX, chunkY });
+						}
+					}
+				}
+			}
+			out.writeInt(meshes.size());
+			for (int i = 0; i < meshes.size(); i++) {
+				MapData.MeshData mesh = meshes.get(i);
+				for (int value : meshChunks.get(i)) {
+					out.writeInt(value);
+				}
+				out.writeInt(mesh.indexCount);
+				out.writeInt(mesh.vertexCount);
+				IntBuffer indices = mesh.indices.duplicate();
+				out.writeInt(indices.remaining());
+				while (indices.hasRemaining()) out.writeInt(indices.get());
+				FloatBuffer positions = mesh.positions.duplicate();
+				out.writeInt(positions.remaining());
+				while (positions.hasRemaining()) out.writeFloat(positions.get());
+				FloatBuffer uvs = mesh.uvs.duplicate();
+				out.writeInt(uvs.remaining());
+				while (uvs.hasRemaining()) out.writeFloat(uvs.get());
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Tile ordinals are stored in the file, so it has to be recompiled whenever the tiles change.
+	 */
+	private static int getTileTableHash() {
+		return Arrays.hashCode(Arrays.stream(Tile.values()).mapToInt(tile -> tile.color).toArray());
+	}
+
+	private static int padding(int bytes) {
+		return (4 - bytes % 4) % 4;
+	}
+
+	/**
+	 * @return a view of the next {@code length} bytes, and skips them
+	 */
+	private static ByteBuffer view(ByteBuffer buffer, int length) {
+		ByteBuffer view = buffer.slice();
+		view.limit(length);
+		buffer.position(buffer.position() + length);
+		return view;
+	}
+
+	private static SparseLayer readLayer(ByteBuffer buffer) {
+		int defaultValue = buffer.getInt();
+		int count = buffer.getInt();
+		IntBuffer cells = view(buffer, count * 4).asIntBuffer();
+		IntBuffer values = view(buffer, count * 4).asIntBuffer();
+		return new SparseLayer(defaultValue, cells, values);
+	}
+
+	private static void writeLayer(DataOutputStream out, SparseLayer layer) throws IOException {
+		out.writeInt(layer.getDefaultValue());
+		out.writeInt(layer.size());
+		for (int i = 0; i < layer.size(); i++) out.writeInt(layer.getCell(i));
+		for (int i = 0; i < layer.size(); i++) out.writeInt(layer.getValue(i));
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int count) {
+		int[] ints = new int[count];
+		view(buffer, count * 4).asIntBuffer().get(ints);
+		return ints;
+	}
+}
@@ -0,0 +1,268 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.components.ComponentMarker;
+import de.nerogar.noise.util.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates maps of any size for stress testing, made of stacked corridors that are connected by shafts.
+ * The same settings always generate the same map.
+ * Usage: {@code MapGenerator <map folder> [scale] [seed] [--compile]}, where the scale is relative to the size of map_dungeon0.
+ */
+public class MapGenerator {
+
+	// size of map_dungeon0, which scales and default feature counts are relative to
+	public static final int BASE_WIDTH  = 310;
+	public static final int BASE_HEIGHT = 72;
+
+	private static final int CORRIDOR_HEIGHT = 6;
+	private static final int SHAFT_SPACING   = 40;
+	private static final int SHAFT_WIDTH     = 3;
+	private static final int PLATFORM_WIDTH  = 3;
+	private static final int PATH_LENGTH     = 12;
+	// tries to find a free spot for a feature before giving up on it
+	private static final int MAX_ATTEMPTS    = 32;
+
+	private static final int META_COLOR = 0xFFFFFF;
+	private static final int OPAQUE     = 0xFF000000;
+
+	public static class Settings {
+
+		public int   width   = BASE_WIDTH;
+		public int   height  = BASE_HEIGHT;
+		public long  seed    = 0;
+		// share of the map that is solid, the rest are corridors and shafts
+		public float density = 0.8f;
+
+		public int lava          = 40;
+		public int fire          = 12;
+		public int lamps         = 40;
+		public int fallingBlocks = 8;
+		public int platforms     = 4;
+
+		/**
+		 * @param scale how many times the area of map_dungeon0 the map covers, with as many features per area
+		 */
+		public static Settings ofScale(float scale, long seed) {
+			Settings settings = new Settings();
+			float side = (float) Math.sqrt(scale);
+			settings.width = Math.round(BASE_WIDTH * side);
+			settings.height = Math.round(BASE_HEIGHT * side);
+			settings.seed = seed;
+			settings.lava = Math.round(settings.lava * scale);
+			settings.fire = Math.round(settings.fire * scale);
+			settings.lamps = Math.round(settings.lamps * scale);
+			settings.fallingBlocks = Math.round(settings.fallingBlocks * scale);
+			settings.platforms = Math.round(settings.platforms * scale);
+			return settings;
+		}
+	}
+
+	private final Settings settings;
+	private final Random   random;
+	private final int      width;
+	private final int      height;
+
+	// ARGB pixels of the images, rows go top down
+	private final int[] level;
+	private final int[] meta;
+	private final int[] markers;
+
+	// y of the floor of each corridor, from the bottom up
+	private final List<Integer> floors = new ArrayList<>();
+
+	private MapGenerator(Settings settings) {
+		this.settings = settings;
+		random = new Random(settings.seed);
+		width = settings.width;
+		height = settings.height;
+		level = new int[width * height];
+		meta = new int[width * height];
+		markers = new int[width * height];
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			Logger.getErrorStream().println("usage: MapGenerator <map folder> [scale] [seed] [--compile]");
+			return;
+		}
+		try {
+			float scale = args.length > 1 ? Float.parseFloat(args[1]) : 1;
+			long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+			write(Settings.ofScale(scale, seed), args[0]);
+			if (args.length > 3 && args[3].equals("--compile")) {
+				MapCompiler.compile(args[0]);
+			}
+			Logger.getInfoStream().println("generated map: " + args[0]);
+		} catch (NumberFormatException e) {
+			Logger.getErrorStream().println("not a number: " + e.getMessage());
+		} catch (IOException e) {
+			Logger.getErrorStream().printf("Could not write map: %s\n", args[0]);
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Generates a map without writing it anywhere.
+	 */
+	public static MapData generate(Settings settings) {
+		MapGenerator generator = new MapGenerator(settings);
+		generator.generate();
+		return MapData.decode(generator.width, generator.height, generator.level, generator.meta, generator.markers);
+	}
+
+	/**
+	 * Generates a map and writes its images into the given folder, where the game can load it from.
+	 */
+	public static void write(Settings settings, String mapName) throws IOException {
+		MapGenerator generator = new MapGenerator(settings);
+		generator.generate();
+
+		File folder = new File(mapName);
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("could not create map folder: " + mapName);
+		}
+		ImageIO.write(generator.toImage(generator.level), "png", new File(folder, MapCompiler.LEVEL_IMAGE));
+		ImageIO.write(generator.toImage(generator.meta), "png", new File(folder, MapCompiler.META_IMAGE));
+		ImageIO.write(generator.toImage(generator.markers), "png", new File(folder, MapCompiler.MARKER_IMAGE));
+	}
+
+	private BufferedImage toImage(int[] pixels) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, width, height, pixels, 0, width);
+		return image;
+	}
+
+	private void generate() {
+		int spacing = Math.max(CORRIDOR_HEIGHT + 2, Math.round(CORRIDOR_HEIGHT / (1 - Math.min(settings.density, 0.95f))));
+		for (int floor = 1; floor + CORRIDOR_HEIGHT + 1 < height - 1; floor += spacing) {
+			floors.add(floor);
+		}
+		if (floors.isEmpty() || width < PATH_LENGTH + PLATFORM_WIDTH + 2) {
+			throw new IllegalArgumentException("map is too small: " + width + "x" + height);
+		}
+
+		for (int i = 0; i < meta.length; i++) {
+			level[i] = OPAQUE | Tile.GROUND.color;
+			meta[i] = OPAQUE | META_COLOR;
+		}
+		for (int floor : floors) {
+			for (int x = 1; x < width - 1; x++) {
+				setTile(x, floor, Tile.FLOOR);
+				for (int y = floor + 1; y <= floor + CORRIDOR_HEIGHT; y++) {
+					setTile(x, y, null);
+				}
+			}
+		}
+		for (int i = 0; i + 1 < floors.size(); i++) {
+			for (int shaft = 1 + random.nextInt(SHAFT_SPACING); shaft + SHAFT_WIDTH < width - 1; shaft += SHAFT_SPACING) {
+				for (int x = shaft; x < shaft + SHAFT_WIDTH; x++) {
+					for (int y = floors.get(i) + CORRIDOR_HEIGHT + 1; y <= floors.get(i + 1); y++) {
+						setTile(x, y, null);
+					}
+				}
+			}
+		}
+
+		setTile(1, floors.get(0) + 1, Tile.PLAYER);
+		setMarker(1, floors.get(0) + 1, ComponentMarker.MARKER_START);
+
+		place("lava", settings.lava, (x, floor) -> {
+			if (getTile(x, floor) != Tile.FLOOR || !isFree(x, floor + 1)) return false;
+			setTile(x, floor, Tile.LAVA);
+			return true;
+		});
+		place("fire", settings.fire, (x, floor) -> {
+			if (getTile(x, floor) != Tile.FLOOR || !isFree(x, floor + 1)) return false;
+			setTile(x, floor + 1, Tile.FIRE);
+			return true;
+		});
+		place("lamps", settings.lamps, (x, floor) -> {
+			int y = floor + CORRIDOR_HEIGHT;
+			if (getTile(x, y + 1) != Tile.GROUND || !isFree(x, y)) return false;
+			setTile(x, y, Tile.LAMP);
+			return true;
+		});
+		place("falling blocks", settings.fallingBlocks, (x, floor) -> {
+			int y = floor + CORRIDOR_HEIGHT;
+			if (getTile(x, y + 1) != Tile.GROUND || !isFree(x, y)) return false;
+			setTile(x, y, Tile.FALLING_BLOCK);
+			return true;
+		});
+		place("platforms", settings.platforms, this::placePlatform);
+	}
+
+	/**
+	 * Platforms move back and forth along a straight path in the middle of a corridor.
+	 * The path starts at the platform's first block and extends away from the others, as only one block may be on the path.
+	 */
+	private boolean placePlatform(int x, int floor) {
+		int y = floor + CORRIDOR_HEIGHT / 2;
+		// keep a free cell around the path, so paths don't link up with each other
+		for (int pathX = x - PATH_LENGTH - 1; pathX <= x + PLATFORM_WIDTH; pathX++) {
+			for (int pathY = y - 1; pathY <= y + 1; pathY++) {
+				if (pathX < 1 || pathX >= width - 1 || !isFree(pathX, pathY)) return false;
+			}
+		}
+		for (int pathX = x - PATH_LENGTH; pathX <= x; pathX++) {
+			setMarker(pathX, y, ComponentMarker.MARKER_PATH);
+		}
+		for (int blockX = x; blockX < x + PLATFORM_WIDTH; blockX++) {
+			setTile(blockX, y, Tile.PATH_MOVING_BLOCK);
+		}
+		return true;
+	}
+
+	private interface Feature {
+
+		/**
+		 * @return whether the feature could be placed at that spot of the corridor
+		 */
+		boolean place(int x, int floor);
+	}
+
+	private void place(String name, int count, Feature feature) {
+		int placed = 0;
+		for (int i = 0; i < count; i++) {
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+				int floor = floors.get(random.nextInt(floors.size()));
+				int x = 2 + random.nextInt(width - 3);
+				if (feature.place(x, floor)) {
+					placed++;
+					break;
+				}
+			}
+		}
+		if (placed < count) {
+			Logger.getWarningStream().printf("Could only place %d of %d %s\n", placed, count, name);
+		}
+	}
+
+	private int getPixel(int x, int y) {
+		return (height - y - 1) * width + x;
+	}
+
+	private Tile getTile(int x, int y) {
+		int color = level[getPixel(x, y)];
+		return (color & OPAQUE) == 0 ? null : Tile.fromColor(color & 0xFFFFFF);
+	}
+
+	private void setTile(int x, int y, Tile tile) {
+		level[getPixel(x, y)] = tile == null ? 0 : OPAQUE | tile.color;
+	}
+
+	private void setMarker(int x, int y, int marker) {
+		markers[getPixel(x, y)] = OPAQUE | marker;
+	}
+
+	private boolean isFree(int x, int y) {
+		return level[getPixel(x, y)] == 0 && markers[getPixel(x, y)] == 0;
+	}
+}
@@ -15,73 +15,94 @@ import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
 import de.nerogar.noise.util.Logger;
 import de.nerogar.noise.util.Vector2f;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
+/**
+ * Spawns the entities of a map. Spawning can be spread over several frames, a column of the map at a time.
+ */
 public class MapLoader {
 
-	public static void loadMap(DeferredRenderer renderer, String foldername) {
+	private final DeferredRenderer renderer;
+	private final String           mapName;
+	private final MapData          data;
 
-		Map<Tile, List<Entity>> entitiesPerTile = new HashMap<>();
-		for (Tile tile : Tile.values()) {
-			entitiesPerTile.put(tile, new ArrayList<>());
-		}
+	private int     nextColumn;
+	private boolean finished;
 
-		MapCache.MapFileContainer mapFiles = MapCache.getMapContainer(foldername);
+	public MapLoader(DeferredRenderer renderer, String mapName, MapData data) {
+		this.renderer = renderer;
+		this.mapName = mapName;
+		this.data = data;
+	}
 
-		int width = mapFiles.levelImg.getWidth();
-		int height = mapFiles.levelImg.getHeight();
+	/**
+	 * Loads and spawns a whole map at once.
+	 */
+	public static void loadMap(DeferredRenderer renderer, String foldername) {
+		new MapLoader(renderer, foldername, MapCache.getMapData(foldername)).spawn(Long.MAX_VALUE);
+	}
 
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				int blockColor = mapFiles.levelImg.getRGB(x, height - y - 1);
-				int metaColor = mapFiles.metaImg.getRGB(x, height - y - 1) & 0xFFFFFF;
-				int markerColor = mapFiles.markerImg.getRGB(x, height - y - 1);
+	/**
+	 * Spawns columns of the map until the time is up, and finishes the map once all columns are spawned.
+	 *
+	 * @param budgetNanos how long to spawn for, at least one column gets spawned regardless
+	 * @return whether the map has been spawned completely
+	 */
+	public boolean spawn(long budgetNanos) {
+		long start = System.nanoTime();
+		do {
+			if (nextColumn < data.width) {
+				spawnColumn(nextColumn++);
+			}
+		} while (nextColumn < data.width && System.nanoTime() - start < budgetNanos);
 
-				if ((blockColor & 0xFF000000) != 0) {
-					blockColor &= 0xFFFFFF;
+		if (nextColumn < data.width) {
+			return false;
+		}
+		if (!finished) {
+			finished = true;
+			finish();
+		}
+		return true;
+	}
 
-					Tile tile = Tile.fromColor(blockColor);
-					if (tile == null) {
-						Logger.getWarningStream().printf("Unrecognized tile for color: 0x%06x", blockColor);
-						tile = Tile.LAMP;
-					}
+	/**
+	 * @return the share of columns spawned already, between 0 and 1
+	 */
+	public float getProgress() {
+		return data.width == 0 ? 1f : (float) nextColumn / data.width;
+	}
 
-					Entity entity = tile.createEntity(new Vector2f(x, y), metaColor);
-					entitiesPerTile.get(tile).add(entity);
+	private void spawnColumn(int x) {
+		// spawning has to happen on this thread, but everything is classified already.
+		// Stationary tiles are left to the ChunkStreamer, which spawns them around the players.
+		for (int y = 0; y < data.height; y++) {
+			Tile tile = data.getTileOrFallback(x, y);
+			if (tile != null) {
+				if (data.getTile(x, y) == MapData.UNKNOWN) {
+					Logger.getWarningStream().printf("Unrecognized tile for color: 0x%06x", data.getUnknownColor(x, y));
 				}
-				if ((markerColor & 0xFF000000) != 0) {
-					markerColor &= 0xFFFFFF;
-					Entity markerEntity = Entity.spawn(new Vector2f(x, y));
-					markerEntity.addComponent(new ComponentMarker(markerColor));
+				if (!tile.stationary) {
+					tile.createEntity(new Vector2f(x, y), data.getMeta(x, y));
 				}
 			}
-		}
-
-		// build mesh for all stationary tiles
-		for (Map.Entry<Tile, List<Entity>> entry : entitiesPerTile.entrySet()) {
-			Tile tile = entry.getKey();
-			List<Entity> entities = entry.getValue();
-
-			if (tile.stationary) {
-				DeferredContainer container = DeferredContainerBank.getContainer(tile.texname, buildMesh(entities));
-				DeferredRenderable renderable = new DeferredRenderable(container, new RenderProperties3f());
-
-				Entity renderableEntity = Entity.spawn(new Vector2f());
-				renderableEntity.addComponent(new ComponentStationaryRenderer(renderer, renderable));
+			int markerColor = data.getMarker(x, y);
+			if (markerColor != MapData.NONE) {
+				Entity markerEntity = Entity.spawn(new Vector2f(x, y));
+				markerEntity.addComponent(new ComponentMarker(markerColor));
 			}
 		}
+	}
 
-		// add background
-		DeferredContainer container = DeferredContainerBank.getContainer("background", buildBackgroundMesh());
-		DeferredRenderable renderable = new DeferredRenderable(container, new RenderProperties3f());
-
+	private void finish() {
+		// add background. Spawned on headless servers too, so entity ids stay the same as on the clients
 		Entity backgroundEntity = Entity.spawn(new Vector2f());
-		backgroundEntity.addComponent(new ComponentStationaryRenderer(renderer, renderable));
+		if (renderer != null) {
+			backgroundEntity.addComponent(new ComponentStationaryRenderer(renderer, () -> {
+				DeferredContainer container = DeferredContainerBank.getContainer("background", buildBackgroundMesh());
+				return new DeferredRenderable(container, new RenderProperties3f());
+			}));
+		}
 
-		Event.trigger(new EventMapLoaded(foldername));
+		Event.trigger(new EventMapLoaded(mapName, data, data.getPathGraph()));
 	}
 
 	private static Mesh buildBackgroundMesh() {
@@ -95,20 +116,4 @@ public class MapLoader {
 		vl.addIndex(p1, p2, p3);
 		return new Mesh(vl.getIndexCount(), vl.getVertexCount(), vl.getIndexArray(), vl.getPositionArray(), vl.getUVArray());
 	}
-
-	private static Mesh buildMesh(List<Entity> entities) {
-		VertexList vl = new VertexList();
-		for (Entity e : entities) {
-			Vector2f pos = e.getPosition();
-			float x = pos.getX();
-			float y = pos.getY();
-			int p0 = vl.addVertex(x + 0, y + 0, 0, 0, 0, 0, 0, 0);
-			int p1 = vl.addVertex(x + 1, y + 0, 0, 1, 0, 0, 0, 0);
-			int p2 = vl.addVertex(x + 1, y + 1, 0, 1, 1, 0, 0, 0);
-			int p3 = vl.addVertex(x + 0, y + 1, 0, 0, 1, 0, 0, 0);
-			vl.addIndex(p0, p1, p3);
-			vl.addIndex(p1, p2, p3);
-		}
-		return new Mesh(vl.getIndexCount(), vl.getVertexCount(), vl.getIndexArray(), vl.getPositionArray(), vl.getUVArray());
-	}
 }
@@ -0,0 +1,157 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.network.Network;
+import de.fe1k.game9.systems.GameSystem;
+import de.nerogar.noise.util.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Reloads the current map after its images have been edited, without loading the whole map again.
+ * Reloads are requested with the RELOADMAP command, or automatically by watching the map's folder.
+ * Only the server may request them, it tells the clients to reload as well.
+ */
+public class MapReloader implements GameSystem {
+
+	// image editors tend to write a file several times when saving, so wait until they're done
+	private static final long DEBOUNCE_NANOS = 300_000_000;
+
+	private final ChunkStreamer chunkStreamer;
+
+	private EventListener<EventUpdate>           eventUpdate           = this::update;
+	private EventListener<EventMapLoaded>        eventMapLoaded        = this::mapLoaded;
+	private EventListener<EventReloadMap>        eventReloadMap        = event -> requestReload();
+	private EventListener<EventMapChanged>       eventMapChanged       = this::mapChanged;
+	private EventListener<EventToggleMapWatcher> eventToggleMapWatcher = this::toggleMapWatcher;
+
+	private String       mapName;
+	private MapData      map;
+	private boolean      watcherEnabled;
+	private WatchService watcher;
+	private long         reloadAt = -1;
+
+	public MapReloader(ChunkStreamer chunkStreamer) {
+		this.chunkStreamer = chunkStreamer;
+	}
+
+	@Override
+	public void start() {
+		Event.register(EventUpdate.class, eventUpdate);
+		Event.register(EventMapLoaded.class, eventMapLoaded);
+		Event.register(EventReloadMap.class, eventReloadMap);
+		Event.register(EventMapChanged.class, eventMapChanged);
+		Event.register(EventToggleMapWatcher.class, eventToggleMapWatcher);
+	}
+
+	@Override
+	public void stop() {
+		Event.unregister(EventUpdate.class, eventUpdate);
+		Event.unregister(EventMapLoaded.class, eventMapLoaded);
+		Event.unregister(EventReloadMap.class, eventReloadMap);
+		Event.unregister(EventMapChanged.class, eventMapChanged);
+		Event.unregister(EventToggleMapWatcher.class, eventToggleMapWatcher);
+		stopWatching();
+	}
+
+	private void mapLoaded(EventMapLoaded event) {
+		mapName = event.mapname;
+		map = event.mapData;
+		stopWatching();
+		if (watcherEnabled) {
+			startWatching();
+		}
+	}
+
+	private void toggleMapWatcher(EventToggleMapWatcher event) {
+		watcherEnabled = event.enabled;
+		stopWatching();
+		if (watcherEnabled && mapName != null) {
+			startWatching();
+		}
+	}
+
+	private void startWatching() {
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+			Paths.get(mapName).register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException e) {
+			Logger.getErrorStream().println("Could not watch map folder: " + mapName);
+			stopWatching();
+		}
+	}
+
+	private void stopWatching() {
+		if (watcher == null) {
+			return;
+		}
+		try {
+			watcher.close();
+		} catch (IOException e) {
+			// nothing to watch anymore either way
+		}
+		watcher = null;
+		reloadAt = -1;
+	}
+
+	private void update(EventUpdate event) {
+		if (watcher == null) {
+			return;
+		}
+		WatchKey key;
+		while ((key = watcher.poll()) != null) {
+			for (WatchEvent<?> watchEvent : key.pollEvents()) {
+				if (isMapImage(watchEvent.context())) {
+					reloadAt = System.nanoTime() + DEBOUNCE_NANOS;
+				}
+			}
+			key.reset();
+		}
+		if (reloadAt != -1 && System.nanoTime() - reloadAt >= 0) {
+			reloadAt = -1;
+			requestReload();
+		}
+	}
+
+	private static boolean isMapImage(Object file) {
+		String name = file.toString();
+		return name.equals(MapCompiler.LEVEL_IMAGE) || name.equals(MapCompiler.META_IMAGE) || name.equals(MapCompiler.MARKER_IMAGE);
+	}
+
+	private void requestReload() {
+		if (mapName == null) {
+			Logger.log(Logger.ERROR, "No map loaded.");
+			return;
+		}
+		if (Network.isStarted() && !Network.isServer()) {
+			Logger.log(Logger.ERROR, "Only the server can reload the map.");
+			return;
+		}
+		Event.trigger(new EventMapChanged(mapName));
+	}
+
+	private void mapChanged(EventMapChanged event) {
+		if (!event.mapName.equals(mapName)) {
+			return;
+		}
+		MapCache.invalidate(mapName);
+		MapData newMap = MapCache.getMapData(mapName);
+		if (newMap == null) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		MapDiff diff = MapDiff.compute(map, newMap);
+		if (diff == null) {
+			Logger.getWarningStream().println("Size of " + mapName + " changed, load the map again to see it.");
+			return;
+		}
+		if (diff.hasNetworkedChanges()) {
+			Logger.getWarningStream().println("Moving tiles or markers of " + mapName + " changed, load the map again to see them.");
+		}
+		int changed = chunkStreamer.reload(newMap, diff);
+		map = newMap;
+		Logger.getInfoStream().printf("Reloaded %s: %d cells changed in %.1f ms\n", mapName, changed, (System.nanoTime() - start) / 1e6);
+	}
+}
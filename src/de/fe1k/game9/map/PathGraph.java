@@ -0,0 +1,158 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.utils.Vector2i;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The path markers of a map, compiled into chains of waypoints.
+ * Each waypoint links to the next and previous one on its chain, or to {@link #NONE} at the ends of a chain.
+ * Closed loops are linked all the way around.
+ */
+public class PathGraph {
+
+	public static final int NONE = -1;
+
+	// left, right, down, up
+	private static final int[] NEIGHBOR_X = { -1, 1, 0, 0 };
+	private static final int[] NEIGHBOR_Y = { 0, 0, -1, 1 };
+
+	private final int[] x;
+	private final int[] y;
+	private final int[] next;
+	private final int[] prev;
+
+	private final Map<Vector2i, Integer> indices;
+
+	private PathGraph(int size) {
+		this(new int[size], new int[size], new int[size], new int[size]);
+		Arrays.fill(next, NONE);
+		Arrays.fill(prev, NONE);
+	}
+
+	private PathGraph(int[] x, int[] y, int[] next, int[] prev) {
+		this.x = x;
+		this.y = y;
+		this.next = next;
+		this.prev = prev;
+		indices = new HashMap<>(x.length * 2);
+	}
+
+	/**
+	 * Restores a graph that has been linked before, e.g. by the {@link MapCompiler}.
+	 */
+	static PathGraph fromLinks(int[] x, int[] y, int[] next, int[] prev) {
+		PathGraph graph = new PathGraph(x, y, next, prev);
+		for (int i = 0; i < x.length; i++) {
+			graph.indices.put(new Vector2i(x[i], y[i]), i);
+		}
+		return graph;
+	}
+
+	/**
+	 * Links the given path cells into chains of 4-connected neighbors.
+	 * Cells with more than two neighbors don't get linked to all of them, the first free neighbor wins.
+	 */
+	public static PathGraph build(Collection<Vector2i> cells) {
+		PathGraph graph = new PathGraph(cells.size());
+		int size = 0;
+		for (Vector2i cell : cells) {
+			if (graph.indices.putIfAbsent(new Vector2i(cell.getX(), cell.getY()), size) == null) {
+				graph.x[size] = cell.getX();
+				graph.y[size] = cell.getY();
+				size++;
+			}
+		}
+
+		boolean[] linked = new boolean[size];
+		// walk open chains from their ends first, otherwise they might get entered in the middle
+		for (int i = 0; i < size; i++) {
+			if (!linked[i] && graph.countNeighbors(i) != 2) {
+				graph.linkChain(i, linked);
+			}
+		}
+		// everything left are loops
+		for (int i = 0; i < size; i++) {
+			if (!linked[i]) {
+				int last = graph.linkChain(i, linked);
+				if (last != i && graph.next[i] != last && graph.areNeighbors(last, i)) {
+					graph.next[last] = i;
+					graph.prev[i] = last;
+				}
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Follows unlinked neighbors starting at {@code start} and links them up.
+	 *
+	 * @return the last waypoint of the chain
+	 */
+	private int linkChain(int start, boolean[] linked) {
+		int current = start;
+		linked[current] = true;
+		while (true) {
+			int following = NONE;
+			for (int direction = 0; direction < NEIGHBOR_X.length; direction++) {
+				int neighbor = getWaypoint(x[current] + NEIGHBOR_X[direction], y[current] + NEIGHBOR_Y[direction]);
+				if (neighbor != NONE && !linked[neighbor]) {
+					following = neighbor;
+					break;
+				}
+			}
+			if (following == NONE) {
+				return current;
+			}
+			next[current] = following;
+			prev[following] = current;
+			linked[following] = true;
+			current = following;
+		}
+	}
+
+	private int countNeighbors(int waypoint) {
+		int count = 0;
+		for (int direction = 0; direction < NEIGHBOR_X.length; direction++) {
+			if (getWaypoint(x[waypoint] + NEIGHBOR_X[direction], y[waypoint] + NEIGHBOR_Y[direction]) != NONE) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private boolean areNeighbors(int a, int b) {
+		return Math.abs(x[a] - x[b]) + Math.abs(y[a] - y[b]) == 1;
+	}
+
+	/**
+	 * @return the waypoint at the given cell, or {@link #NONE}
+	 */
+	public int getWaypoint(int x, int y) {
+		Integer index = indices.get(new Vector2i(x, y));
+		return index == null ? NONE : index;
+	}
+
+	public int getX(int waypoint) {
+		return x[waypoint];
+	}
+
+	public int getY(int waypoint) {
+		return y[waypoint];
+	}
+
+	public int getNext(int waypoint) {
+		return next[waypoint];
+	}
+
+	public int getPrev(int waypoint) {
+		return prev[waypoint];
+	}
+
+	public int size() {
+		return indices.size();
+	}
+}
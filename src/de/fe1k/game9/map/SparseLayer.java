@@ -0,0 +1,101 @@
+package de.fe1k.game9.map;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * A layer with one int per cell that only stores the cells whose value differs from the layer's default value.
+ * Most cells of the meta and marker layers have the same value, so this is a lot smaller than an int per cell.
+ */
+class SparseLayer {
+
+	private final int       defaultValue;
+	// indices of the cells that differ from the default value in ascending order, and their values
+	private final IntBuffer cells;
+	private final IntBuffer values;
+
+	SparseLayer(int defaultValue, IntBuffer cells, IntBuffer values) {
+		this.defaultValue = defaultValue;
+		this.cells = cells;
+		this.values = values;
+	}
+
+	/**
+	 * Compresses a layer using its most common value as the default value.
+	 */
+	static SparseLayer compress(int[] dense) {
+		int[] sorted = dense.clone();
+		Arrays.sort(sorted);
+		int mostCommon = 0;
+		int mostCommonCount = 0;
+		for (int start = 0, end; start < sorted.length; start = end) {
+			end = start + 1;
+			while (end < sorted.length && sorted[end] == sorted[start]) {
+				end++;
+			}
+			if (end - start > mostCommonCount) {
+				mostCommon = sorted[start];
+				mostCommonCount = end - start;
+			}
+		}
+		return compress(dense, mostCommon);
+	}
+
+	static SparseLayer compress(int[] dense, int defaultValue) {
+		int count = 0;
+		for (int value : dense) {
+			if (value != defaultValue) count++;
+		}
+		int[] cells = new int[count];
+		int[] values = new int[count];
+		int i = 0;
+		for (int cell = 0; cell < dense.length; cell++) {
+			if (dense[cell] != defaultValue) {
+				cells[i] = cell;
+				values[i] = dense[cell];
+				i++;
+			}
+		}
+		return new SparseLayer(defaultValue, IntBuffer.wrap(cells), IntBuffer.wrap(values));
+	}
+
+	int get(int cell) {
+		int low = 0;
+		int high = cells.limit() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midCell = cells.get(mid);
+			if (midCell < cell) {
+				low = mid + 1;
+			} else if (midCell > cell) {
+				high = mid - 1;
+			} else {
+				return values.get(mid);
+			}
+		}
+		return defaultValue;
+	}
+
+	int getDefaultValue() {
+		return defaultValue;
+	}
+
+	/**
+	 * @return the number of cells that differ from the default value
+	 */
+	int size() {
+		return cells.limit();
+	}
+
+	int getCell(int i) {
+		return cells.get(i);
+	}
+
+	int getValue(int i) {
+		return values.get(i);
+	}
+
+	long getSizeInBytes() {
+		return 8L * cells.limit();
+	}
+}
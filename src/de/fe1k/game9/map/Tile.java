@@ -4,6 +4,7 @@ import de.fe1k.game9.entities.*;
 import de.nerogar.noise.util.Vector2f;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.stream.Stream;
 
 public enum Tile {
@@ -24,6 +25,19 @@ public enum Tile {
 		void createEntity(Entity entity, Tile tile, int markerColor);
 	}
 
+	// all tiles sorted by color, for binary searching
+	private static final int[]  COLORS;
+	private static final Tile[] TILES_BY_COLOR;
+
+	static {
+		TILES_BY_COLOR = values().clone();
+		Arrays.sort(TILES_BY_COLOR, Comparator.comparingInt(tile -> tile.color));
+		COLORS = new int[TILES_BY_COLOR.length];
+		for (int i = 0; i < TILES_BY_COLOR.length; i++) {
+			COLORS[i] = TILES_BY_COLOR[i].color;
+		}
+	}
+
 	public final  int           color;
 	public final  String        texname;
 	public final  boolean       stationary;
@@ -37,8 +51,19 @@ public enum Tile {
 	}
 
 	public Entity createEntity(Vector2f position, int markerColor) {
-		Entity entity = Entity.spawn(position);
+		return build(Entity.spawn(position), markerColor);
+	}
+
+	/**
+	 * Creates the entity of this tile, which is never referenced over the network.
+	 *
+	 * @see Entity#spawnLocal(Vector2f)
+	 */
+	public Entity createLocalEntity(Vector2f position, int markerColor) {
+		return build(Entity.spawnLocal(position), markerColor);
+	}
 
+	private Entity build(Entity entity, int markerColor) {
 		if (entityBuilder != null) {
 			entityBuilder.createEntity(entity, this, markerColor);
 		}
@@ -46,13 +71,15 @@ public enum Tile {
 		return entity;
 	}
 
+	/**
+	 * Looks up the tile for a color without allocating anything, so it's safe to use from many threads.
+	 *
+	 * @param color the color without alpha
+	 * @return the tile, or null if no tile has that color
+	 */
 	public static Tile fromColor(int color) {
-		for (Tile tile : values()) {
-			if (tile.color == (color)) {
-				return tile;
-			}
-		}
-		return null;
+		int index = Arrays.binarySearch(COLORS, color);
+		return index < 0 ? null : TILES_BY_COLOR[index];
 	}
 
 	public static Stream<Tile> getStaticTiles() {
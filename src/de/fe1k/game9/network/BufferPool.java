@@ -0,0 +1,57 @@
+package de.fe1k.game9.network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reuses direct buffers of one size, so peers only hold buffers while they have incomplete frames or unsent bytes.
+ * Not thread-safe, it belongs to the network thread.
+ */
+class BufferPool {
+
+	private final int               bufferSize;
+	private final int               maxPooled;
+	private final Deque<ByteBuffer> free = new ArrayDeque<>();
+	private       int               allocated;
+
+	/**
+	 * @param maxPooled how many free buffers to keep at most, more are left to the garbage collector
+	 */
+	BufferPool(int bufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * @return an empty buffer
+	 */
+	ByteBuffer acquire() {
+		ByteBuffer buffer = free.poll();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+			allocated++;
+		}
+		return buffer;
+	}
+
+	void release(ByteBuffer buffer) {
+		buffer.clear();
+		if (free.size() < maxPooled) {
+			free.push(buffer);
+		} else {
+			allocated--;
+		}
+	}
+
+	int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return the number of buffers that are in use or pooled
+	 */
+	int getAllocated() {
+		return allocated;
+	}
+}
@@ -0,0 +1,97 @@
+package de.fe1k.game9.network;
+
+import de.fe1k.game9.events.EventNetworked;
+import de.fe1k.game9.exceptions.EventNotFoundException;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Numbers the networked events, so packets carry a small id instead of the class name,
+ * and creates them with constructor references instead of reflection.
+ * The ids are the server's: it sends the names in id order to every client, which {@link #remap}s its own registry to match.
+ */
+class EventRegistry {
+
+	private final List<Class<? extends EventNetworked>>         classes   = new ArrayList<>();
+	private final List<Supplier<? extends EventNetworked>>      suppliers = new ArrayList<>();
+	private final Map<Class<? extends EventNetworked>, Integer> ids       = new HashMap<>();
+	private       int                                           unknown;
+
+	<T extends EventNetworked> void register(Class<T> eventClass, Supplier<T> supplier) {
+		if (ids.containsKey(eventClass)) {
+			throw new IllegalArgumentException("event is already registered: " + eventClass.getSimpleName());
+		}
+		add(eventClass, supplier);
+	}
+
+	private void add(Class<? extends EventNetworked> eventClass, Supplier<? extends EventNetworked> supplier) {
+		if (eventClass != null) {
+			ids.put(eventClass, classes.size());
+		} else {
+			unknown++;
+		}
+		classes.add(eventClass);
+		suppliers.add(supplier);
+	}
+
+	/**
+	 * @throws EventNotFoundException if the event isn't registered, or the server doesn't know it
+	 */
+	int getId(Class<? extends EventNetworked> eventClass) {
+		Integer id = ids.get(eventClass);
+		if (id == null) {
+			throw new EventNotFoundException(eventClass.getSimpleName());
+		}
+		return id;
+	}
+
+	/**
+	 * @throws EventNotFoundException if there is no event with that id, or only the server knows it
+	 */
+	EventNetworked create(int id) {
+		if (id < 0 || id >= suppliers.size() || suppliers.get(id) == null) {
+			throw new EventNotFoundException("unknown event id: " + id);
+		}
+		return suppliers.get(id).get();
+	}
+
+	/**
+	 * @return the names of the events in id order, what the server sends to its clients
+	 */
+	List<String> getNames() {
+		List<String> names = new ArrayList<>(classes.size());
+		for (Class<? extends EventNetworked> eventClass : classes) {
+			names.add(eventClass.getSimpleName());
+		}
+		return names;
+	}
+
+	/**
+	 * @param names the server's events in id order
+	 * @return a registry using the server's ids, events only one side knows can't be sent or received
+	 */
+	EventRegistry remap(List<String> names) {
+		Map<String, Integer> byName = new HashMap<>();
+		for (int i = 0; i < classes.size(); i++) {
+			byName.put(classes.get(i).getSimpleName(), i);
+		}
+		EventRegistry remapped = new EventRegistry();
+		for (String name : names) {
+			Integer id = byName.get(name);
+			if (id == null) {
+				remapped.add(null, null);
+			} else {
+				remapped.add(classes.get(id), suppliers.get(id));
+			}
+		}
+		return remapped;
+	}
+
+	/**
+	 * @return how many of the server's events a remapped registry doesn't know
+	 */
+	int getUnknownCount() {
+		return unknown;
+	}
+}
@@ -1,6 +1,5 @@
 package de.fe1k.game9.network;
 
-import de.nerogar.noise.network.Connection;
 import de.nerogar.noise.util.Logger;
 
 import java.io.IOException;
@@ -36,11 +35,26 @@ public class Network {
 		return globalNetwork.isStarted();
 	}
 
-	public static List<Connection> getClients() {
+	public static List<Peer> getClients() {
 		return globalNetwork.getClients();
 	}
 
-	public static Connection getServer() {
+	public static Peer getServer() {
 		return globalNetwork.getServer();
 	}
+
+	/**
+	 * Whether the next server or client uses the NIO transport instead of Noise's. Both sides have to use the same one.
+	 */
+	public static void setNioEnabled(boolean enabled) {
+		globalNetwork.setNioEnabled(enabled);
+		Logger.getInfoStream().println("NIO transport " + (enabled ? "enabled" : "disabled") + " for the next connection.");
+	}
+
+	/**
+	 * @return how full the queues to and from the network thread are, and how often they were full
+	 */
+	public static String getStats() {
+		return globalNetwork.getStats();
+	}
 }
@@ -1,126 +1,198 @@
 package de.fe1k.game9.network;
 
+import de.fe1k.game9.Game;
+import de.fe1k.game9.debug.NetworkProfiler;
 import de.fe1k.game9.events.*;
-import de.fe1k.game9.exceptions.BadNetworkingException;
+import de.fe1k.game9.exceptions.EventNotFoundException;
+import de.fe1k.game9.exceptions.InvalidEventException;
 import de.fe1k.game9.exceptions.NetworkAlreadyStartedException;
 import de.fe1k.game9.exceptions.NetworkNotStartedException;
-import de.nerogar.noise.network.Connection;
+import de.nerogar.noise.Noise;
 import de.nerogar.noise.network.Packets;
-import de.nerogar.noise.network.ServerThread;
-import de.nerogar.noise.network.packets.Packet;
+import de.nerogar.noise.util.Logger;
 
 import java.io.IOException;
 import java.net.BindException;
-import java.net.Socket;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
+/**
+ * The game's side of the network. Sockets are handled by a {@link NetworkThread},
+ * this only hands it the events to send and triggers the received ones during the update.
+ */
 class NetworkManager {
-	private static final int CHANNEL_EVENTS = 0x4200;
-	private static final int CHANNEL_META   = 0x4201;
 
 	private boolean server;
 	private static boolean started;
-
-	private ServerThread     serverThread;
-	private Connection       serverConnection;
-	private List<Connection> clients;
-	private int              clientId;
-
-	private EventListener<EventUpdate>    eventUpdateServer = this::updateServer;
-	private EventListener<EventUpdate>    eventUpdateClient = this::updateClient;
-	private EventListener<EventToClients> eventToClients    = this::broadcastEvent;
-	private EventListener<EventToServer>  eventToServer     = this::sendEvent;
+	private boolean nioEnabled;
+
+	private NetworkThread networkThread;
+	private Peer          serverPeer;
+	// as the game has seen them so far, the network thread may know more already
+	private List<Peer>    clients;
+
+	private static final EventRegistry events = new EventRegistry();
+	// the ids used on the wire, the server's own; null on clients until the server sent them
+	private       EventRegistry              wireEvents;
+	// what came before the server's ids did
+	private final List<PacketNetworkedEvent> unsent    = new ArrayList<>();
+	private final List<PacketNetworkedEvent> undecoded = new ArrayList<>();
+
+	private NetworkProfiler profiler;
+	private long            lastEventsReceived;
+	private long            lastEventsSent;
+	private long            lastInboxStalls;
+	private long            lastOutboxStalls;
+
+	private EventListener<EventUpdate>    eventUpdate    = this::update;
+	private EventListener<EventToClients> eventToClients = this::sendEvent;
+	private EventListener<EventToServer>  eventToServer  = this::sendEvent;
 
 	static {
-		Packets.addPacket(CHANNEL_EVENTS, PacketNetworkedEvent.class);
-		Packets.addPacket(CHANNEL_META, PacketSetClientId.class);
+		Packets.addPacket(NetworkThread.CHANNEL_EVENTS, PacketNetworkedEvent.class);
+		Packets.addPacket(NetworkThread.CHANNEL_META, PacketSetClientId.class);
+		Packets.addPacket(NetworkThread.CHANNEL_EVENT_TYPES, PacketEventTypes.class);
+		NioTransport.addPacket(NetworkThread.CHANNEL_EVENTS, PacketNetworkedEvent.class, PacketNetworkedEvent::new);
+		NioTransport.addPacket(NetworkThread.CHANNEL_META, PacketSetClientId.class, PacketSetClientId::new);
+		NioTransport.addPacket(NetworkThread.CHANNEL_EVENT_TYPES, PacketEventTypes.class, PacketEventTypes::new);
+
+		// new networked events go here, in any order
+		events.register(EventEntityUpdatePositionNetworked.class, EventEntityUpdatePositionNetworked::new);
+		events.register(EventEntitiesUpdatePositionNetworked.class, EventEntitiesUpdatePositionNetworked::new);
+		events.register(EventJumpInput.class, EventJumpInput::new);
+		events.register(EventTurnAround.class, EventTurnAround::new);
+		events.register(EventLoadMap.class, EventLoadMap::new);
+		events.register(EventMapChanged.class, EventMapChanged::new);
 	}
 
 	public NetworkManager() {
 		clients = new ArrayList<>();
+		profiler = new NetworkProfiler();
+		if (!Game.isHeadless()) {
+			Noise.getDebugWindow().addProfiler(profiler);
+		}
 	}
 
-	private void handleEventPackets(Packet packet) {
-		if (!(packet instanceof PacketNetworkedEvent)) {
-			throw new BadNetworkingException();
+	private void update(EventUpdate event) {
+		// only what is there already, so a flood of events can't keep the game from ticking
+		for (int i = networkThread.getInboxSize(); i > 0 && started; i--) {
+			handleMessage(networkThread.receive());
 		}
-		PacketNetworkedEvent eventPacket = (PacketNetworkedEvent) packet;
-		Event.trigger(eventPacket.event);
-	}
-
-	private void updateServer(EventUpdate event) {
-		boolean clientIdsDirty = false;
-		// check for disconnected clients
-		Iterator<Connection> clientIter = clients.iterator();
-		while (clientIter.hasNext()) {
-			Connection client = clientIter.next();
-			if (client.isClosed()) {
-				clientIter.remove();
-				clientIdsDirty = true;
-				Event.trigger(new EventClientDisconnected(client));
-			}
-		}
-		// accept new clients
-		for (Connection client : serverThread.getNewConnections()) {
-			clients.add(client);
-			clientIdsDirty = true;
-			Event.trigger(new EventClientConnected(client));
-		}
-		if (clientIdsDirty) updateClientIds();
-		// retrieve and process data from clients
-		for (Connection client : clients) {
-			client.pollPackets(false);
-			client.getPackets(CHANNEL_EVENTS).forEach(this::handleEventPackets);
-			client.flushPackets();
+		if (started) {
+			updateProfiler();
 		}
 	}
 
-	private void updateClient(EventUpdate event) {
-		if (serverConnection.isClosed()) {
+	private void handleMessage(Object message) {
+		if (message instanceof PacketNetworkedEvent) {
+			receiveEvent((PacketNetworkedEvent) message);
+		} else if (message instanceof PacketEventTypes) {
+			setWireEvents(events.remap(((PacketEventTypes) message).names));
+		} else if (message instanceof EventClientConnected) {
+			clients.add(((EventClientConnected) message).client);
+			Event.trigger((Event) message);
+		} else if (message instanceof EventClientDisconnected) {
+			clients.remove(((EventClientDisconnected) message).client);
+			Event.trigger((Event) message);
+		} else if (message instanceof EventDisconnected) {
 			shutdown();
-			Event.trigger(new EventDisconnected(serverConnection));
+			Event.trigger((Event) message);
+		}
+	}
+
+	private void updateProfiler() {
+		profiler.setValue(NetworkProfiler.INBOX_SIZE, networkThread.getInboxSize());
+		profiler.setValue(NetworkProfiler.OUTBOX_SIZE, networkThread.getOutboxSize());
+
+		long eventsReceived = networkThread.getEventsReceived();
+		long eventsSent = networkThread.getEventsSent();
+		long inboxStalls = networkThread.getInboxStalls();
+		long outboxStalls = networkThread.getOutboxStalls();
+		profiler.addValue(NetworkProfiler.EVENTS_RECEIVED, (int) (eventsReceived - lastEventsReceived));
+		profiler.addValue(NetworkProfiler.EVENTS_SENT, (int) (eventsSent - lastEventsSent));
+		profiler.addValue(NetworkProfiler.INBOX_STALLS, (int) (inboxStalls - lastInboxStalls));
+		profiler.addValue(NetworkProfiler.OUTBOX_STALLS, (int) (outboxStalls - lastOutboxStalls));
+		lastEventsReceived = eventsReceived;
+		lastEventsSent = eventsSent;
+		lastInboxStalls = inboxStalls;
+		lastOutboxStalls = outboxStalls;
+	}
+
+	private void receiveEvent(PacketNetworkedEvent packet) {
+		if (wireEvents == null) {
+			undecoded.add(packet);
 			return;
 		}
-		serverConnection.pollPackets(true);
-		serverConnection.getPackets(CHANNEL_EVENTS).forEach(this::handleEventPackets);
-		for (Packet packet : serverConnection.getPackets(CHANNEL_META)) {
-			if (packet instanceof PacketSetClientId) {
-				clientId = ((PacketSetClientId) packet).clientId;
-			}
+		try {
+			Event.trigger(packet.getEvent(wireEvents));
+		} catch (EventNotFoundException | InvalidEventException e) {
+			Logger.getWarningStream().println("Dropped an event that couldn't be decoded: " + e);
+		}
+	}
+
+	private void sendEvent(EventNetworked event) {
+		PacketNetworkedEvent packet = new PacketNetworkedEvent(event);
+		if (wireEvents == null) {
+			unsent.add(packet);
+		} else {
+			sendPacket(packet);
 		}
-		serverConnection.flushPackets();
 	}
 
-	private void broadcastEvent(EventToClients event) {
-		serverThread.broadcast(new PacketNetworkedEvent(event));
+	private void sendPacket(PacketNetworkedEvent packet) {
+		try {
+			packet.setTypeId(wireEvents.getId(packet.getEventClass()));
+		} catch (EventNotFoundException e) {
+			Logger.getWarningStream().println("The server doesn't know " + e.getMessage() + ", not sent.");
+			return;
+		}
+		networkThread.send(packet);
 	}
 
-	private void sendEvent(EventToServer event) {
-		serverConnection.send(new PacketNetworkedEvent(event));
+	private void setWireEvents(EventRegistry wireEvents) {
+		if (wireEvents.getUnknownCount() > 0) {
+			Logger.getWarningStream().println("The server has " + wireEvents.getUnknownCount() + " events this client doesn't know.");
+		}
+		this.wireEvents = wireEvents;
+		undecoded.forEach(this::receiveEvent);
+		undecoded.clear();
+		unsent.forEach(this::sendPacket);
+		unsent.clear();
 	}
 
 	public void startServer(int port) throws BindException {
 		if (started) throw new NetworkAlreadyStartedException();
 
-		serverThread = new ServerThread(port);
+		networkThread = new NetworkThread(nioEnabled ? NioTransport.listen(port) : NoiseTransport.listen(port),
+				new PacketEventTypes(events.getNames()));
+		wireEvents = events;
 		server = true;
 		started = true;
-		clientId = -1;
-		Event.register(EventUpdate.class, eventUpdateServer);
+		start();
 		Event.register(EventToClients.class, eventToClients);
 	}
 
 	public void startClient(String host, int port) throws IOException {
 		if (started) throw new NetworkAlreadyStartedException();
 
-		serverConnection = new Connection(new Socket(host, port));
+		Transport transport = nioEnabled ? NioTransport.connect(host, port) : NoiseTransport.connect(host, port);
+		serverPeer = transport.getServer();
+		networkThread = new NetworkThread(transport, null);
+		wireEvents = null;
 		server = false;
 		started = true;
-		Event.register(EventUpdate.class, eventUpdateClient);
+		start();
 		Event.register(EventToServer.class, eventToServer);
-		Event.trigger(new EventConnected(serverConnection));
+		Event.trigger(new EventConnected(serverPeer));
+	}
+
+	private void start() {
+		lastEventsReceived = 0;
+		lastEventsSent = 0;
+		lastInboxStalls = 0;
+		lastOutboxStalls = 0;
+		networkThread.start();
+		Event.register(EventUpdate.class, eventUpdate);
 	}
 
 	public boolean isServer() {
@@ -131,16 +203,13 @@ class NetworkManager {
 	public void shutdown() {
 		if (!started) throw new NetworkNotStartedException();
 
-		if (server) {
-			serverThread.stopThread();
-			clients.forEach(Connection::close);
-			clients.clear();
-		} else {
-			serverConnection.close();
-		}
+		// events still queued in the outbox are sent before the connections get closed
+		networkThread.stop();
+		clients.clear();
+		unsent.clear();
+		undecoded.clear();
 		started = false;
-		Event.unregister(EventUpdate.class, eventUpdateServer);
-		Event.unregister(EventUpdate.class, eventUpdateClient);
+		Event.unregister(EventUpdate.class, eventUpdate);
 		Event.unregister(EventToServer.class, eventToServer);
 		Event.unregister(EventToClients.class, eventToClients);
 	}
@@ -149,21 +218,28 @@ class NetworkManager {
 		return started;
 	}
 
-	public List<Connection> getClients() {
+	public void setNioEnabled(boolean nioEnabled) {
+		this.nioEnabled = nioEnabled;
+	}
+
+	public List<Peer> getClients() {
 		if (!isServer()) throw new IllegalStateException("No server running.");
 		return clients;
 	}
 
-	public Connection getServer() {
+	public Peer getServer() {
 		if (isServer()) throw new IllegalStateException("Is server itself.");
-		return serverConnection;
+		return serverPeer;
 	}
 
-	private void updateClientIds() {
-		for (int i = 0; i < clients.size(); i++) {
-			Connection client = clients.get(i);
-			client.send(new PacketSetClientId(i));
+	public String getStats() {
+		if (!started) {
+			return "network: not started";
 		}
+		return String.format("network: inbox %d/%d, outbox %d/%d, %d events received, %d sent, inbox full %d times, outbox full %d times",
+				networkThread.getInboxSize(), NetworkThread.QUEUE_CAPACITY,
+				networkThread.getOutboxSize(), NetworkThread.QUEUE_CAPACITY,
+				networkThread.getEventsReceived(), networkThread.getEventsSent(),
+				networkThread.getInboxStalls(), networkThread.getOutboxStalls());
 	}
-
 }
@@ -0,0 +1,280 @@
+package de.fe1k.game9.network;
+
+import de.fe1k.game9.events.EventClientConnected;
+import de.fe1k.game9.events.EventClientDisconnected;
+import de.fe1k.game9.events.EventDisconnected;
+import de.fe1k.game9.utils.RingBuffer;
+import de.nerogar.noise.network.packets.Packet;
+import de.nerogar.noise.util.Logger;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Does all socket I/O on its own thread, so sending and receiving packets doesn't add to the tick time.
+ * The sockets themselves are handled by a {@link Transport}.
+ * Received packets and the server's {@link PacketEventTypes} go to the game through a bounded inbox, packets to send come from a bounded outbox.
+ * Full queues push back instead of growing: a full inbox stops reading from the sockets until the game caught up,
+ * and a full outbox makes the game wait for the network.
+ */
+class NetworkThread implements Runnable {
+
+	static final int CHANNEL_EVENTS      = 0x4200;
+	static final int CHANNEL_META        = 0x4201;
+	static final int CHANNEL_EVENT_TYPES = 0x4202;
+
+	static final int QUEUE_CAPACITY = 4096;
+
+	// how long to sleep when there was nothing to send or receive
+	private static final long IDLE_NANOS = 500_000;
+
+	private final Transport        transport;
+	private final boolean          server;
+	// sent to every client that connects, null on clients
+	private final PacketEventTypes eventTypes;
+
+	private final List<Peer> clients = new ArrayList<>();
+
+	// received event packets, and events about connections coming and going
+	private final RingBuffer<Object>               inbox   = new RingBuffer<>(QUEUE_CAPACITY);
+	private final RingBuffer<PacketNetworkedEvent> outbox  = new RingBuffer<>(QUEUE_CAPACITY);
+	// received but didn't fit into the inbox, nothing new is read until these are delivered
+	private final Queue<Object>                    pending = new ArrayDeque<>();
+
+	private final    Thread  thread;
+	private volatile boolean running = true;
+	private          boolean disconnected;
+	private volatile int     clientId = -1;
+
+	// backpressure metrics, counted up forever
+	private final AtomicLong eventsReceived = new AtomicLong();
+	private final AtomicLong eventsSent     = new AtomicLong();
+	private final AtomicLong inboxStalls    = new AtomicLong();
+	private final AtomicLong outboxStalls   = new AtomicLong();
+
+	NetworkThread(Transport transport, PacketEventTypes eventTypes) {
+		this.transport = transport;
+		this.eventTypes = eventTypes;
+		server = transport.getServer() == null;
+		thread = new Thread(this, "network");
+		thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops the thread and closes all connections, called by the game thread.
+	 */
+	void stop() {
+		running = false;
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queues a packet to be sent, or broadcast by the server. Called by the game thread, which waits while the outbox is full.
+	 */
+	void send(PacketNetworkedEvent packet) {
+		if (outbox.offer(packet)) {
+			return;
+		}
+		outboxStalls.incrementAndGet();
+		while (!outbox.offer(packet)) {
+			if (!running || !thread.isAlive()) {
+				return;  // nobody is going to send it anymore
+			}
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Called by the game thread.
+	 *
+	 * @return the next received {@link PacketNetworkedEvent} or connection event, or null if there is none
+	 */
+	Object receive() {
+		Object message = inbox.poll();
+		if (message == null && !thread.isAlive()) {
+			// the thread died with a full inbox, nothing else is going to deliver these
+			message = pending.poll();
+		}
+		return message;
+	}
+
+	@Override
+	public void run() {
+		boolean crashed = true;
+		try {
+			while (running) {
+				boolean busy = deliverPending();
+				if (pending.isEmpty()) {
+					transport.poll();
+					busy |= server ? receiveFromClients() : receiveFromServer();
+				}
+				busy |= sendAll();
+				if (!busy) {
+					LockSupport.parkNanos(IDLE_NANOS);
+				}
+			}
+			crashed = false;
+		} catch (Throwable e) {
+			Logger.getErrorStream().println("Network thread crashed: " + e);
+			e.printStackTrace();
+		} finally {
+			running = false;
+			if (crashed) {
+				// the game only learns about the lost connections from these
+				if (server) {
+					clients.forEach(client -> deliver(new EventClientDisconnected(client)));
+					clients.clear();
+				} else if (!disconnected) {
+					disconnected = true;
+					deliver(new EventDisconnected(transport.getServer()));
+				}
+			}
+			try {
+				if (!crashed) {
+					sendAll();
+				}
+			} finally {
+				transport.close();
+			}
+		}
+	}
+
+	private void deliver(Object message) {
+		if (pending.isEmpty() && inbox.offer(message)) {
+			return;
+		}
+		if (pending.isEmpty()) {
+			inboxStalls.incrementAndGet();
+		}
+		pending.add(message);
+	}
+
+	private boolean deliverPending() {
+		boolean delivered = false;
+		while (!pending.isEmpty() && inbox.offer(pending.peek())) {
+			pending.poll();
+			delivered = true;
+		}
+		return delivered;
+	}
+
+	private boolean receiveFromClients() {
+		boolean busy = false;
+		boolean clientIdsDirty = false;
+		// check for disconnected clients
+		Iterator<Peer> clientIter = clients.iterator();
+		while (clientIter.hasNext()) {
+			Peer client = clientIter.next();
+			if (client.isClosed()) {
+				clientIter.remove();
+				clientIdsDirty = true;
+				deliver(new EventClientDisconnected(client));
+			}
+		}
+		// accept new clients
+		for (Peer client : transport.getNewPeers()) {
+			client.send(eventTypes);
+			clients.add(client);
+			clientIdsDirty = true;
+			deliver(new EventClientConnected(client));
+		}
+		if (clientIdsDirty) updateClientIds();
+		// retrieve data from clients
+		for (Peer client : clients) {
+			busy |= receiveEvents(client);
+		}
+		return busy || clientIdsDirty;
+	}
+
+	private boolean receiveFromServer() {
+		if (disconnected) {
+			return false;  // waiting for the game to shut down
+		}
+		Peer serverPeer = transport.getServer();
+		if (serverPeer.isClosed()) {
+			disconnected = true;
+			deliver(new EventDisconnected(serverPeer));
+			return true;
+		}
+		// before the events, which can only be decoded with the server's ids
+		List<Packet> eventTypes = serverPeer.getPackets(CHANNEL_EVENT_TYPES);
+		eventTypes.forEach(this::deliver);
+		boolean busy = receiveEvents(serverPeer) || !eventTypes.isEmpty();
+		for (Packet packet : serverPeer.getPackets(CHANNEL_META)) {
+			if (packet instanceof PacketSetClientId) {
+				clientId = ((PacketSetClientId) packet).clientId;
+			}
+		}
+		return busy;
+	}
+
+	private boolean receiveEvents(Peer peer) {
+		List<Packet> packets = peer.getPackets(CHANNEL_EVENTS);
+		for (Packet packet : packets) {
+			if (!(packet instanceof PacketNetworkedEvent)) {
+				Logger.getWarningStream().println("Closing connection after a bad packet: " + packet);
+				peer.close();
+				return true;
+			}
+			deliver(packet);
+			eventsReceived.incrementAndGet();
+		}
+		return !packets.isEmpty();
+	}
+
+	private boolean sendAll() {
+		boolean busy = false;
+		PacketNetworkedEvent packet;
+		while ((packet = outbox.poll()) != null) {
+			transport.broadcast(packet);
+			eventsSent.incrementAndGet();
+			busy = true;
+		}
+		transport.flush();
+		return busy;
+	}
+
+	private void updateClientIds() {
+		for (int i = 0; i < clients.size(); i++) {
+			Peer client = clients.get(i);
+			client.send(new PacketSetClientId(i));
+		}
+	}
+
+	int getClientId() {
+		return clientId;
+	}
+
+	int getInboxSize() {
+		return thread.isAlive() ? inbox.size() : inbox.size() + pending.size();
+	}
+
+	int getOutboxSize() {
+		return outbox.size();
+	}
+
+	long getEventsReceived() {
+		return eventsReceived.get();
+	}
+
+	long getEventsSent() {
+		return eventsSent.get();
+	}
+
+	long getInboxStalls() {
+		return inboxStalls.get();
+	}
+
+	long getOutboxStalls() {
+		return outboxStalls.get();
+	}
+}
@@ -0,0 +1,424 @@
+package de.fe1k.game9.network;
+
+import de.fe1k.game9.exceptions.BadNetworkingException;
+import de.nerogar.noise.network.packets.Packet;
+import de.nerogar.noise.util.Logger;
+
+import java.io.*;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Transport on non-blocking java.nio channels. All sockets share one selector, which the network thread polls,
+ * so there is no thread and no pair of streams for each socket.
+ * Every frame is the length of the rest of the frame, the channel and the packet, and frames are at most one buffer long.
+ * Buffers come from a pool, and peers only hold on to them while they have an incomplete frame or bytes left to send.
+ */
+class NioTransport implements Transport {
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	// the length and the channel
+	private static final int HEADER_SIZE = 8;
+	private static final int MAX_POOLED  = 256;
+	// peers that don't read what's sent to them get closed, instead of taking up all memory
+	private static final int MAX_OUTGOING_BUFFERS = 64;
+
+	private static final Map<Integer, Supplier<? extends Packet>> packetSuppliers = new HashMap<>();
+	private static final Map<Class<? extends Packet>, Integer>    channels        = new HashMap<>();
+
+	private class NioPeer implements Peer {
+
+		private final SocketChannel               channel;
+		private       SelectionKey                key;
+		private final Map<Integer, List<Packet>>  received = new HashMap<>();
+		// the start of an incomplete frame, or null
+		private       ByteBuffer                  partial;
+		// in write mode, the first one may have been written partially
+		private final Deque<ByteBuffer>           outgoing = new ArrayDeque<>();
+		private       boolean                     closed;
+
+		private NioPeer(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public boolean isClosed() {
+			return closed;
+		}
+
+		@Override
+		public List<Packet> getPackets(int channel) {
+			List<Packet> packets = received.remove(channel);
+			return packets == null ? Collections.emptyList() : packets;
+		}
+
+		@Override
+		public void send(Packet packet) {
+			encode(packet);
+			enqueue(encoded);
+		}
+
+		private void enqueue(ByteBuffer frame) {
+			if (closed) {
+				return;
+			}
+			ByteBuffer tail = outgoing.peekLast();
+			if (tail == null || tail.remaining() < frame.remaining()) {
+				if (outgoing.size() == MAX_OUTGOING_BUFFERS) {
+					Logger.getWarningStream().println("Closing connection that doesn't keep up: " + channel);
+					close();
+					return;
+				}
+				tail = pool.acquire();
+				outgoing.add(tail);
+			}
+			tail.put(frame.duplicate());
+		}
+
+		private void read() {
+			ByteBuffer buffer = partial != null ? partial : readBuffer;
+			try {
+				if (channel.read(buffer) < 0) {
+					close();
+					return;
+				}
+			} catch (IOException e) {
+				close();
+				return;
+			}
+			buffer.flip();
+			try {
+				decodeFrames(this, buffer);
+			} catch (BadNetworkingException e) {
+				Logger.getWarningStream().println("Closing connection after a bad packet: " + e.getMessage());
+				close();
+				return;
+			}
+			if (!buffer.hasRemaining()) {
+				if (partial != null) {
+					pool.release(partial);
+					partial = null;
+				}
+				buffer.clear();
+			} else if (partial == null) {
+				partial = pool.acquire();
+				partial.put(buffer);
+				buffer.clear();
+			} else {
+				partial.compact();
+			}
+		}
+
+		private void flush() {
+			while (!outgoing.isEmpty()) {
+				ByteBuffer buffer = outgoing.peekFirst();
+				buffer.flip();
+				try {
+					channel.write(buffer);
+				} catch (IOException e) {
+					close();
+					return;
+				}
+				if (buffer.hasRemaining()) {
+					// the socket is full, continue once it's writable again
+					buffer.compact();
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+				pool.release(outgoing.poll());
+			}
+			if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
+
+		private void receive(int channel, Packet packet) {
+			received.computeIfAbsent(channel, k -> new ArrayList<>()).add(packet);
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// closed either way
+			}
+			if (partial != null) {
+				pool.release(partial);
+				partial = null;
+			}
+			outgoing.forEach(pool::release);
+			outgoing.clear();
+		}
+	}
+
+	/**
+	 * Reads from a buffer without copying it, so one stream can decode the frames of all peers.
+	 */
+	private static class BufferInputStream extends InputStream {
+
+		private ByteBuffer buffer;
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			length = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, length);
+			return length;
+		}
+	}
+
+	/**
+	 * Writes into a buffer, so one stream can encode the packets for all peers.
+	 */
+	private static class BufferOutputStream extends OutputStream {
+
+		private ByteBuffer buffer;
+
+		@Override
+		public void write(int b) {
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			buffer.put(bytes, offset, length);
+		}
+	}
+
+	private final Selector            selector;
+	private final ServerSocketChannel serverChannel;  // null on clients
+	private       NioPeer             server;         // null on servers
+	private final List<NioPeer>       peers    = new ArrayList<>();
+	private final List<Peer>          newPeers = new ArrayList<>();
+
+	private final BufferPool pool = new BufferPool(BUFFER_SIZE, MAX_POOLED);
+
+	// shared by all peers, only peers with an incomplete frame need a buffer of their own
+	private final ByteBuffer         readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final ByteBuffer         encoded    = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final BufferInputStream  input      = new BufferInputStream();
+	private final BufferOutputStream output     = new BufferOutputStream();
+	private final DataInputStream    dataInput  = new DataInputStream(input);
+	private final DataOutputStream   dataOutput = new DataOutputStream(output);
+
+	private NioTransport(Selector selector, ServerSocketChannel serverChannel) {
+		this.selector = selector;
+		this.serverChannel = serverChannel;
+	}
+
+	/**
+	 * Registers a packet for a channel, like {@link de.nerogar.noise.network.Packets#addPacket} does for the Noise transport.
+	 */
+	static <T extends Packet> void addPacket(int channel, Class<T> packetClass, Supplier<T> supplier) {
+		packetSuppliers.put(channel, supplier);
+		channels.put(packetClass, channel);
+	}
+
+	static NioTransport listen(int port) throws BindException {
+		try {
+			Selector selector = Selector.open();
+			ServerSocketChannel serverChannel = ServerSocketChannel.open();
+			serverChannel.bind(new InetSocketAddress(port));
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+			return new NioTransport(selector, serverChannel);
+		} catch (BindException e) {
+			throw e;
+		} catch (IOException e) {
+			BindException bindException = new BindException(e.getMessage());
+			bindException.initCause(e);
+			throw bindException;
+		}
+	}
+
+	/**
+	 * Connects to a server, which blocks until the connection is established.
+	 */
+	static NioTransport connect(String host, int port) throws IOException {
+		SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+		NioTransport transport = new NioTransport(Selector.open(), null);
+		transport.server = transport.register(channel);
+		return transport;
+	}
+
+	private NioPeer register(SocketChannel channel) throws IOException {
+		channel.configureBlocking(false);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		NioPeer peer = new NioPeer(channel);
+		peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+		peers.add(peer);
+		return peer;
+	}
+
+	@Override
+	public void poll() {
+		try {
+			selector.selectNow();
+		} catch (IOException e) {
+			Logger.getErrorStream().println("Could not poll sockets: " + e.getMessage());
+			return;
+		}
+		Iterator<SelectionKey> keyIter = selector.selectedKeys().iterator();
+		while (keyIter.hasNext()) {
+			SelectionKey key = keyIter.next();
+			keyIter.remove();
+			if (!key.isValid()) {
+				continue;
+			}
+			if (key.isAcceptable()) {
+				accept();
+				continue;
+			}
+			NioPeer peer = (NioPeer) key.attachment();
+			if (key.isReadable()) {
+				peer.read();
+			}
+			if (key.isValid() && key.isWritable()) {
+				peer.flush();
+			}
+		}
+	}
+
+	private void accept() {
+		try {
+			SocketChannel channel;
+			while ((channel = serverChannel.accept()) != null) {
+				newPeers.add(register(channel));
+			}
+		} catch (IOException e) {
+			Logger.getWarningStream().println("Could not accept connection: " + e.getMessage());
+		}
+	}
+
+	private void decodeFrames(NioPeer peer, ByteBuffer buffer) {
+		while (buffer.remaining() >= Integer.BYTES) {
+			int length = buffer.getInt(buffer.position());
+			if (length < Integer.BYTES || length > BUFFER_SIZE - Integer.BYTES) {
+				throw new BadNetworkingException("bad frame length: " + length);
+			}
+			if (buffer.remaining() < Integer.BYTES + length) {
+				return;  // the rest hasn't arrived yet
+			}
+			int end = buffer.position() + Integer.BYTES + length;
+			int limit = buffer.limit();
+			buffer.position(buffer.position() + Integer.BYTES);
+			int channel = buffer.getInt();
+			buffer.limit(end);
+			peer.receive(channel, decode(channel, buffer));
+			buffer.limit(limit);
+			buffer.position(end);
+		}
+	}
+
+	private Packet decode(int channel, ByteBuffer frame) {
+		Supplier<? extends Packet> supplier = packetSuppliers.get(channel);
+		if (supplier == null) {
+			throw new BadNetworkingException("unknown channel: " + channel);
+		}
+		input.buffer = frame;
+		Packet packet = supplier.get();
+		try {
+			packet.fromStream(dataInput);
+			return packet;
+		} catch (IOException | RuntimeException e) {
+			throw new BadNetworkingException("could not decode " + packet.getClass().getSimpleName(), e);
+		} finally {
+			input.buffer = null;
+		}
+	}
+
+	/**
+	 * Encodes a packet into a frame in {@link #encoded}, ready to be copied to peers.
+	 */
+	private void encode(Packet packet) {
+		Integer channel = channels.get(packet.getClass());
+		if (channel == null) {
+			throw new IllegalArgumentException("packet isn't registered: " + packet.getClass().getSimpleName());
+		}
+		encoded.clear();
+		encoded.position(HEADER_SIZE);
+		output.buffer = encoded;
+		try {
+			packet.toStream(dataOutput);
+			dataOutput.flush();
+		} catch (IOException | BufferOverflowException e) {
+			throw new IllegalArgumentException("packet doesn't fit into a frame: " + packet.getClass().getSimpleName(), e);
+		} finally {
+			output.buffer = null;
+		}
+		encoded.putInt(0, encoded.position() - Integer.BYTES);
+		encoded.putInt(Integer.BYTES, channel);
+		encoded.flip();
+	}
+
+	/**
+	 * Sends a packet to all peers, encoding it only once.
+	 */
+	@Override
+	public void broadcast(Packet packet) {
+		encode(packet);
+		for (NioPeer peer : peers) {
+			peer.enqueue(encoded);
+		}
+	}
+
+	@Override
+	public List<Peer> getNewPeers() {
+		List<Peer> accepted = new ArrayList<>(newPeers);
+		newPeers.clear();
+		return accepted;
+	}
+
+	@Override
+	public Peer getServer() {
+		return server;
+	}
+
+	@Override
+	public void flush() {
+		Iterator<NioPeer> peerIter = peers.iterator();
+		while (peerIter.hasNext()) {
+			NioPeer peer = peerIter.next();
+			if (!peer.closed) {
+				peer.flush();
+			}
+			if (peer.closed && peer != server) {
+				peerIter.remove();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		peers.forEach(NioPeer::close);
+		peers.clear();
+		try {
+			if (serverChannel != null) {
+				serverChannel.close();
+			}
+			selector.close();
+		} catch (IOException e) {
+			// closed either way
+		}
+	}
+}
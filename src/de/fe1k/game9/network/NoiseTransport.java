@@ -0,0 +1,132 @@
+package de.fe1k.game9.network;
+
+import de.nerogar.noise.network.Connection;
+import de.nerogar.noise.network.ServerThread;
+import de.nerogar.noise.network.packets.Packet;
+import de.nerogar.noise.util.Logger;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Transport on the Noise engine's stream based connections, which have a thread and a pair of streams for each socket.
+ */
+class NoiseTransport implements Transport {
+
+	private static class NoisePeer implements Peer {
+
+		private final Connection connection;
+
+		private NoisePeer(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public boolean isClosed() {
+			return connection.isClosed();
+		}
+
+		@Override
+		public List<Packet> getPackets(int channel) {
+			return connection.getPackets(channel);
+		}
+
+		@Override
+		public void send(Packet packet) {
+			connection.send(packet);
+		}
+
+		@Override
+		public void close() {
+			connection.close();
+		}
+	}
+
+	private final ServerThread    serverThread;  // null on clients
+	private final NoisePeer       server;        // null on servers
+	private final List<NoisePeer> peers = new ArrayList<>();
+
+	private NoiseTransport(ServerThread serverThread, NoisePeer server) {
+		this.serverThread = serverThread;
+		this.server = server;
+		if (server != null) {
+			peers.add(server);
+		}
+	}
+
+	static NoiseTransport listen(int port) throws BindException {
+		return new NoiseTransport(new ServerThread(port), null);
+	}
+
+	static NoiseTransport connect(String host, int port) throws IOException {
+		return new NoiseTransport(null, new NoisePeer(new Connection(new Socket(host, port))));
+	}
+
+	@Override
+	public void poll() {
+		Iterator<NoisePeer> peerIter = peers.iterator();
+		while (peerIter.hasNext()) {
+			NoisePeer peer = peerIter.next();
+			if (peer.isClosed()) {
+				if (peer != server) peerIter.remove();
+				continue;
+			}
+			try {
+				peer.connection.pollPackets(false);
+			} catch (RuntimeException e) {
+				// e.g. an unknown event, the peer doesn't play the same game
+				Logger.getWarningStream().println("Closing connection after a bad packet: " + e);
+				peer.close();
+			}
+		}
+	}
+
+	@Override
+	public List<Peer> getNewPeers() {
+		List<Peer> newPeers = new ArrayList<>();
+		if (serverThread != null) {
+			for (Connection connection : serverThread.getNewConnections()) {
+				NoisePeer peer = new NoisePeer(connection);
+				peers.add(peer);
+				newPeers.add(peer);
+			}
+		}
+		return newPeers;
+	}
+
+	@Override
+	public Peer getServer() {
+		return server;
+	}
+
+	@Override
+	public void broadcast(Packet packet) {
+		if (serverThread != null) {
+			serverThread.broadcast(packet);
+		} else {
+			server.send(packet);
+		}
+	}
+
+	@Override
+	public void flush() {
+		for (NoisePeer peer : peers) {
+			if (!peer.isClosed()) {
+				peer.connection.flushPackets();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (serverThread != null) {
+			serverThread.stopThread();
+		}
+		peers.forEach(NoisePeer::close);
+		peers.clear();
+	}
+}
@@ -0,0 +1,44 @@
+package de.fe1k.game9.network;
+
+import de.fe1k.game9.utils.VarInt;
+import de.nerogar.noise.network.packets.Packet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sent by the server to every new client: the names of the networked events in the order of their ids.
+ */
+public class PacketEventTypes implements Packet {
+	public List<String> names;
+
+	public PacketEventTypes() {
+	}
+
+	public PacketEventTypes(List<String> names) {
+		this.names = names;
+	}
+
+	@Override
+	public void fromStream(DataInputStream in) throws IOException {
+		int count = VarInt.readVarInt(in);
+		if (count < 0 || count > NioTransport.BUFFER_SIZE) {
+			throw new IOException("bad event count: " + count);
+		}
+		names = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			names.add(VarInt.readString(in));
+		}
+	}
+
+	@Override
+	public void toStream(DataOutputStream out) throws IOException {
+		VarInt.writeVarInt(out, names.size());
+		for (String name : names) {
+			VarInt.writeString(out, name);
+		}
+	}
+}
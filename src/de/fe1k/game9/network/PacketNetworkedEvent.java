@@ -1,64 +1,77 @@
 package de.fe1k.game9.network;
 
 import de.fe1k.game9.events.EventNetworked;
-import de.fe1k.game9.exceptions.EventNotFoundException;
 import de.fe1k.game9.exceptions.InvalidEventException;
+import de.fe1k.game9.utils.VarInt;
 import de.nerogar.noise.network.packets.Packet;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.io.*;
 
+/**
+ * Carries one networked event. The event's own fields are encoded into a payload by the game thread,
+ * as they refer to entities, while the packet itself is read and written by the network thread.
+ * On the wire it is just the event's id from the {@link EventRegistry} and the payload's length, both varints, and the payload.
+ */
 public class PacketNetworkedEvent implements Packet {
 
-	public EventNetworked event;
+	private Class<? extends EventNetworked> eventClass;  // only known for sent packets
+	private int                             typeId;
+	private byte[]                          payload;
 
 	public PacketNetworkedEvent() {
 	}
 
+	/**
+	 * Encodes the event right away, so later changes to it or the entities it refers to aren't sent.
+	 * The id is set once it's known which registry the receiver uses.
+	 */
 	public PacketNetworkedEvent(EventNetworked event) {
-		this.event = event;
+		eventClass = event.getClass();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			event.toStream(new DataOutputStream(bytes));
+		} catch (IOException e) {
+			throw new InvalidEventException();
+		}
+		payload = bytes.toByteArray();
 	}
 
-	@Override
-	public void fromStream(DataInputStream in) throws IOException {
-		int nameLength = in.readInt();
-		char[] chars = new char[nameLength];
-		for (int i = 0; i < nameLength; i++) {
-			chars[i] = in.readChar();
-		}
-		String eventName = new String(chars);
-		Class<? extends EventNetworked> eventClass = getByName(eventName);
+	Class<? extends EventNetworked> getEventClass() {
+		return eventClass;
+	}
+
+	void setTypeId(int typeId) {
+		this.typeId = typeId;
+	}
+
+	/**
+	 * Decodes the event, which has to happen on the game thread, in the order the events were received.
+	 */
+	EventNetworked getEvent(EventRegistry registry) {
+		EventNetworked event = registry.create(typeId);
 		try {
-			event = eventClass.newInstance();
-		} catch (InstantiationException | IllegalAccessException e) {
+			event.fromStream(new DataInputStream(new ByteArrayInputStream(payload)));
+		} catch (IOException e) {
 			throw new InvalidEventException();
 		}
-		event.fromStream(in);
+		return event;
 	}
 
 	@Override
-	public void toStream(DataOutputStream out) throws IOException {
-		String eventName = event.getClass().getSimpleName();
-		out.writeInt(eventName.length());
-		for (char c : eventName.toCharArray()) {
-			out.writeChar(c);
+	public void fromStream(DataInputStream in) throws IOException {
+		typeId = VarInt.readVarInt(in);
+		int length = VarInt.readVarInt(in);
+		if (length < 0 || length > NioTransport.BUFFER_SIZE) {
+			throw new IOException("bad payload length: " + length);  // checked before allocating, the frames are never larger
 		}
-		event.toStream(out);
+		payload = new byte[length];
+		in.readFully(payload);
 	}
 
-	@SuppressWarnings("unchecked")
-	private static <T extends EventNetworked> Class<T> getByName(String name) {
-		Class clazz;
-		try {
-			clazz = Class.forName(EventNetworked.class.getPackage().getName() + "." + name);
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-			throw new EventNotFoundException();
-		}
-		if (!EventNetworked.class.isAssignableFrom(clazz)) {
-			throw new EventNotFoundException();
-		}
-		return (Class<T>) clazz;
+	@Override
+	public void toStream(DataOutputStream out) throws IOException {
+		VarInt.writeVarInt(out, typeId);
+		VarInt.writeVarInt(out, payload.length);
+		out.write(payload);
 	}
 }
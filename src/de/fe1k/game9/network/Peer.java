@@ -0,0 +1,26 @@
+package de.fe1k.game9.network;
+
+import de.nerogar.noise.network.packets.Packet;
+
+import java.util.List;
+
+/**
+ * The other end of a connection, whichever {@link Transport} carries it.
+ * Only the network thread may send or receive, the game just uses peers to tell connections apart.
+ */
+public interface Peer {
+
+	boolean isClosed();
+
+	/**
+	 * @return the packets received on a channel since the last call
+	 */
+	List<Packet> getPackets(int channel);
+
+	/**
+	 * Queues a packet, it is written when the transport is flushed.
+	 */
+	void send(Packet packet);
+
+	void close();
+}
@@ -0,0 +1,42 @@
+package de.fe1k.game9.network;
+
+import de.nerogar.noise.network.packets.Packet;
+
+import java.util.List;
+
+/**
+ * Moves packets between peers. A server transport accepts any number of peers, a client transport has exactly one.
+ * Everything but creating the transport happens on the network thread, and nothing blocks.
+ */
+interface Transport {
+
+	/**
+	 * Accepts new peers and reads everything that arrived, without waiting for anything.
+	 */
+	void poll();
+
+	/**
+	 * @return the peers that connected since the last call, clients never get any
+	 */
+	List<Peer> getNewPeers();
+
+	/**
+	 * @return the server a client is connected to, or null on servers
+	 */
+	Peer getServer();
+
+	/**
+	 * Queues a packet for all peers.
+	 */
+	void broadcast(Packet packet);
+
+	/**
+	 * Writes as much of the queued packets as the sockets take right now.
+	 */
+	void flush();
+
+	/**
+	 * Closes all peers and stops accepting new ones.
+	 */
+	void close();
+}
@@ -0,0 +1,109 @@
+package de.fe1k.game9.particles;
+
+import de.fe1k.game9.components.ComponentPlayer;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.network.Network;
+import de.nerogar.noise.util.Vector2f;
+
+/**
+ * Limits the total number of particles and decides which emitters are worth running at all.
+ */
+public class ParticleBudget {
+
+	/**
+	 * Emitters may only spawn particles while fewer than their share of the budget are alive,
+	 * so ambient effects stop first once particles get scarce.
+	 */
+	public enum Priority {
+		LOW(0.5f),
+		NORMAL(0.9f),
+		HIGH(1f);
+
+		public final float share;
+
+		Priority(float share) {
+			this.share = share;
+		}
+	}
+
+	public static final int DEFAULT_BUDGET = 4096;
+
+	// emitters this far outside of a view keep running, their particles might fly into it
+	private static final float VIEW_MARGIN = 4;
+	// view size assumed for players when there is no camera
+	private static final float DEFAULT_VIEW_WIDTH  = 40;
+	private static final float DEFAULT_VIEW_HEIGHT = 22.5f;
+
+	private int     budget         = DEFAULT_BUDGET;
+	private boolean cullingEnabled = true;
+
+	private boolean hasCamera;
+	private float   cameraX;
+	private float   cameraY;
+	private float   viewWidth  = DEFAULT_VIEW_WIDTH;
+	private float   viewHeight = DEFAULT_VIEW_HEIGHT;
+
+	/**
+	 * @param alive number of particles currently alive
+	 * @param requested number of particles an emitter wants to spawn
+	 * @return how many of them may be spawned
+	 */
+	public int getAllowedSpawns(Priority priority, int alive, int requested) {
+		int limit = (int) (budget * priority.share);
+		return Math.max(0, Math.min(requested, limit - alive));
+	}
+
+	/**
+	 * Sets the area the local camera shows. Clients cull against it instead of the players' views,
+	 * the server has to keep emitters running wherever any player is looking.
+	 */
+	public void setCameraView(float centerX, float centerY, float width, float height) {
+		hasCamera = true;
+		cameraX = centerX;
+		cameraY = centerY;
+		viewWidth = width;
+		viewHeight = height;
+	}
+
+	/**
+	 * @return whether an emitter at the given position might be seen, either by the camera on clients or by any player
+	 */
+	public boolean isVisible(Vector2f position) {
+		if (!cullingEnabled) {
+			return true;
+		}
+		if (hasCamera && Network.isStarted() && !Network.isServer()) {
+			return isInView(position, cameraX, cameraY);
+		}
+		boolean anyPlayer = false;
+		for (ComponentPlayer player : Entity.getComponents(ComponentPlayer.class)) {
+			anyPlayer = true;
+			Vector2f center = player.getOwner().getPosition();
+			if (isInView(position, center.getX(), center.getY())) {
+				return true;
+			}
+		}
+		return !anyPlayer;
+	}
+
+	private boolean isInView(Vector2f position, float centerX, float centerY) {
+		return Math.abs(position.getX() - centerX) <= viewWidth / 2 + VIEW_MARGIN
+				&& Math.abs(position.getY() - centerY) <= viewHeight / 2 + VIEW_MARGIN;
+	}
+
+	public int getBudget() {
+		return budget;
+	}
+
+	public void setBudget(int budget) {
+		this.budget = budget;
+	}
+
+	public boolean isCullingEnabled() {
+		return cullingEnabled;
+	}
+
+	public void setCullingEnabled(boolean cullingEnabled) {
+		this.cullingEnabled = cullingEnabled;
+	}
+}
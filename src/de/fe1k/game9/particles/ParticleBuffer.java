@@ -0,0 +1,352 @@
+package de.fe1k.game9.particles;
+
+import de.fe1k.game9.DeferredContainerBank;
+import de.fe1k.game9.components.ComponentBounding;
+import de.fe1k.game9.entities.SpatialQuery;
+import de.fe1k.game9.systems.SystemPhysics;
+import de.fe1k.game9.utils.BatchIntegrator;
+import de.nerogar.noise.render.RenderProperties3f;
+import de.nerogar.noise.render.deferredRenderer.DeferredContainer;
+import de.nerogar.noise.render.deferredRenderer.DeferredRenderable;
+import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
+import de.nerogar.noise.render.deferredRenderer.Light;
+import de.nerogar.noise.util.Color;
+import de.nerogar.noise.util.Vector3f;
+
+/**
+ * All particles of one sprite, stored as packed arrays with a fixed capacity.
+ * New particles are allocated round robin, so once the buffer is full the oldest particles get replaced.
+ * Particles are simulated by the simulation thread, which copies them into a {@link Frame} that the render thread draws.
+ */
+public class ParticleBuffer {
+
+	/**
+	 * A copy of the particles of a buffer at the end of a tick.
+	 */
+	public static class Frame {
+
+		private ParticleBuffer buffer;
+
+		private float[]   posX;
+		private float[]   posY;
+		private float[]   scaleX;
+		private float[]   scaleY;
+		private float[]   rotation;
+		private boolean[] alive;
+		private int[]     generation;
+		private Color[]   lightColor;
+		private float[]   lightReach;
+		private float[]   lightIntensity;
+
+		private void ensureCapacity(int capacity) {
+			if (alive != null && alive.length == capacity) {
+				return;
+			}
+			posX = new float[capacity];
+			posY = new float[capacity];
+			scaleX = new float[capacity];
+			scaleY = new float[capacity];
+			rotation = new float[capacity];
+			alive = new boolean[capacity];
+			generation = new int[capacity];
+			lightColor = new Color[capacity];
+			lightReach = new float[capacity];
+			lightIntensity = new float[capacity];
+		}
+
+		/**
+		 * Draws the particles, must only be called by the render thread.
+		 */
+		public void render() {
+			buffer.render(this);
+		}
+	}
+
+	// same as the defaults of ComponentMoving
+	private static final float AIR_FRICTION = 5;
+	private static final float FRICTION     = 10;
+
+	private final String           sprite;
+	private final float            z;
+	private final int              capacity;
+	private final DeferredRenderer renderer;
+
+	// movement
+	private float[] posX;
+	private float[] posY;
+	private float[] prevX;
+	private float[] prevY;
+	private float[] velX;
+	private float[] velY;
+	private float[] accX;
+	private float[] accY;
+	private float[] friction;
+
+	// appearance and lifetime
+	private float[]   scaleX;
+	private float[]   scaleY;
+	private float[]   rotation;
+	private float[]   age;
+	private float[]   lifetime;
+	private boolean[] alive;
+	private boolean[] colliding;
+	// counts up whenever a slot gets reused, so the render thread notices when a light belongs to a new particle
+	private int[]     generation;
+	private Color[]   lightColor;
+	private float[]   lightReach;
+	private float[]   lightIntensity;
+
+	// one renderable per slot, all sharing the sprite's container. They are created when a slot is first used.
+	// These are only touched by the render thread
+	private DeferredRenderable[] renderables;
+	private DeferredContainer    container;
+	private boolean[]            visible;
+	private Light[]              lights;
+	private int[]                lightGeneration;
+
+	private int next;
+	private int aliveCount;
+
+	public ParticleBuffer(DeferredRenderer renderer, String sprite, float z, int capacity) {
+		this.renderer = renderer;
+		this.sprite = sprite;
+		this.z = z;
+		this.capacity = capacity;
+
+		posX = new float[capacity];
+		posY = new float[capacity];
+		prevX = new float[capacity];
+		prevY = new float[capacity];
+		velX = new float[capacity];
+		velY = new float[capacity];
+		accX = new float[capacity];
+		accY = new float[capacity];
+		friction = new float[capacity];
+
+		scaleX = new float[capacity];
+		scaleY = new float[capacity];
+		rotation = new float[capacity];
+		age = new float[capacity];
+		lifetime = new float[capacity];
+		alive = new boolean[capacity];
+		colliding = new boolean[capacity];
+		generation = new int[capacity];
+		lightColor = new Color[capacity];
+		lightReach = new float[capacity];
+		lightIntensity = new float[capacity];
+
+		renderables = new DeferredRenderable[capacity];
+		visible = new boolean[capacity];
+		lights = new Light[capacity];
+		lightGeneration = new int[capacity];
+	}
+
+	/**
+	 * Spawns a particle, replacing the oldest one if the buffer is full.
+	 *
+	 * @param colliding whether the particle should bounce off the map
+	 * @return the slot of the new particle
+	 */
+	public int spawn(float x, float y, float velocityX, float velocityY, float scaleX, float scaleY, float rotation, float lifetime, boolean colliding) {
+		int slot = next;
+		next = (next + 1) % capacity;
+		if (alive[slot]) {
+			kill(slot);
+		}
+
+		posX[slot] = x;
+		posY[slot] = y;
+		velX[slot] = velocityX;
+		velY[slot] = velocityY;
+		accX[slot] = SystemPhysics.GRAVITY.getX();
+		accY[slot] = SystemPhysics.GRAVITY.getY();
+		friction[slot] = AIR_FRICTION;
+		this.scaleX[slot] = scaleX;
+		this.scaleY[slot] = scaleY;
+		this.rotation[slot] = rotation;
+		age[slot] = 0;
+		this.lifetime[slot] = lifetime;
+		this.colliding[slot] = colliding;
+		generation[slot]++;
+		lightColor[slot] = null;
+		alive[slot] = true;
+		aliveCount++;
+		return slot;
+	}
+
+	/**
+	 * Lets a particle emit light until it dies.
+	 */
+	public void setLight(int slot, Color color, float reach, float intensity) {
+		lightColor[slot] = color;
+		lightReach[slot] = reach;
+		lightIntensity[slot] = intensity;
+	}
+
+	public void update(float deltaTime) {
+		if (aliveCount == 0) {
+			return;
+		}
+
+		System.arraycopy(posX, 0, prevX, 0, capacity);
+		System.arraycopy(posY, 0, prevY, 0, capacity);
+		// dead slots get integrated as well, that's cheaper than skipping them
+		BatchIntegrator.integrate(0, capacity, deltaTime, posX, posY, velX, velY, accX, accY, friction);
+
+		for (int i = 0; i < capacity; i++) {
+			if (!alive[i]) {
+				continue;
+			}
+			age[i] += deltaTime;
+			if (age[i] >= lifetime[i]) {
+				kill(i);
+				continue;
+			}
+			if (colliding[i]) {
+				collide(i);
+			}
+		}
+	}
+
+	/**
+	 * Moves a particle back out of the map, one axis at a time, and stops it along the blocked axes.
+	 */
+	private void collide(int i) {
+		if (!SpatialQuery.isBlocked(posX[i], posY[i], ComponentBounding.LAYER_MAP)) {
+			friction[i] = AIR_FRICTION;
+			return;
+		}
+		friction[i] = FRICTION;
+		if (!SpatialQuery.isBlocked(prevX[i], posY[i], ComponentBounding.LAYER_MAP)) {
+			posX[i] = prevX[i];
+			velX[i] = 0;
+		} else if (!SpatialQuery.isBlocked(posX[i], prevY[i], ComponentBounding.LAYER_MAP)) {
+			posY[i] = prevY[i];
+			velY[i] = 0;
+		} else {
+			posX[i] = prevX[i];
+			posY[i] = prevY[i];
+			velX[i] = 0;
+			velY[i] = 0;
+		}
+	}
+
+	private void kill(int slot) {
+		alive[slot] = false;
+		aliveCount--;
+		// keep dead slots from drifting off, they are still integrated
+		velX[slot] = 0;
+		velY[slot] = 0;
+		accX[slot] = 0;
+		accY[slot] = 0;
+		lightColor[slot] = null;
+	}
+
+	/**
+	 * Copies all particles into the frame, called by the simulation thread at the end of a tick.
+	 */
+	public void capture(Frame frame) {
+		frame.buffer = this;
+		frame.ensureCapacity(capacity);
+		System.arraycopy(alive, 0, frame.alive, 0, capacity);
+		System.arraycopy(generation, 0, frame.generation, 0, capacity);
+		System.arraycopy(lightColor, 0, frame.lightColor, 0, capacity);
+		if (aliveCount == 0) {
+			return;  // positions of dead particles don't matter
+		}
+		System.arraycopy(posX, 0, frame.posX, 0, capacity);
+		System.arraycopy(posY, 0, frame.posY, 0, capacity);
+		System.arraycopy(scaleX, 0, frame.scaleX, 0, capacity);
+		System.arraycopy(scaleY, 0, frame.scaleY, 0, capacity);
+		System.arraycopy(rotation, 0, frame.rotation, 0, capacity);
+		System.arraycopy(lightReach, 0, frame.lightReach, 0, capacity);
+		System.arraycopy(lightIntensity, 0, frame.lightIntensity, 0, capacity);
+	}
+
+	private void render(Frame frame) {
+		for (int i = 0; i < capacity; i++) {
+			if (frame.alive[i]) {
+				RenderProperties3f properties = getRenderable(i).getRenderProperties();
+				properties.setXYZ(frame.posX[i], frame.posY[i], z);
+				properties.setScale(frame.scaleX[i], frame.scaleY[i], 1);
+				properties.setRoll(frame.rotation[i]);
+				visible[i] = true;
+			} else if (visible[i]) {
+				// hide instead of removing, the slot will be reused
+				renderables[i].getRenderProperties().setScale(0, 0, 0);
+				visible[i] = false;
+			}
+			renderLight(frame, i);
+		}
+	}
+
+	private void renderLight(Frame frame, int i) {
+		boolean hasLight = frame.alive[i] && frame.lightColor[i] != null;
+		if (lights[i] != null && (!hasLight || lightGeneration[i] != frame.generation[i])) {
+			renderer.getLightContainer().remove(lights[i]);
+			lights[i] = null;
+		}
+		if (!hasLight) {
+			return;
+		}
+		if (lights[i] == null) {
+			lights[i] = new Light(new Vector3f(0, 0, 2), frame.lightColor[i], frame.lightReach[i], frame.lightIntensity[i]);
+			lightGeneration[i] = frame.generation[i];
+			renderer.getLightContainer().add(lights[i]);
+		}
+		lights[i].position.setX(frame.posX[i] + Math.abs(frame.scaleX[i]) * 0.5f);
+		lights[i].position.setY(frame.posY[i] + Math.abs(frame.scaleY[i]) * 0.5f);
+	}
+
+	private DeferredRenderable getRenderable(int slot) {
+		if (renderables[slot] == null) {
+			if (container == null) {
+				container = DeferredContainerBank.getContainer(sprite, null);
+			}
+			renderables[slot] = new DeferredRenderable(container, new RenderProperties3f());
+			renderer.addObject(renderables[slot]);
+		}
+		return renderables[slot];
+	}
+
+	/**
+	 * Kills all particles.
+	 */
+	public void clear() {
+		for (int i = 0; i < capacity; i++) {
+			if (alive[i]) {
+				kill(i);
+			}
+		}
+	}
+
+	/**
+	 * Kills all particles and removes everything from the renderer.
+	 * Only call this once the simulation has stopped, as it touches both halves of the buffer.
+	 */
+	public void cleanup() {
+		clear();
+		for (int i = 0; i < capacity; i++) {
+			if (renderables[i] != null) {
+				renderer.removeObject(renderables[i]);
+				renderables[i] = null;
+			}
+			if (lights[i] != null) {
+				renderer.getLightContainer().remove(lights[i]);
+				lights[i] = null;
+			}
+		}
+	}
+
+	public String getSprite() {
+		return sprite;
+	}
+
+	public int getAliveCount() {
+		return aliveCount;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+}
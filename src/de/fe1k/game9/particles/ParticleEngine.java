@@ -0,0 +1,125 @@
+package de.fe1k.game9.particles;
+
+import de.fe1k.game9.RenderSnapshot;
+import de.fe1k.game9.debug.ParticleProfiler;
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.systems.GameSystem;
+import de.nerogar.noise.Noise;
+import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
+import de.nerogar.noise.util.Vector2f;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simulates and renders particles without creating entities for them.
+ * Particles are purely visual, so every client simulates its own.
+ * They are simulated with the rest of the game and drawn from the {@link RenderSnapshot} by the render thread.
+ * The total number of particles is limited by a {@link ParticleBudget}.
+ */
+public class ParticleEngine implements GameSystem {
+
+	private static final int   CAPACITY = 2048;
+	private static final float Z        = 1;
+
+	private DeferredRenderer            renderer;
+	private Map<String, ParticleBuffer> buffers  = new LinkedHashMap<>();
+	private ParticleBudget              budget   = new ParticleBudget();
+	private ParticleProfiler            profiler = new ParticleProfiler();
+	private int                         aliveCount;
+
+	private EventListener<EventUpdate>                eventUpdate                = this::update;
+	private EventListener<EventToggleParticleCulling> eventToggleParticleCulling = this::toggleParticleCulling;
+	private EventListener<EventSetParticleBudget>     eventSetParticleBudget     = this::setParticleBudget;
+
+	public ParticleEngine(DeferredRenderer renderer) {
+		this.renderer = renderer;
+	}
+
+	@Override
+	public void start() {
+		Event.register(EventUpdate.class, eventUpdate);
+		Event.register(EventToggleParticleCulling.class, eventToggleParticleCulling);
+		Event.register(EventSetParticleBudget.class, eventSetParticleBudget);
+		Noise.getDebugWindow().addProfiler(profiler);
+	}
+
+	/**
+	 * @return the buffer holding all particles of a sprite
+	 */
+	public ParticleBuffer getBuffer(String sprite) {
+		return buffers.computeIfAbsent(sprite, k -> new ParticleBuffer(renderer, sprite, Z, CAPACITY));
+	}
+
+	public ParticleBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Decides whether an emitter at the given position should spawn particles at all.
+	 */
+	public boolean isEmitterActive(Vector2f position) {
+		if (budget.isVisible(position)) {
+			profiler.incrementValue(ParticleProfiler.EMITTERS_ACTIVE);
+			return true;
+		} else {
+			profiler.incrementValue(ParticleProfiler.EMITTERS_SUSPENDED);
+			return false;
+		}
+	}
+
+	/**
+	 * Reserves room for new particles within the budget.
+	 * The caller has to spawn exactly the returned number of particles.
+	 *
+	 * @param requested the number of particles the emitter wants to spawn
+	 * @return the number of particles that may be spawned
+	 */
+	public int allocate(ParticleBudget.Priority priority, int requested) {
+		int allowed = budget.getAllowedSpawns(priority, aliveCount, requested);
+		aliveCount += allowed;
+		profiler.addValue(ParticleProfiler.PARTICLES_DROPPED, requested - allowed);
+		return allowed;
+	}
+
+	public int getAliveCount() {
+		return aliveCount;
+	}
+
+	private void update(EventUpdate event) {
+		aliveCount = 0;
+		for (ParticleBuffer buffer : buffers.values()) {
+			buffer.update(event.deltaTime);
+			aliveCount += buffer.getAliveCount();
+		}
+		profiler.setValue(ParticleProfiler.PARTICLES_ALIVE, aliveCount);
+		profiler.setValue(ParticleProfiler.PARTICLES_BUDGET, budget.getBudget());
+	}
+
+	private void toggleParticleCulling(EventToggleParticleCulling event) {
+		budget.setCullingEnabled(event.enabled);
+	}
+
+	private void setParticleBudget(EventSetParticleBudget event) {
+		budget.setBudget(event.budget);
+	}
+
+	/**
+	 * Copies all particles into the snapshot, called by the simulation thread at the end of a tick.
+	 */
+	public void capture(RenderSnapshot snapshot) {
+		for (ParticleBuffer buffer : buffers.values()) {
+			buffer.capture(snapshot.addParticles());
+		}
+	}
+
+	@Override
+	public void stop() {
+		Event.unregister(EventUpdate.class, eventUpdate);
+		Event.unregister(EventToggleParticleCulling.class, eventToggleParticleCulling);
+		Event.unregister(EventSetParticleBudget.class, eventSetParticleBudget);
+		buffers.values().forEach(ParticleBuffer::cleanup);
+		buffers.clear();
+		aliveCount = 0;
+	}
+}
@@ -1,12 +1,19 @@
 package de.fe1k.game9.states;
 
+import de.nerogar.noise.render.GLWindow;
+
 public abstract class GameState {
 	public abstract void enter();
 	public abstract void leave();
 
+	/**
+	 * Draws on top of the game. Called by the render thread, while everything else runs on the simulation thread.
+	 */
+	public void render(GLWindow window) {}
+
 	////////////////// STATIC STUFF //////////////////
 
-	private static GameState currentState;
+	private static volatile GameState currentState;
 
 	public static void transition(GameState newState) {
 		if (currentState != null) {
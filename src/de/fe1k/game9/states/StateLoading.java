@@ -0,0 +1,108 @@
+package de.fe1k.game9.states;
+
+import de.fe1k.game9.Game;
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.map.MapCache;
+import de.fe1k.game9.map.MapData;
+import de.fe1k.game9.map.MapLoader;
+import de.nerogar.noise.render.GLWindow;
+import de.nerogar.noise.render.fontRenderer.Font;
+import de.nerogar.noise.render.fontRenderer.FontRenderableString;
+import de.nerogar.noise.util.Color;
+import de.nerogar.noise.util.Logger;
+import de.nerogar.noise.util.Matrix4f;
+import de.nerogar.noise.util.Matrix4fUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads a map without blocking the main thread for long, so the window and the network stay responsive.
+ * The map gets decoded on a background thread first, then its entities are spawned a few milliseconds per frame.
+ */
+public class StateLoading extends GameState {
+
+	// how long to spawn entities for each frame
+	private static final long SPAWN_BUDGET_NANOS = 4_000_000;
+
+	private EventListener<EventUpdate> eventUpdate = this::update;
+
+	// created on first render, headless servers never render
+	private Font  font;
+	private Color color = new Color(1.0f, 1.0f, 1.0f, 1.0f);
+
+	private final String mapName;
+
+	// the loader and whether it failed are shown by the render thread
+	private          CompletableFuture<MapData> decoding;
+	private volatile MapLoader                  loader;
+	private volatile boolean                    failed;
+
+	public StateLoading(String mapName) {
+		this.mapName = mapName;
+	}
+
+	@Override
+	public void enter() {
+		Event.register(EventUpdate.class, eventUpdate);
+		decoding = CompletableFuture.supplyAsync(() -> MapCache.getMapData(mapName), runnable -> {
+			Thread thread = new Thread(runnable, "map loader");
+			thread.setDaemon(true);
+			thread.start();
+		}).exceptionally(e -> {
+			// e.g. an image that can't be decoded, reported as a map that couldn't be loaded
+			e.printStackTrace();
+			return null;
+		});
+	}
+
+	@Override
+	public void leave() {
+		Event.unregister(EventUpdate.class, eventUpdate);
+	}
+
+	private void update(EventUpdate event) {
+		if (failed) {
+			return;
+		}
+		if (loader == null) {
+			if (!decoding.isDone()) {
+				return;
+			}
+			MapData data = decoding.getNow(null);
+			if (data == null) {
+				Logger.getErrorStream().println("Could not load map: " + mapName);
+				failed = true;
+				return;
+			}
+			loader = new MapLoader(Game.renderer, mapName, data);
+		}
+
+		boolean done = loader.spawn(SPAWN_BUDGET_NANOS);
+		Event.trigger(new EventMapLoadProgress(mapName, loader.getProgress()));
+		if (done) {
+			GameState.transition(new StateIngame());
+		}
+	}
+
+	@Override
+	public void render(GLWindow window) {
+		if (font == null) {
+			font = new Font("sans-serif", 20);
+		}
+		int width = window.getWidth();
+		int height = window.getHeight();
+		Matrix4f projectionMatrix = new Matrix4f();
+		Matrix4fUtils.setOrthographicProjection(projectionMatrix, 0f, width, height, 0, 1, -1);
+		String text;
+		if (failed) {
+			text = "Could not load " + mapName;
+		} else if (loader == null) {
+			text = "Loading " + mapName + "...";
+		} else {
+			text = String.format("Loading %s... %d%%", mapName, Math.round(loader.getProgress() * 100));
+		}
+		FontRenderableString string = new FontRenderableString(font, text, color, projectionMatrix, 1f, 1f);
+		string.render(20, Math.round(0.6f * height));
+		string.cleanup();
+	}
+}
@@ -1,10 +1,10 @@
 package de.fe1k.game9.states;
 
 import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventAfterRender;
 import de.fe1k.game9.events.EventListener;
 import de.fe1k.game9.events.EventUpdate;
 import de.fe1k.game9.network.Network;
+import de.nerogar.noise.render.GLWindow;
 import de.nerogar.noise.render.fontRenderer.Font;
 import de.nerogar.noise.render.fontRenderer.FontRenderableString;
 import de.nerogar.noise.util.Color;
@@ -13,21 +13,19 @@ import de.nerogar.noise.util.Matrix4fUtils;
 
 public class StateMainMenu extends GameState {
 
-	private EventListener<EventAfterRender> eventRender = this::render;
 	private EventListener<EventUpdate> eventUpdate = this::update;
 
-	private Font font = new Font("sans-serif", 20);
+	// created on first render, the state is entered on the simulation thread
+	private Font  font;
 	private Color color = new Color(1.0f, 1.0f, 1.0f, 1.0f);
 
 	@Override
 	public void enter() {
-		Event.register(EventAfterRender.class, eventRender);
 		Event.register(EventUpdate.class, eventUpdate);
 	}
 
 	@Override
 	public void leave() {
-		Event.unregister(EventAfterRender.class, eventRender);
 		Event.unregister(EventUpdate.class, eventUpdate);
 	}
 
@@ -37,10 +35,14 @@ public class StateMainMenu extends GameState {
 		}
 	}
 
-	private void render(EventAfterRender event) {
+	@Override
+	public void render(GLWindow window) {
 		// TODO puke
-		int width = event.window.getWidth();
-		int height = event.window.getHeight();
+		if (font == null) {
+			font = new Font("sans-serif", 20);
+		}
+		int width = window.getWidth();
+		int height = window.getHeight();
 		Matrix4f projectionMatrix = new Matrix4f();
 		Matrix4fUtils.setOrthographicProjection(projectionMatrix, 0f, width, height, 0, 1, -1);
 		String text = "WOAH, KEINE GUI! Naja, muss ja nur ein Video abgegeben werden.\n\n"
@@ -2,7 +2,6 @@ package de.fe1k.game9.states;
 
 import de.fe1k.game9.Game;
 import de.fe1k.game9.events.*;
-import de.fe1k.game9.map.MapLoader;
 import de.fe1k.game9.network.Network;
 
 public class StateWaitingForStart extends GameState {
@@ -30,15 +29,15 @@ public class StateWaitingForStart extends GameState {
 	}
 
 	private void checkReady() {
-		int numPlayers = Network.getClients().size() + 1;
+		// a headless server doesn't play itself
+		int numPlayers = Network.getClients().size() + (Game.isHeadless() ? 0 : 1);
 		if (numPlayers >= PLAYERS_REQUIRED) {
 			Event.trigger(new EventLoadMap("res/map/map_dungeon0"));
 		}
 	}
 
 	private void loadMap(EventLoadMap event) {
-		MapLoader.loadMap(Game.renderer, event.mapName);
-		GameState.transition(new StateIngame());
+		GameState.transition(new StateLoading(event.mapName));
 	}
 
 }
@@ -1,62 +1,92 @@
 package de.fe1k.game9.systems;
 
 import de.fe1k.game9.Game;
-import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventCallback;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.*;
 import de.fe1k.game9.events.EventListener;
-import de.fe1k.game9.events.EventUpdate;
+import de.fe1k.game9.utils.TimingWheel;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class SystemCallbacks implements GameSystem {
 
-	private EventListener<EventCallback> eventCallback;
-	private EventListener<EventUpdate>   eventUpdate;
+	// resolution of the timing wheel
+	private static final int TICKS_PER_SECOND = 100;
 
-	private class CallbackEntry implements Comparable<CallbackEntry> {
+	private EventListener<EventCallback>        eventCallback;
+	private EventListener<EventUpdate>          eventUpdate;
+	private EventListener<EventEntityDestroyed> eventEntityDestroyed;
 
-		double                 time;
-		EventCallback.Callback callback;
-
-		CallbackEntry(double time, EventCallback.Callback callback) {
-			this.time = time;
-			this.callback = callback;
-		}
-
-		@Override
-		public int compareTo(CallbackEntry o) {
-			return (int) Math.signum(time - o.time);
-		}
-	}
-
-	private Queue<CallbackEntry> callbacks = new PriorityQueue<>();
+	private TimingWheel<EventCallback>      wheel;
+	private Map<Entity, Set<EventCallback>> ownedCallbacks = new HashMap<>();
+	private Consumer<EventCallback>         fire           = this::fire;
 
 	@Override
 	public void start() {
+		wheel = new TimingWheel<>(toTick(Game.getRunTime()));
 		eventCallback = this::addCallback;
 		eventUpdate = this::update;
+		eventEntityDestroyed = this::entityDestroyed;
 		Event.register(EventCallback.class, eventCallback);
 		Event.register(EventUpdate.class, eventUpdate);
+		Event.register(EventEntityDestroyed.class, eventEntityDestroyed);
 	}
 
 	private void addCallback(EventCallback event) {
+		if (event.isCancelled() || (event.owner != null && Entity.getById(event.owner.getId()) != event.owner)) {
+			return;
+		}
 		double now = Game.getRunTime();
-		callbacks.add(new CallbackEntry(now + event.time, event.callback));
+		// round up, callbacks must never be called early
+		event.timer = wheel.schedule((long) Math.ceil((now + event.time) * TICKS_PER_SECOND), event);
+		if (event.owner != null) {
+			Set<EventCallback> owned = ownedCallbacks.computeIfAbsent(event.owner, k -> new HashSet<>());
+			if (owned.size() >= 16 && Integer.bitCount(owned.size()) == 1) {
+				// forget callbacks that got cancelled by hand every now and then
+				owned.removeIf(EventCallback::isCancelled);
+			}
+			owned.add(event);
+		}
 	}
 
 	private void update(EventUpdate event) {
-		double now = Game.getRunTime();
-		CallbackEntry entry;
-		while ((entry = callbacks.peek()) != null && entry.time <= now) {
-			callbacks.poll();
-			entry.callback.call();
+		wheel.advance(toTick(Game.getRunTime()), fire);
+	}
+
+	private void fire(EventCallback event) {
+		if (event.owner != null) {
+			Set<EventCallback> owned = ownedCallbacks.get(event.owner);
+			if (owned != null) {
+				owned.remove(event);
+				if (owned.isEmpty()) ownedCallbacks.remove(event.owner);
+			}
+			if (Entity.getById(event.owner.getId()) != event.owner) {
+				return;  // despawned by an earlier callback, the destroyed event didn't arrive yet
+			}
+		}
+		event.callback.call();
+	}
+
+	private void entityDestroyed(EventEntityDestroyed event) {
+		if (Entity.getById(event.entity.getId()) != null) {
+			return;  // only a death animation, the entity is still alive
+		}
+		Set<EventCallback> owned = ownedCallbacks.remove(event.entity);
+		if (owned != null) {
+			owned.forEach(EventCallback::cancel);
 		}
 	}
 
+	private static long toTick(double time) {
+		return (long) (time * TICKS_PER_SECOND);
+	}
+
 	@Override
 	public void stop() {
 		Event.unregister(EventCallback.class, eventCallback);
 		Event.unregister(EventUpdate.class, eventUpdate);
+		Event.unregister(EventEntityDestroyed.class, eventEntityDestroyed);
+		ownedCallbacks.clear();
 	}
 }
@@ -1,22 +1,23 @@
 package de.fe1k.game9.systems;
 
-import de.fe1k.game9.components.*;
-import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.components.ComponentDeathAnimation;
 import de.fe1k.game9.events.Event;
 import de.fe1k.game9.events.EventEntityDestroyed;
 import de.fe1k.game9.events.EventListener;
-import de.fe1k.game9.utils.Bounding;
-import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
+import de.fe1k.game9.particles.ParticleBudget;
+import de.fe1k.game9.particles.ParticleBuffer;
+import de.fe1k.game9.particles.ParticleEngine;
+import de.nerogar.noise.util.Vector2f;
 
 import java.util.Random;
 
 public class SystemDeathAnimation implements GameSystem {
 
-	private DeferredRenderer                    renderer;
+	private ParticleEngine                      engine;
 	private EventListener<EventEntityDestroyed> eventEntityDestroyed;
 
-	public SystemDeathAnimation(DeferredRenderer renderer) {
-		this.renderer = renderer;
+	public SystemDeathAnimation(ParticleEngine engine) {
+		this.engine = engine;
 	}
 
 	@Override
@@ -31,26 +32,24 @@ public class SystemDeathAnimation implements GameSystem {
 		ComponentDeathAnimation component = event.entity.getComponent(ComponentDeathAnimation.class);
 
 		Random rand = new Random();
-
-		for (int i = 0; i < 50; i++) {
-			Entity particle = Entity.spawn(event.entity.getPosition().clone().addX(0.5f).addY(0.5f));
-
-			particle.setRotation((float) (rand.nextFloat() * Math.PI * 2));
-			particle.getScale().setX(rand.nextFloat() * component.scale + component.scale);
-			particle.getScale().setY(rand.nextFloat() * component.scale + component.scale);
-
-			ComponentMoving componentMoving = new ComponentMoving();
-			componentMoving.velocity.setX((float) (rand.nextGaussian() * component.velocity));
-			componentMoving.velocity.setY((float) (rand.nextGaussian() * component.velocity + component.velocity));
-			particle.addComponent(componentMoving);
-
-			particle.addComponent(new ComponentBounding(new Bounding(0, 0, 0.1f, 0.1f), ComponentBounding.LAYER_PARTICLES, ComponentBounding.LAYER_MAP));
-
-			particle.addComponent(new ComponentSpriteRenderer(renderer, component.sprite, 1));
-
-			particle.addComponent(new ComponentDespawn((float) (Math.random() * component.lifetime + component.lifetime)));
-
-			particle.addComponent(new ComponentLight(renderer, component.lightColor, 2.5f, 0.3f));
+		ParticleBuffer buffer = engine.getBuffer(component.sprite);
+		Vector2f position = event.entity.getPosition();
+
+		int spawns = engine.allocate(ParticleBudget.Priority.HIGH, 50);
+		for (int i = 0; i < spawns; i++) {
+			int particle = buffer.spawn(
+					position.getX() + 0.5f,
+					position.getY() + 0.5f,
+					(float) (rand.nextGaussian() * component.velocity),
+					(float) (rand.nextGaussian() * component.velocity + component.velocity),
+					rand.nextFloat() * component.scale + component.scale,
+					rand.nextFloat() * component.scale + component.scale,
+					(float) (rand.nextFloat() * Math.PI * 2),
+					(float) (Math.random() * component.lifetime + component.lifetime),
+					true
+			);
+
+			buffer.setLight(particle, component.lightColor, 2.5f, 0.3f);
 		}
 
 	}
@@ -4,13 +4,13 @@ import de.fe1k.game9.components.ComponentControllable;
 import de.fe1k.game9.components.ComponentKillOnCollision;
 import de.fe1k.game9.entities.Entity;
 import de.fe1k.game9.events.Event;
-import de.fe1k.game9.events.EventCollision;
+import de.fe1k.game9.events.EventCollisionBegin;
 import de.fe1k.game9.events.EventListener;
 import de.fe1k.game9.network.Network;
 
 public class SystemKillOnCollision implements GameSystem {
 
-	private EventListener<EventCollision> eventCollision;
+	private EventListener<EventCollisionBegin> eventCollision;
 
 	public SystemKillOnCollision() {
 	}
@@ -18,10 +18,10 @@ public class SystemKillOnCollision implements GameSystem {
 	@Override
 	public void start() {
 		eventCollision = this::entityCollision;
-		Event.register(EventCollision.class, eventCollision);
+		Event.register(EventCollisionBegin.class, eventCollision);
 	}
 
-	private void entityCollision(EventCollision event) {
+	private void entityCollision(EventCollisionBegin event) {
 		// only server does this logic
 		if (!Network.isStarted() || !Network.isServer()) return;
 		if (!event.obstacle.getOwner().hasComponent(ComponentKillOnCollision.class)) return;
@@ -37,6 +37,6 @@ public class SystemKillOnCollision implements GameSystem {
 
 	@Override
 	public void stop() {
-		Event.unregister(EventCollision.class, eventCollision);
+		Event.unregister(EventCollisionBegin.class, eventCollision);
 	}
 }
@@ -1,71 +1,74 @@
 package de.fe1k.game9.systems;
 
-import de.fe1k.game9.components.*;
-import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.components.ComponentParticleSystem;
 import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventEmitParticles;
 import de.fe1k.game9.events.EventListener;
-import de.fe1k.game9.events.EventUpdate;
-import de.nerogar.noise.render.deferredRenderer.DeferredRenderer;
+import de.fe1k.game9.particles.ParticleBuffer;
+import de.fe1k.game9.particles.ParticleEngine;
 import de.nerogar.noise.util.Vector2f;
 
-import java.util.Collection;
 import java.util.Random;
 
 public class SystemParticles implements GameSystem {
 
-	private DeferredRenderer           renderer;
-	private EventListener<EventUpdate> eventUpdate;
+	private ParticleEngine                    engine;
+	private EventListener<EventEmitParticles> eventEmitParticles;
+	private Random                            rand = new Random();
 
-	public SystemParticles(DeferredRenderer renderer) {
-		this.renderer = renderer;
+	public SystemParticles(ParticleEngine engine) {
+		this.engine = engine;
 	}
 
 	@Override
 	public void start() {
-		eventUpdate = this::update;
-		Event.register(EventUpdate.class, eventUpdate);
+		eventEmitParticles = this::emitParticles;
+		Event.register(EventEmitParticles.class, eventEmitParticles);
 	}
 
-	private void update(EventUpdate event) {
-		Collection<ComponentParticleSystem> components = Entity.getComponents(ComponentParticleSystem.class);
-
-		Random rand = new Random();
-
-		for (ComponentParticleSystem component : components) {
-
-			int spawns = component.getSpawnCount(rand, event.deltaTime);
-
-			if (spawns > 0) {
-
-				for (int pID = 0; pID < spawns; pID++) {
-					Vector2f spawnPosition = component.getOwner().getPosition().clone()
-							.add(component.offset)
-							.addX((float) (rand.nextGaussian() * component.offsetRand.getX()))
-							.addY((float) (rand.nextGaussian() * component.offsetRand.getY()));
-
-					Vector2f spawnVelocity = component.velocity.clone()
-							.addX((float) (rand.nextGaussian() * component.velocityRand.getX()))
-							.addY((float) (rand.nextGaussian() * component.velocityRand.getY()));
-
-					Vector2f spawnScale = component.scaleMin.clone()
-							.add(component.scaleRandDelta.multiplied(rand.nextFloat()));
-
-					Entity particle = Entity.spawn(spawnPosition);
-					particle.getScale().set(spawnScale);
-
-					ComponentMoving componentMoving = new ComponentMoving();
-					componentMoving.velocity.set(spawnVelocity);
-					particle.addComponent(componentMoving);
+	private void emitParticles(EventEmitParticles event) {
+		ComponentParticleSystem component = event.emitter;
+		if (component.getOwner().getComponent(ComponentParticleSystem.class) != component) {
+			return;  // emitter got removed meanwhile
+		}
 
-					particle.addComponent(new ComponentSpriteRenderer(renderer, component.sprite, 1));
+		if (!engine.isEmitterActive(component.getOwner().getPosition())) {
+			return;  // nobody would see the particles
+		}
 
-					particle.addComponent(new ComponentDespawn(component.lifetimeMin + rand.nextFloat() * component.lifetimeRand));
+		int spawns = component.getSpawnCount(rand, event.deltaTime);
+		if (spawns > 0) {
+			spawns = engine.allocate(component.priority, spawns);
+		}
 
-					if (component.hasLight) {
-						particle.addComponent(new ComponentLight(renderer, component.lightColor, component.lightReach, component.lightIntensity));
-					}
+		if (spawns > 0) {
+			ParticleBuffer buffer = engine.getBuffer(component.sprite);
+
+			for (int pID = 0; pID < spawns; pID++) {
+				Vector2f spawnPosition = component.getOwner().getPosition().clone()
+						.add(component.offset)
+						.addX((float) (rand.nextGaussian() * component.offsetRand.getX()))
+						.addY((float) (rand.nextGaussian() * component.offsetRand.getY()));
+
+				Vector2f spawnVelocity = component.velocity.clone()
+						.addX((float) (rand.nextGaussian() * component.velocityRand.getX()))
+						.addY((float) (rand.nextGaussian() * component.velocityRand.getY()));
+
+				Vector2f spawnScale = component.scaleMin.clone()
+						.add(component.scaleRandDelta.multiplied(rand.nextFloat()));
+
+				int particle = buffer.spawn(
+						spawnPosition.getX(), spawnPosition.getY(),
+						spawnVelocity.getX(), spawnVelocity.getY(),
+						spawnScale.getX(), spawnScale.getY(),
+						0,
+						component.lifetimeMin + rand.nextFloat() * component.lifetimeRand,
+						component.colliding
+				);
+
+				if (component.hasLight) {
+					buffer.setLight(particle, component.lightColor, component.lightReach, component.lightIntensity);
 				}
-
 			}
 
 		}
@@ -73,6 +76,6 @@ public class SystemParticles implements GameSystem {
 
 	@Override
 	public void stop() {
-		Event.unregister(EventUpdate.class, eventUpdate);
+		Event.unregister(EventEmitParticles.class, eventEmitParticles);
 	}
 }
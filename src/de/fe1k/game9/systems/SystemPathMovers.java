@@ -0,0 +1,210 @@
+package de.fe1k.game9.systems;
+
+import de.fe1k.game9.components.ComponentPathMovingBlock;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.events.EventListener;
+import de.fe1k.game9.map.PathGraph;
+import de.fe1k.game9.network.Network;
+import de.fe1k.game9.utils.Vector2i;
+import de.nerogar.noise.util.Logger;
+
+import java.util.*;
+
+/**
+ * Moves platforms of path-moving blocks along the paths of the map.
+ * The paths come compiled into a {@link PathGraph} with the loaded map, and the blocks are compiled into rigid platforms,
+ * so moving a platform doesn't need any lookups and only triggers a single event.
+ */
+public class SystemPathMovers implements GameSystem {
+
+	// left, right, down, up
+	private static final int[] NEIGHBOR_X = { -1, 1, 0, 0 };
+	private static final int[] NEIGHBOR_Y = { 0, 0, -1, 1 };
+
+	private static class Platform {
+
+		private Entity[]          blocks;
+		private float             speed;
+		// position of the block that started on the path
+		private float             x;
+		private float             y;
+		private int               current;
+		private int               target;
+		private boolean           forward = true;
+		private EventAddLodUpdate lodUpdate;
+	}
+
+	private EventListener<EventMapLoaded>                       eventMapLoaded                       = this::mapLoaded;
+	private EventListener<EventEntityDestroyed>                 eventEntityDestroyed                 = this::entityDestroyed;
+	private EventListener<EventEntitiesUpdatePositionNetworked> eventEntitiesUpdatePositionNetworked = this::entitiesUpdatePositionNetworked;
+
+	private PathGraph             graph;
+	private Map<Entity, Platform> platforms = new HashMap<>();
+
+	@Override
+	public void start() {
+		Event.register(EventMapLoaded.class, eventMapLoaded);
+		Event.register(EventEntityDestroyed.class, eventEntityDestroyed);
+		Event.register(EventEntitiesUpdatePositionNetworked.class, eventEntitiesUpdatePositionNetworked);
+	}
+
+	private void mapLoaded(EventMapLoaded event) {
+		new HashSet<>(platforms.values()).forEach(this::removePlatform);
+
+		graph = event.pathGraph;
+
+		Map<Vector2i, Entity> blocks = new HashMap<>();
+		for (ComponentPathMovingBlock block : Entity.getComponents(ComponentPathMovingBlock.class)) {
+			blocks.put(getCell(block.getOwner()), block.getOwner());
+		}
+		while (!blocks.isEmpty()) {
+			Vector2i start = blocks.keySet().iterator().next();
+			createPlatform(collectConnected(blocks, start));
+		}
+	}
+
+	/**
+	 * Removes all blocks connected to {@code start} from {@code blocks}.
+	 */
+	private List<Entity> collectConnected(Map<Vector2i, Entity> blocks, Vector2i start) {
+		List<Entity> connected = new ArrayList<>();
+		Queue<Vector2i> notChecked = new ArrayDeque<>();
+		connected.add(blocks.remove(start));
+		notChecked.add(start);
+		while (!notChecked.isEmpty()) {
+			Vector2i cell = notChecked.poll();
+			for (int direction = 0; direction < NEIGHBOR_X.length; direction++) {
+				Vector2i neighbor = new Vector2i(cell.getX() + NEIGHBOR_X[direction], cell.getY() + NEIGHBOR_Y[direction]);
+				Entity block = blocks.remove(neighbor);
+				if (block != null) {
+					connected.add(block);
+					notChecked.add(neighbor);
+				}
+			}
+		}
+		return connected;
+	}
+
+	private void createPlatform(List<Entity> blocks) {
+		Entity master = null;
+		int waypoint = PathGraph.NONE;
+		for (Entity block : blocks) {
+			Vector2i cell = getCell(block);
+			waypoint = graph.getWaypoint(cell.getX(), cell.getY());
+			if (waypoint != PathGraph.NONE) {
+				master = block;
+				break;
+			}
+		}
+		if (master == null) {
+			Logger.getWarningStream().println("path-moving platform did not find a path, position: " + getCell(blocks.get(0)));
+			return;
+		}
+
+		Platform platform = new Platform();
+		// the master goes first, networked updates only send its position
+		blocks.remove(master);
+		blocks.add(0, master);
+		platform.blocks = blocks.toArray(new Entity[0]);
+		platform.speed = master.getComponent(ComponentPathMovingBlock.class).speed;
+		platform.x = master.getPosition().getX();
+		platform.y = master.getPosition().getY();
+		platform.current = waypoint;
+		platform.target = waypoint;
+		platform.lodUpdate = new EventAddLodUpdate(master, update -> move(platform, update));
+		Event.trigger(platform.lodUpdate);
+		for (Entity block : blocks) {
+			platforms.put(block, platform);
+		}
+	}
+
+	private void removePlatform(Platform platform) {
+		for (Entity block : platform.blocks) {
+			platforms.remove(block);
+		}
+		Event.trigger(new EventRemoveLodUpdate(platform.lodUpdate));
+	}
+
+	private void move(Platform platform, EventUpdate event) {
+		// distant platforms move several ticks at once, so keep going past waypoints with what's left of the step
+		float step = platform.speed * event.deltaTime;
+		while (step > 0) {
+			float distX = graph.getX(platform.target) - platform.x;
+			float distY = graph.getY(platform.target) - platform.y;
+			float dist = (float) Math.sqrt(distX * distX + distY * distY);
+			if (dist > step) {
+				platform.x += distX * step / dist;
+				platform.y += distY * step / dist;
+				break;
+			}
+			platform.x = graph.getX(platform.target);
+			platform.y = graph.getY(platform.target);
+			step -= dist;
+			platform.current = platform.target;
+			setNextTarget(platform);
+			if (platform.target == platform.current) {
+				break;  // nowhere to go
+			}
+		}
+
+		Entity master = platform.blocks[0];
+		Entity.moveAll(platform.blocks, platform.x - master.getPosition().getX(), platform.y - master.getPosition().getY());
+		if (Network.isStarted() && Network.isServer()) {
+			Event.trigger(new EventEntitiesUpdatePositionNetworked(platform.blocks, master.getPosition().clone()));
+		}
+	}
+
+	/**
+	 * Continues along the path, and turns around at its ends.
+	 */
+	private void setNextTarget(Platform platform) {
+		int following = platform.forward ? graph.getNext(platform.current) : graph.getPrev(platform.current);
+		if (following == PathGraph.NONE) {
+			platform.forward = !platform.forward;
+			following = platform.forward ? graph.getNext(platform.current) : graph.getPrev(platform.current);
+		}
+		if (following == PathGraph.NONE) {
+			Logger.getWarningStream().println("path-moving platform couldn't find next position, position: "
+					                                  + graph.getX(platform.current) + ", " + graph.getY(platform.current));
+			return;
+		}
+		platform.target = following;
+	}
+
+	private void entitiesUpdatePositionNetworked(EventEntitiesUpdatePositionNetworked event) {
+		if (Network.isStarted() && !Network.isServer()) {
+			Entity first = event.entities[0];
+			for (Entity entity : event.entities) {
+				if (entity == null) {
+					Logger.log(Logger.WARNING, "Received position update for unknown entity.");
+					return;
+				}
+			}
+			Entity.moveAll(event.entities, event.to.getX() - first.getPosition().getX(), event.to.getY() - first.getPosition().getY());
+		}
+	}
+
+	private void entityDestroyed(EventEntityDestroyed event) {
+		if (Entity.getById(event.entity.getId()) != null) {
+			return;  // only a death animation, the entity is still alive
+		}
+		Platform platform = platforms.get(event.entity);
+		if (platform != null) {
+			// a platform with a missing block stops moving, the other blocks stay where they are
+			removePlatform(platform);
+		}
+	}
+
+	private static Vector2i getCell(Entity entity) {
+		return new Vector2i(Math.round(entity.getPosition().getX()), Math.round(entity.getPosition().getY()));
+	}
+
+	@Override
+	public void stop() {
+		Event.unregister(EventMapLoaded.class, eventMapLoaded);
+		Event.unregister(EventEntityDestroyed.class, eventEntityDestroyed);
+		Event.unregister(EventEntitiesUpdatePositionNetworked.class, eventEntitiesUpdatePositionNetworked);
+		new HashSet<>(platforms.values()).forEach(this::removePlatform);
+	}
+}
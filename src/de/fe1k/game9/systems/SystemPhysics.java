@@ -3,41 +3,189 @@ package de.fe1k.game9.systems;
 import de.fe1k.game9.components.ComponentBounding;
 import de.fe1k.game9.components.ComponentMoving;
 import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.entities.SpatialQuery;
 import de.fe1k.game9.events.*;
 import de.fe1k.game9.events.EventListener;
+import de.fe1k.game9.map.ChunkStreamer;
 import de.fe1k.game9.network.Network;
+import de.fe1k.game9.utils.BatchIntegrator;
 import de.fe1k.game9.utils.Bounding;
 import de.fe1k.game9.utils.Direction;
+import de.fe1k.game9.utils.Vector2i;
 import de.nerogar.noise.util.Logger;
 import de.nerogar.noise.util.Vector2f;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 public class SystemPhysics implements GameSystem {
 
 	public static final Vector2f GRAVITY = new Vector2f(0f, -100);  // feels more responsive!
 
+	// bodies resting on something slower than this for SLEEP_TICKS ticks are taken out of the simulation
+	private static final float SLEEP_VELOCITY = 0.05f;
+	private static final int   SLEEP_TICKS    = 30;
+
+	// continuous bodies moving further than this per tick get their movement split up, if they would hit something
+	private static final float MAX_STEP     = 0.5f;
+	private static final int   MAX_SUBSTEPS = 16;
+
+	// bodies get split into square regions of this size, which are computed in parallel
+	private static final int REGION_SIZE        = 32;
+	private static final int PARALLEL_THRESHOLD = 256;
+	// how many cells around its movement a body's step may look at, including what collisions push it by
+	private static final int REACH              = 2;
+
+	private static class StepResult {
+
+		private final Vector2f             position;
+		private final Vector2f             velocity;
+		private final List<EventCollision> collisions;
+
+		private StepResult(Vector2f position, Vector2f velocity, List<EventCollision> collisions) {
+			this.position = position;
+			this.velocity = velocity;
+			this.collisions = collisions;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			StepResult that = (StepResult) o;
+			if (!position.equals(that.position) || !velocity.equals(that.velocity) || collisions.size() != that.collisions.size()) {
+				return false;
+			}
+			for (int i = 0; i < collisions.size(); i++) {
+				if (collisions.get(i).obstacle != that.collisions.get(i).obstacle
+						|| collisions.get(i).collisionDirection != that.collisions.get(i).collisionDirection) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return position.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "StepResult{" +
+					"position=" + position +
+					", velocity=" + velocity +
+					", collisions=" + collisions.size() +
+					'}';
+		}
+	}
+
+	/**
+	 * Collects the boundings a body might collide with, sorted by their distance to the body.
+	 * Reused for every body, so the query allocates nothing.
+	 */
+	private static class ColliderCollector implements SpatialQuery.EntityVisitor, Comparator<ComponentBounding> {
+
+		private final List<ComponentBounding> colliders = new ArrayList<>();
+		private       ComponentBounding       bounding;
+		private       float                   x;
+		private       float                   y;
+
+		@Override
+		public boolean visit(Entity candidate) {
+			ComponentBounding otherBounding = candidate.getComponent(ComponentBounding.class);
+			if (otherBounding == null) {
+				return true;  // must have bounding
+			}
+			if (otherBounding.equals(bounding)) {
+				return true;  // no self collisions please
+			}
+			if ((bounding.layerSelf & otherBounding.layerCollides) == 0) {
+				return true;  // boundings' layers must allow collision
+			}
+			colliders.add(otherBounding);
+			return true;
+		}
+
+		@Override
+		public int compare(ComponentBounding o1, ComponentBounding o2) {
+			return (int) Math.signum(getDistanceSquared(o1) - getDistanceSquared(o2));
+		}
+
+		private float getDistanceSquared(ComponentBounding other) {
+			float distX = other.getOwner().getPosition().getX() - x;
+			float distY = other.getOwner().getPosition().getY() - y;
+			return distX * distX + distY * distY;
+		}
+	}
+
+	private static class Contact {
+
+		private Direction direction;
+		private int       ticks;
+		private long      lastTick;
+
+		private Contact(Direction direction) {
+			this.direction = direction;
+		}
+	}
+
 	private boolean physicsEnabled    = true;
 	private boolean collisionsEnabled = true;
+	private boolean parallelEnabled   = true;
+	private boolean verifyEnabled     = false;
+
+	private final ChunkStreamer chunkStreamer;
+
+	private ExecutorService pool;
+	// one collector per thread, as bodies may be computed on the pool's threads
+	private ThreadLocal<ColliderCollector> colliderCollector = ThreadLocal.withInitial(ColliderCollector::new);
 
 	private EventListener<EventUpdate>           eventUpdate           = this::update;
-	private EventListener<EventTogglePhysics>    eventTogglePhysics    = event -> physicsEnabled = event.enabled;
+	private EventListener<EventTogglePhysics>    eventTogglePhysics    = this::togglePhysics;
 	private EventListener<EventToggleCollisions> eventToggleCollisions = event -> collisionsEnabled = event.enabled;
 
+	private EventListener<EventToggleParallelPhysics> eventToggleParallelPhysics = event -> parallelEnabled = event.enabled;
+	private EventListener<EventToggleVerifyPhysics>   eventToggleVerifyPhysics   = event -> verifyEnabled = event.enabled;
+
 	private EventListener<EventEntityMoved>                   eventEntityMoved                   = this::entityMoved;
+	private EventListener<EventEntitiesMoved>                 eventEntitiesMoved                 = this::entitiesMoved;
 	private EventListener<EventEntityUpdatePositionNetworked> eventEntityUpdatePositionNetworked = this::entityUpdatePositionNetworked;
+	private EventListener<EventEntityDestroyed>               eventEntityDestroyed               = this::entityDestroyed;
+	private EventListener<EventBodyAwake>                     eventBodyAwake                     = this::bodyAwake;
+
+	private Map<Entity, ComponentMoving> awakeBodies    = new LinkedHashMap<>();
+	private Map<Entity, ComponentMoving> sleepingBodies = new HashMap<>();
+	private List<ComponentMoving>        tickBodies     = new ArrayList<>();
+	private BatchIntegrator              freeBodies     = new BatchIntegrator(256);
+	private int[]                        freeBodyIndices = new int[0];
+	// which cell is reached by which body, to find bodies that can't affect each other
+	private Map<Long, Integer>           reachedCells   = new HashMap<>();
 
-	public SystemPhysics() {
+	// all obstacles each body touched during its last step
+	private Map<ComponentMoving, Map<ComponentBounding, Contact>> contacts = new HashMap<>();
+	private long                                                  tick;
+
+	public SystemPhysics(ChunkStreamer chunkStreamer) {
+		this.chunkStreamer = chunkStreamer;
 	}
 
 	@Override
 	public void start() {
+		pool = new ForkJoinPool();
+
 		Event.register(EventUpdate.class, eventUpdate);
 		Event.register(EventTogglePhysics.class, eventTogglePhysics);
 		Event.register(EventToggleCollisions.class, eventToggleCollisions);
+		Event.register(EventToggleParallelPhysics.class, eventToggleParallelPhysics);
+		Event.register(EventToggleVerifyPhysics.class, eventToggleVerifyPhysics);
 
 		Event.register(EventEntityMoved.class, eventEntityMoved);
+		Event.register(EventEntitiesMoved.class, eventEntitiesMoved);
 		Event.register(EventEntityUpdatePositionNetworked.class, eventEntityUpdatePositionNetworked);
+		Event.register(EventEntityDestroyed.class, eventEntityDestroyed);
+		Event.register(EventBodyAwake.class, eventBodyAwake);
 	}
 
 	@Override
@@ -45,139 +193,501 @@ public class SystemPhysics implements GameSystem {
 		Event.unregister(EventUpdate.class, eventUpdate);
 		Event.unregister(EventTogglePhysics.class, eventTogglePhysics);
 		Event.unregister(EventToggleCollisions.class, eventToggleCollisions);
+		Event.unregister(EventToggleParallelPhysics.class, eventToggleParallelPhysics);
+		Event.unregister(EventToggleVerifyPhysics.class, eventToggleVerifyPhysics);
 
 		Event.unregister(EventEntityMoved.class, eventEntityMoved);
+		Event.unregister(EventEntitiesMoved.class, eventEntitiesMoved);
 		Event.unregister(EventEntityUpdatePositionNetworked.class, eventEntityUpdatePositionNetworked);
+		Event.unregister(EventEntityDestroyed.class, eventEntityDestroyed);
+		Event.unregister(EventBodyAwake.class, eventBodyAwake);
+
+		pool.shutdown();
 	}
 
 	private void update(EventUpdate event) {
 		// only server does this logic
 		if (!Network.isStarted() || !Network.isServer()) return;
-		for (ComponentMoving componentMoving : Entity.getComponents(ComponentMoving.class)) {
-			updateOne(event.deltaTime, componentMoving);
+		tick++;
+		// iterate over a copy, bodies might get woken up or put to sleep while updating
+		tickBodies.clear();
+		Iterator<ComponentMoving> bodyIter = awakeBodies.values().iterator();
+		while (bodyIter.hasNext()) {
+			ComponentMoving componentMoving = bodyIter.next();
+			if (componentMoving.getOwner().getComponent(ComponentMoving.class) != componentMoving) {
+				bodyIter.remove();  // component got removed from its entity
+				endContacts(componentMoving);
+				continue;
+			}
+			if (!chunkStreamer.isSimulated(componentMoving.getOwner().getPosition())) {
+				continue;  // frozen until the map around it is there
+			}
+			tickBodies.add(componentMoving);
+		}
+
+		// Bodies move one after another, each one seeing where the previous ones moved to.
+		// Bodies that don't collide with anything are integrated all at once beforehand. With many bodies,
+		// the steps of bodies that are too far away from all other bodies to touch them are computed in parallel
+		// beforehand too, as it doesn't matter for them whether the others have moved already.
+		StepResult[] results = integrateFreeBodies(event.deltaTime);
+		if (parallelEnabled && tickBodies.size() >= PARALLEL_THRESHOLD) {
+			boolean[] isolated = findIsolatedBodies(event.deltaTime, results);
+			StepResult[] parallelResults = computeParallel(event.deltaTime, results, isolated);
+			if (verifyEnabled) {
+				verify(parallelResults, computeSerial(event.deltaTime, results, isolated));
+			}
+			results = parallelResults;
+		}
+
+		// apply in a stable order, so events get triggered in the same order regardless of threading
+		for (int i = 0; i < tickBodies.size(); i++) {
+			if (results[i] == null) {
+				results[i] = computeStep(event.deltaTime, tickBodies.get(i));
+			}
+			applyStep(tickBodies.get(i), results[i]);
+			updateSleep(tickBodies.get(i));
 		}
 	}
 
-	private List<ComponentBounding> getPossibleColliders(ComponentBounding bounding, int x, int y) {
-		// get all entities in close proximity (assuming they are max. 1 unit big)
-		Set<Entity> possiblyCollidingSet = new HashSet<>();
-		possiblyCollidingSet.addAll(Entity.getAt(x - 1, y - 1));
-		possiblyCollidingSet.addAll(Entity.getAt(x + 0, y - 1));
-		possiblyCollidingSet.addAll(Entity.getAt(x + 1, y - 1));
-		possiblyCollidingSet.addAll(Entity.getAt(x - 1, y + 0));
-		possiblyCollidingSet.addAll(Entity.getAt(x + 0, y + 0));
-		possiblyCollidingSet.addAll(Entity.getAt(x + 1, y + 0));
-		possiblyCollidingSet.addAll(Entity.getAt(x - 1, y + 1));
-		possiblyCollidingSet.addAll(Entity.getAt(x + 0, y + 1));
-		possiblyCollidingSet.addAll(Entity.getAt(x + 1, y + 1));
-
-		List<ComponentBounding> possiblyColliding = new ArrayList<>();
-		for (Entity candidate : possiblyCollidingSet) {
-			ComponentBounding otherBounding = candidate.getComponent(ComponentBounding.class);
-			if (otherBounding == null) {
-				continue;  // must have bounding
+	/**
+	 * Finds the bodies whose steps neither depend on nor affect any other body's step this tick.
+	 * A body's step only looks at cells close to where it moves, so bodies whose reached cells don't overlap
+	 * with those of any other body get the same result whether the others have moved already or not.
+	 *
+	 * @param freeResults the steps of the free bodies, which never affect anything
+	 */
+	private boolean[] findIsolatedBodies(float deltaTime, StepResult[] freeResults) {
+		boolean[] isolated = new boolean[tickBodies.size()];
+		reachedCells.clear();
+		for (int i = 0; i < tickBodies.size(); i++) {
+			if (freeResults[i] != null) {
+				continue;
 			}
-			if (otherBounding.equals(bounding)) {
-				continue;  // no self collisions please
+			isolated[i] = true;
+			ComponentMoving comp = tickBodies.get(i);
+			Vector2f from = comp.getOwner().getPosition();
+			// where the body would move to without friction and collisions, REACH covers what collisions push it by
+			Vector2f to = from.added(comp.velocity.added(comp.gravity.multiplied(deltaTime)).multiply(deltaTime));
+			int minX = (int) Math.floor(Math.min(from.getX(), to.getX())) - REACH;
+			int minY = (int) Math.floor(Math.min(from.getY(), to.getY())) - REACH;
+			int maxX = (int) Math.floor(Math.max(from.getX(), to.getX())) + REACH;
+			int maxY = (int) Math.floor(Math.max(from.getY(), to.getY())) + REACH;
+			for (int x = minX; x <= maxX; x++) {
+				for (int y = minY; y <= maxY; y++) {
+					Integer other = reachedCells.putIfAbsent(((long) x << 32) | (y & 0xFFFFFFFFL), i);
+					if (other != null && other != i) {
+						isolated[i] = false;
+						isolated[other] = false;
+					}
+				}
+			}
+		}
+		return isolated;
+	}
+
+	/**
+	 * Computes the steps of all bodies that can't collide with anything using the batch integrator.
+	 *
+	 * @return array with the steps of all free bodies, and null for all other bodies
+	 */
+	private StepResult[] integrateFreeBodies(float deltaTime) {
+		StepResult[] results = new StepResult[tickBodies.size()];
+		freeBodies.clear();
+		if (freeBodyIndices.length < tickBodies.size()) {
+			freeBodyIndices = new int[tickBodies.size()];
+		}
+
+		for (int i = 0; i < tickBodies.size(); i++) {
+			ComponentMoving comp = tickBodies.get(i);
+			if (collisionsEnabled && comp.getOwner().hasComponent(ComponentBounding.class)) {
+				continue;
+			}
+			boolean touchingAny = false;
+			for (boolean touching : comp.touching) {
+				touchingAny |= touching;
+			}
+			Vector2f position = comp.getOwner().getPosition();
+			int index = freeBodies.add(
+					position.getX(), position.getY(),
+					comp.velocity.getX(), comp.velocity.getY(),
+					comp.gravity.getX(), comp.gravity.getY(),
+					touchingAny ? comp.friction : comp.airFriction
+			);
+			freeBodyIndices[index] = i;
+		}
+
+		if (physicsEnabled) {
+			freeBodies.integrate(deltaTime);
+		}
+
+		for (int index = 0; index < freeBodies.size(); index++) {
+			results[freeBodyIndices[index]] = new StepResult(
+					new Vector2f(freeBodies.posX[index], freeBodies.posY[index]),
+					new Vector2f(freeBodies.velX[index], freeBodies.velY[index]),
+					Collections.emptyList()
+			);
+		}
+		return results;
+	}
+
+	private StepResult[] computeSerial(float deltaTime, StepResult[] freeResults, boolean[] isolated) {
+		StepResult[] results = freeResults.clone();
+		for (int i = 0; i < tickBodies.size(); i++) {
+			if (isolated[i]) {
+				results[i] = computeStep(deltaTime, tickBodies.get(i));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Computes the steps of the isolated bodies on the thread pool, one task per region of the map.
+	 * Bodies near region borders might look at bodies of other regions, which is fine because nothing is
+	 * written while computing. The results don't depend on how bodies are assigned to regions or threads.
+	 */
+	private StepResult[] computeParallel(float deltaTime, StepResult[] freeResults, boolean[] isolated) {
+		StepResult[] results = freeResults.clone();
+
+		Map<Vector2i, List<Integer>> regions = new HashMap<>();
+		for (int i = 0; i < tickBodies.size(); i++) {
+			if (!isolated[i]) {
+				continue;
 			}
-			if ((bounding.layerCollides & otherBounding.layerSelf) == 0 || (bounding.layerSelf & otherBounding.layerCollides) == 0) {
-				continue;  // boundings' layers must allow collision
+			Vector2f position = tickBodies.get(i).getOwner().getPosition();
+			Vector2i region = new Vector2i(
+					(int) Math.floor(position.getX() / REGION_SIZE),
+					(int) Math.floor(position.getY() / REGION_SIZE)
+			);
+			regions.computeIfAbsent(region, k -> new ArrayList<>()).add(i);
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (List<Integer> region : regions.values()) {
+			tasks.add(() -> {
+				for (int i : region) {
+					results[i] = computeStep(deltaTime, tickBodies.get(i));
+				}
+				return null;
+			});
+		}
+
+		try {
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for physics workers", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
 			}
-			possiblyColliding.add(otherBounding);
+			throw new IllegalStateException(e.getCause());
 		}
+		return results;
+	}
+
+	private void verify(StepResult[] results, StepResult[] expected) {
+		for (int i = 0; i < results.length; i++) {
+			if (!Objects.equals(results[i], expected[i])) {
+				Logger.getWarningStream().println("Serial and parallel physics differ for " + tickBodies.get(i).getOwner()
+						+ ": " + expected[i] + " vs. " + results[i]);
+			}
+		}
+	}
+
+	private void updateSleep(ComponentMoving comp) {
+		boolean resting = physicsEnabled
+				&& comp.touching[Direction.DOWN.val]
+				&& comp.velocity.getSquaredValue() < SLEEP_VELOCITY * SLEEP_VELOCITY;
+		if (!resting) {
+			comp.restingTicks = 0;
+			return;
+		}
+		comp.restingTicks++;
+		if (comp.restingTicks >= SLEEP_TICKS) {
+			comp.sleep();
+			awakeBodies.remove(comp.getOwner());
+			sleepingBodies.put(comp.getOwner(), comp);
+		}
+	}
+
+	private void bodyAwake(EventBodyAwake event) {
+		if (event.body.isSleeping()) {
+			return;  // went back to sleep before this event got processed
+		}
+		sleepingBodies.remove(event.body.getOwner());
+		awakeBodies.put(event.body.getOwner(), event.body);
+	}
+
+	private void togglePhysics(EventTogglePhysics event) {
+		physicsEnabled = event.enabled;
+		if (physicsEnabled) {
+			new ArrayList<>(sleepingBodies.values()).forEach(ComponentMoving::wake);
+		}
+	}
+
+	/**
+	 * Wakes up all sleeping bodies around the given position that might collide with the given bounding.
+	 *
+	 * @param mover    the bounding that moved or vanished, or null to wake up bodies regardless of their layers
+	 * @param position the position to wake up bodies around
+	 */
+	private void wakeAround(ComponentBounding mover, Vector2f position) {
+		int x = (int) Math.floor(position.getX());
+		int y = (int) Math.floor(position.getY());
+		wakeWithin(mover, x - 1, y - 1, x + 2, y + 2);
+	}
+
+	/**
+	 * Wakes all sleeping bodies within the given cells that could be pushed by the mover.
+	 */
+	private void wakeWithin(ComponentBounding mover, int minX, int minY, int maxX, int maxY) {
+		SpatialQuery.queryAabb(minX, minY, maxX, maxY, ComponentBounding.LAYER_ALL, candidate -> {
+			ComponentMoving sleeper = sleepingBodies.get(candidate);
+			if (sleeper == null) {
+				return true;
+			}
+			ComponentBounding sleeperBounding = candidate.getComponent(ComponentBounding.class);
+			if (mover != null && sleeperBounding != null && (sleeperBounding.layerCollides & mover.layerSelf) == 0) {
+				return true;  // can't be pushed by the mover anyways
+			}
+			sleeper.wake();
+			return true;
+		});
+	}
+
+	/**
+	 * @return the boundings the given one might collide with, only valid until the next call on the same thread
+	 */
+	private List<ComponentBounding> getPossibleColliders(ComponentBounding bounding, Vector2f position) {
+		int x = (int) Math.floor(position.getX());
+		int y = (int) Math.floor(position.getY());
+
+		// get all entities in close proximity (assuming they are max. 1 unit big)
+		ColliderCollector collector = colliderCollector.get();
+		collector.colliders.clear();
+		collector.bounding = bounding;
+		collector.x = position.getX();
+		collector.y = position.getY();
+		SpatialQuery.queryAabb(x - 1, y - 1, x + 2, y + 2, SpatialQuery.getCollisionMask(bounding), collector);
 
 		// sort by distance to entity being checked. Fixes movement stuttering when moving along flat surfaces,
 		// because for example when moving on a flat ground, a neighboring bounding might think you collided with
 		// it's side because the bounding you're standing on right now didn't push you upwards yet.
-		possiblyColliding.sort((o1, o2) -> {
-			float dist1 = o1.getOwner().getPosition().subtracted(bounding.getOwner().getPosition()).getSquaredValue();
-			float dist2 = o2.getOwner().getPosition().subtracted(bounding.getOwner().getPosition()).getSquaredValue();
-			return (int) Math.signum(dist1 - dist2);
+		collector.colliders.sort(collector);
+
+		return collector.colliders;
+	}
+
+	/**
+	 * Determines into how many substeps the movement of a continuous body has to be split to not tunnel through
+	 * anything. Bodies that don't move far, or whose swept bounding doesn't hit anything, move in a single step.
+	 */
+	private int getSubsteps(ComponentBounding bounding, Vector2f from, Vector2f to) {
+		Vector2f movement = to.subtracted(from);
+		float distance = Math.max(Math.abs(movement.getX()), Math.abs(movement.getY()));
+		if (distance <= MAX_STEP) {
+			return 1;
+		}
+
+		// every cell the swept bounding might touch (assuming boundings are max. 1 unit big)
+		int minX = (int) Math.floor(Math.min(from.getX(), to.getX())) - 1;
+		int minY = (int) Math.floor(Math.min(from.getY(), to.getY())) - 1;
+		int maxX = (int) Math.floor(Math.max(from.getX(), to.getX())) + 1;
+		int maxY = (int) Math.floor(Math.max(from.getY(), to.getY())) + 1;
+
+		Bounding swept = bounding.bounding.translated(from);
+		boolean missed = SpatialQuery.queryAabb(minX, minY, maxX + 1, maxY + 1, SpatialQuery.getCollisionMask(bounding), candidate -> {
+			ComponentBounding otherBounding = candidate.getComponent(ComponentBounding.class);
+			if (otherBounding == null || otherBounding.equals(bounding) || (bounding.layerSelf & otherBounding.layerCollides) == 0) {
+				return true;
+			}
+			return !swept.getTimeOfImpact(otherBounding.getTranslatedBounding(), movement).isPresent();
 		});
+		return missed ? 1 : Math.min((int) Math.ceil(distance / MAX_STEP), MAX_SUBSTEPS);
+	}
+
+	/**
+	 * Moves a bounding from one position to another and pushes it out of everything it collides with at the target.
+	 *
+	 * @param comp              the moving body
+	 * @param boundingComponent the body's bounding
+	 * @param from              where the body moves from
+	 * @param newPosition       where the body moves to, gets modified to the resolved position
+	 * @param collisions        list to add the collisions to, one per obstacle
+	 */
+	private void resolveCollisions(ComponentMoving comp, ComponentBounding boundingComponent, Vector2f from, Vector2f newPosition, List<EventCollision> collisions) {
+		List<ComponentBounding> possiblyColliding = getPossibleColliders(boundingComponent, from);
 
-		return possiblyColliding;
+		for (ComponentBounding colliding : possiblyColliding) {
+			Bounding bounding = boundingComponent.bounding.translated(new Vector2f(newPosition.getX(), newPosition.getY()));
+			Bounding otherBounding = colliding.getTranslatedBounding();
+			Vector2f deltaMoved = newPosition.subtracted(from);
+			Optional<Vector2f> escape = bounding.getEscapeVector(otherBounding);
+			if (!escape.isPresent()) {
+				continue;  // no collision
+			}
+			Vector2f escapeVector = escape.get();
+			/* Determine whether the collision happened in horizontal direction (left and right sides touching),
+			 * or not (top and bottom touching):
+			 * 1.) If the delta movement and the escape vector point in the same direction in either dimension,
+			 *     assume the collision is orthogonal to that.
+			 * 2.) If the delta movement's (positive) slope is steeper than the escape vector's (positive)
+			 *     slope, the collision was vertical, otherwise horizontal.
+			 *     This can also be expressed as whether slope1/slope2 has an incline of > 100%
+			 *     (aka the x component is bigger than the y-component).
+			 */
+			boolean horizontal;
+			if (deltaMoved.getX() * escapeVector.getX() > 0) {
+				horizontal = false;  // collision "from inside", can't be horizontal
+			} else if (deltaMoved.getY() * escapeVector.getY() > 0) {
+				horizontal = true;  // collision "from inside", can't be vertical
+			} else {
+				horizontal = Math.abs(deltaMoved.getX() / escapeVector.getX())
+						> Math.abs(deltaMoved.getY() / escapeVector.getY());
+			}
+			Direction collisionDirection;
+			if (horizontal) {
+				escapeVector.setY(0);
+				collisionDirection = escapeVector.getX() < 0 ? Direction.RIGHT : Direction.LEFT;
+			} else {
+				escapeVector.setX(0);
+				collisionDirection = escapeVector.getY() < 0 ? Direction.UP : Direction.DOWN;
+			}
+			if (collisions.stream().noneMatch(collision -> collision.obstacle == colliding)) {
+				collisions.add(new EventCollision(comp, colliding, collisionDirection));
+			}
+			newPosition.add(escapeVector);
+		}
 	}
 
-	private void updateOne(float deltaTime, ComponentMoving comp) {
+	/**
+	 * Computes where a body moves to within this tick. Must not modify anything, because it might run on any thread.
+	 */
+	private StepResult computeStep(float deltaTime, ComponentMoving comp) {
 		Entity entity = comp.getOwner();
-		// work on copy of position, and trigger a moved event at the end
-		Vector2f newPosition = comp.getOwner().getPosition().clone();
-		// reset all touching flags now and set them again if a collision happened
+		// work on copy of position and velocity, they get applied after all bodies are computed
+		Vector2f newPosition = entity.getPosition().clone();
+		Vector2f velocity = comp.velocity.clone();
 		boolean touchingAny = false;
-		for (int i = 0; i < comp.touching.length; i++) {
-			if (comp.touching[i]) {
-				touchingAny = true;
-			}
-			comp.touching[i] = false;
+		for (boolean touching : comp.touching) {
+			touchingAny |= touching;
 		}
 
 		// apply forces
 		if (physicsEnabled) {
-			comp.velocity.add(comp.gravity.multiplied(deltaTime));
+			velocity.add(comp.gravity.multiplied(deltaTime));
 			float friction = touchingAny ? comp.friction : comp.airFriction;
-			comp.velocity.multiply(1 - (friction * deltaTime));
-			newPosition.add(comp.velocity.multiplied(deltaTime));
+			velocity.multiply(1 - (friction * deltaTime));
+			newPosition.add(velocity.multiplied(deltaTime));
 		}
 
 		// continue with collision detection
 		List<EventCollision> collisions = new ArrayList<>();
 		ComponentBounding boundingComponent = entity.getComponent(ComponentBounding.class);
 		if (boundingComponent != null && collisionsEnabled) {
-			int x = (int) Math.floor(entity.getPosition().getX());
-			int y = (int) Math.floor(entity.getPosition().getY());
-
-			List<ComponentBounding> possiblyColliding = getPossibleColliders(boundingComponent, x, y);
-
-			for (ComponentBounding colliding : possiblyColliding) {
-				Bounding bounding = boundingComponent.bounding.translated(new Vector2f(newPosition.getX(), newPosition.getY()));
-				Bounding otherBounding = colliding.getTranslatedBounding();
-				Vector2f deltaMoved = newPosition.subtracted(entity.getPosition());
-				Optional<Vector2f> escape = bounding.getEscapeVector(otherBounding);
-				if (!escape.isPresent()) {
-					continue;  // no collision
-				}
-				Vector2f escapeVector = escape.get();
-				/* Determine whether the collision happened in horizontal direction (left and right sides touching),
-  				 * or not (top and bottom touching):
- 				 * 1.) If the delta movement and the escape vector point in the same direction in either dimension,
- 				 *     assume the collision is orthogonal to that.
- 				 * 2.) If the delta movement's (positive) slope is steeper than the escape vector's (positive)
- 				 *     slope, the collision was vertical, otherwise horizontal.
- 				 *     This can also be expressed as whether slope1/slope2 has an incline of > 100%
- 				 *     (aka the x component is bigger than the y-component).
-				 */
-				boolean horizontal;
-				if (deltaMoved.getX() * escapeVector.getX() > 0) {
-					horizontal = false;  // collision "from inside", can't be horizontal
-				} else if (deltaMoved.getY() * escapeVector.getY() > 0) {
-					horizontal = true;  // collision "from inside", can't be vertical
-				} else {
-					horizontal = Math.abs(deltaMoved.getX() / escapeVector.getX())
-							> Math.abs(deltaMoved.getY() / escapeVector.getY());
-				}
-				Direction collisionDirection;
-				if (horizontal) {
-					escapeVector.setY(0);
-					collisionDirection = escapeVector.getX() < 0 ? Direction.RIGHT : Direction.LEFT;
-				} else {
-					escapeVector.setX(0);
-					collisionDirection = escapeVector.getY() < 0 ? Direction.UP : Direction.DOWN;
+			Vector2f from = entity.getPosition().clone();
+			int substeps = comp.continuous ? getSubsteps(boundingComponent, from, newPosition) : 1;
+			if (substeps == 1) {
+				resolveCollisions(comp, boundingComponent, from, newPosition, collisions);
+			} else {
+				Vector2f step = newPosition.subtracted(from).multiply(1f / substeps);
+				for (int i = 0; i < substeps; i++) {
+					Vector2f target = from.added(step);
+					int collisionsBefore = collisions.size();
+					resolveCollisions(comp, boundingComponent, from, target, collisions);
+					// don't keep moving into whatever got hit, but keep sliding along it
+					for (int c = collisionsBefore; c < collisions.size(); c++) {
+						if (collisions.get(c).collisionDirection.isHorizontal()) {
+							step.setX(0);
+						} else {
+							step.setY(0);
+						}
+					}
+					from = target;
 				}
-				collisions.add(new EventCollision(comp, colliding, collisionDirection));
-				newPosition.add(escapeVector);
+				newPosition = from;
 			}
 		}
 
-		// apply the changes
-		entity.teleport(newPosition);
 		for (EventCollision collision : collisions) {
-			comp.touching[collision.collisionDirection.val] = true;
 			if (collision.collisionDirection.isHorizontal()) {
-				comp.velocity.setX(0);
+				velocity.setX(0);
 			} else {
-				comp.velocity.setY(0);
+				velocity.setY(0);
 			}
-			Event.trigger(collision);
+		}
+		return new StepResult(newPosition, velocity, collisions);
+	}
+
+	private void applyStep(ComponentMoving comp, StepResult step) {
+		// reset all touching flags now and set them again if a collision happened
+		Arrays.fill(comp.touching, false);
+		comp.velocity.set(step.velocity);
+		comp.getOwner().teleport(step.position);
+		for (EventCollision collision : step.collisions) {
+			comp.touching[collision.collisionDirection.val] = true;
+			if (comp.reportCollisions) {
+				Event.trigger(collision);
+			}
+		}
+		updateContacts(comp, step.collisions);
+	}
+
+	/**
+	 * Compares the collisions of a step with the contacts of the previous step
+	 * and triggers begin, stay and end events accordingly.
+	 */
+	private void updateContacts(ComponentMoving comp, List<EventCollision> collisions) {
+		Map<ComponentBounding, Contact> bodyContacts = contacts.get(comp);
+		if (bodyContacts == null) {
+			if (collisions.isEmpty()) {
+				return;
+			}
+			bodyContacts = new LinkedHashMap<>();
+			contacts.put(comp, bodyContacts);
+		}
+
+		for (EventCollision collision : collisions) {
+			Contact contact = bodyContacts.get(collision.obstacle);
+			if (contact != null && contact.direction == collision.collisionDirection) {
+				contact.ticks++;
+				if (comp.stayInterval > 0 && contact.ticks % comp.stayInterval == 0) {
+					Event.trigger(new EventCollisionStay(comp, collision.obstacle, contact.direction, contact.ticks));
+				}
+			} else {
+				// hitting the same obstacle from another side counts as a new contact
+				if (contact != null) {
+					Event.trigger(new EventCollisionEnd(comp, collision.obstacle, contact.direction));
+				}
+				contact = new Contact(collision.collisionDirection);
+				bodyContacts.put(collision.obstacle, contact);
+				Event.trigger(new EventCollisionBegin(comp, collision.obstacle, contact.direction));
+			}
+			contact.lastTick = tick;
+		}
+
+		Iterator<Map.Entry<ComponentBounding, Contact>> contactIter = bodyContacts.entrySet().iterator();
+		while (contactIter.hasNext()) {
+			Map.Entry<ComponentBounding, Contact> entry = contactIter.next();
+			if (entry.getValue().lastTick != tick) {
+				contactIter.remove();
+				Event.trigger(new EventCollisionEnd(comp, entry.getKey(), entry.getValue().direction));
+			}
+		}
+		if (bodyContacts.isEmpty()) {
+			contacts.remove(comp);
+		}
+	}
+
+	private void endContacts(ComponentMoving comp) {
+		Map<ComponentBounding, Contact> bodyContacts = contacts.remove(comp);
+		if (bodyContacts == null) {
+			return;
+		}
+		for (Map.Entry<ComponentBounding, Contact> entry : bodyContacts.entrySet()) {
+			Event.trigger(new EventCollisionEnd(comp, entry.getKey(), entry.getValue().direction));
 		}
 	}
 
@@ -185,6 +695,57 @@ public class SystemPhysics implements GameSystem {
 		if (Network.isStarted() && Network.isServer()) {
 			Event.trigger(new EventEntityUpdatePositionNetworked(event.entity, event.to));
 		}
+		if (sleepingBodies.isEmpty()) {
+			return;
+		}
+		ComponentMoving moving = sleepingBodies.get(event.entity);
+		if (moving != null) {
+			moving.wake();  // moved by something else, e.g. teleported
+		}
+		ComponentBounding bounding = event.entity.getComponent(ComponentBounding.class);
+		if (bounding != null) {
+			wakeAround(bounding, event.from);
+			wakeAround(bounding, event.to);
+		}
+	}
+
+	private void entitiesMoved(EventEntitiesMoved event) {
+		if (sleepingBodies.isEmpty() || event.entities.length == 0) {
+			return;
+		}
+		// wake everything around the area the entities moved through at once
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for (Entity entity : event.entities) {
+			Vector2f position = entity.getPosition();
+			minX = Math.min(minX, position.getX());
+			minY = Math.min(minY, position.getY());
+			maxX = Math.max(maxX, position.getX());
+			maxY = Math.max(maxY, position.getY());
+		}
+		minX = Math.min(minX, minX - event.deltaX);
+		minY = Math.min(minY, minY - event.deltaY);
+		maxX = Math.max(maxX, maxX - event.deltaX);
+		maxY = Math.max(maxY, maxY - event.deltaY);
+		ComponentBounding mover = event.entities[0].getComponent(ComponentBounding.class);
+		wakeWithin(mover, (int) Math.floor(minX) - 1, (int) Math.floor(minY) - 1, (int) Math.floor(maxX) + 2, (int) Math.floor(maxY) + 2);
+	}
+
+	private void entityDestroyed(EventEntityDestroyed event) {
+		if (Entity.getById(event.entity.getId()) != null) {
+			return;  // only a death animation, the entity is still alive
+		}
+		ComponentMoving body = awakeBodies.remove(event.entity);
+		if (body == null) {
+			body = sleepingBodies.remove(event.entity);
+		}
+		if (body != null) {
+			endContacts(body);
+		}
+		if (!sleepingBodies.isEmpty()) {
+			// whatever the entity was, it might have been supporting a sleeping body
+			wakeAround(null, event.entity.getPosition());
+		}
 	}
 
 	private void entityUpdatePositionNetworked(EventEntityUpdatePositionNetworked event) {
@@ -0,0 +1,148 @@
+package de.fe1k.game9.systems;
+
+import de.fe1k.game9.components.ComponentPlayer;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.events.EventListener;
+import de.nerogar.noise.util.Vector2f;
+
+import java.util.*;
+
+/**
+ * Updates entities less often the further away they are from the nearest player.
+ * Each level of detail is split into as many slots as it skips ticks, and only one slot per level is updated each tick,
+ * so distant entities don't cost anything in the ticks they are skipped.
+ * LOD 0 is updated every tick with the exact delta time.
+ */
+public class SystemSimulationLod implements GameSystem {
+
+	// minimum distance to the nearest player for each LOD, and every how many ticks entities of that LOD get updated
+	private static final float[] LOD_DISTANCES  = { 0, 40, 80, 160 };
+	private static final int[]   LOD_STRIDES    = { 1, 2, 4, 8 };
+	// how often the LOD of an entity is recalculated
+	private static final int     REBUCKET_TICKS = 16;
+
+	private static class Registration {
+
+		private final EventAddLodUpdate update;
+		private int                     lod;
+		private int                     slot;
+		private double                  lastUpdate;
+		private long                    lastRebucket;
+
+		private Registration(EventAddLodUpdate update) {
+			this.update = update;
+		}
+	}
+
+	private EventListener<EventUpdate>          eventUpdate          = this::update;
+	private EventListener<EventAddLodUpdate>    eventAddLodUpdate    = this::addLodUpdate;
+	private EventListener<EventRemoveLodUpdate> eventRemoveLodUpdate = this::removeLodUpdate;
+
+	// registrations per LOD and slot
+	private List<List<Set<Registration>>>        buckets       = new ArrayList<>();
+	private Map<EventAddLodUpdate, Registration> registrations = new HashMap<>();
+	private List<Vector2f>                       players       = new ArrayList<>();
+	private List<Registration>                   due           = new ArrayList<>();
+
+	private long   tick;
+	private double time;
+
+	@Override
+	public void start() {
+		for (int stride : LOD_STRIDES) {
+			List<Set<Registration>> slots = new ArrayList<>();
+			for (int slot = 0; slot < stride; slot++) {
+				slots.add(new LinkedHashSet<>());
+			}
+			buckets.add(slots);
+		}
+		Event.register(EventUpdate.class, eventUpdate);
+		Event.register(EventAddLodUpdate.class, eventAddLodUpdate);
+		Event.register(EventRemoveLodUpdate.class, eventRemoveLodUpdate);
+	}
+
+	private void addLodUpdate(EventAddLodUpdate event) {
+		Registration registration = new Registration(event);
+		registration.lastUpdate = time;
+		registration.lastRebucket = tick;
+		registrations.put(event, registration);
+		updatePlayers();
+		insert(registration, getLod(event.entity.getPosition()));
+	}
+
+	private void removeLodUpdate(EventRemoveLodUpdate event) {
+		Registration registration = registrations.remove(event.update);
+		if (registration != null) {
+			buckets.get(registration.lod).get(registration.slot).remove(registration);
+		}
+	}
+
+	private void update(EventUpdate event) {
+		tick++;
+		time += event.deltaTime;
+		updatePlayers();
+
+		// collect first, listeners might add or remove updates
+		due.clear();
+		for (int lod = 0; lod < LOD_STRIDES.length; lod++) {
+			due.addAll(buckets.get(lod).get((int) (tick % LOD_STRIDES[lod])));
+		}
+
+		for (Registration registration : due) {
+			if (!registrations.containsKey(registration.update)) {
+				continue;  // removed by a previous listener
+			}
+			float deltaTime = registration.lod == 0 ? event.deltaTime : (float) (time - registration.lastUpdate);
+			registration.lastUpdate = time;
+			registration.update.listener.onEvent(new EventUpdate(deltaTime));
+
+			if (tick - registration.lastRebucket >= REBUCKET_TICKS) {
+				registration.lastRebucket = tick;
+				int lod = getLod(registration.update.entity.getPosition());
+				if (lod != registration.lod) {
+					buckets.get(registration.lod).get(registration.slot).remove(registration);
+					insert(registration, lod);
+				}
+			}
+		}
+	}
+
+	private void insert(Registration registration, int lod) {
+		registration.lod = lod;
+		// spread entities across the slots of their LOD, local entities have negative ids
+		registration.slot = (int) Math.floorMod(registration.update.entity.getId(), (long) LOD_STRIDES[lod]);
+		buckets.get(lod).get(registration.slot).add(registration);
+	}
+
+	private void updatePlayers() {
+		players.clear();
+		for (ComponentPlayer player : Entity.getComponents(ComponentPlayer.class)) {
+			players.add(player.getOwner().getPosition());
+		}
+	}
+
+	private int getLod(Vector2f position) {
+		if (players.isEmpty()) {
+			return 0;  // nobody to measure the distance to, so better be exact
+		}
+		float minDistanceSq = Float.POSITIVE_INFINITY;
+		for (Vector2f player : players) {
+			minDistanceSq = Math.min(minDistanceSq, player.subtracted(position).getSquaredValue());
+		}
+		int lod = 0;
+		while (lod + 1 < LOD_DISTANCES.length && minDistanceSq >= LOD_DISTANCES[lod + 1] * LOD_DISTANCES[lod + 1]) {
+			lod++;
+		}
+		return lod;
+	}
+
+	@Override
+	public void stop() {
+		Event.unregister(EventUpdate.class, eventUpdate);
+		Event.unregister(EventAddLodUpdate.class, eventAddLodUpdate);
+		Event.unregister(EventRemoveLodUpdate.class, eventRemoveLodUpdate);
+		buckets.clear();
+		registrations.clear();
+	}
+}
@@ -0,0 +1,168 @@
+package de.fe1k.game9.systems;
+
+import de.fe1k.game9.components.Component;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.*;
+import de.fe1k.game9.events.EventListener;
+import de.fe1k.game9.utils.Bounding;
+import de.fe1k.game9.utils.Direction;
+import de.fe1k.game9.utils.TriggerVolume;
+import de.fe1k.game9.utils.Vector2i;
+import de.nerogar.noise.util.Vector2f;
+
+import java.util.*;
+
+/**
+ * Keeps track of trigger volumes and fires them when a tagged entity moves into them.
+ * Only entities that move get checked, and only against triggers near them,
+ * so waiting triggers don't cost anything per tick.
+ */
+public class SystemTriggers implements GameSystem {
+
+	// boxes get registered in every cell of this size they overlap
+	private static final int CELL_SIZE = 8;
+
+	private static class TriggerIndex {
+
+		private Map<Vector2i, List<EventAddTrigger>>             boxes      = new HashMap<>();
+		// half-planes per direction, sorted by their border
+		private List<NavigableMap<Float, List<EventAddTrigger>>> halfPlanes = new ArrayList<>();
+
+		private TriggerIndex() {
+			for (int i = 0; i < Direction.values().length; i++) {
+				halfPlanes.add(new TreeMap<>());
+			}
+		}
+
+		private boolean isEmpty() {
+			return boxes.isEmpty() && halfPlanes.stream().allMatch(Map::isEmpty);
+		}
+	}
+
+	private Map<Class<? extends Component>, TriggerIndex> indices = new HashMap<>();
+
+	private EventListener<EventAddTrigger>    eventAddTrigger    = this::addTrigger;
+	private EventListener<EventRemoveTrigger> eventRemoveTrigger = event -> removeTrigger(event.trigger);
+	private EventListener<EventEntityMoved>   eventEntityMoved   = event -> entityMoved(event.entity, event.to);
+	private EventListener<EventEntitiesMoved> eventEntitiesMoved = this::entitiesMoved;
+
+	@Override
+	public void start() {
+		Event.register(EventAddTrigger.class, eventAddTrigger);
+		Event.register(EventRemoveTrigger.class, eventRemoveTrigger);
+		Event.register(EventEntityMoved.class, eventEntityMoved);
+		Event.register(EventEntitiesMoved.class, eventEntitiesMoved);
+	}
+
+	private void addTrigger(EventAddTrigger trigger) {
+		// entities might already be inside
+		for (Component component : Entity.getComponents(trigger.tag)) {
+			if (trigger.volume.contains(component.getOwner().getPosition())) {
+				trigger.callback.call(component.getOwner());
+				return;
+			}
+		}
+
+		TriggerIndex index = indices.computeIfAbsent(trigger.tag, k -> new TriggerIndex());
+		TriggerVolume volume = trigger.volume;
+		if (volume.isHalfPlane()) {
+			index.halfPlanes.get(volume.getDirection().val)
+					.computeIfAbsent(volume.getBorder(), k -> new ArrayList<>())
+					.add(trigger);
+		} else {
+			Bounding bounding = volume.getBounding();
+			for (int x = getCell(bounding.getMin().getX()); x <= getCell(bounding.getMax().getX()); x++) {
+				for (int y = getCell(bounding.getMin().getY()); y <= getCell(bounding.getMax().getY()); y++) {
+					index.boxes.computeIfAbsent(new Vector2i(x, y), k -> new ArrayList<>()).add(trigger);
+				}
+			}
+		}
+	}
+
+	private void removeTrigger(EventAddTrigger trigger) {
+		TriggerIndex index = indices.get(trigger.tag);
+		if (index == null) {
+			return;
+		}
+		TriggerVolume volume = trigger.volume;
+		if (volume.isHalfPlane()) {
+			NavigableMap<Float, List<EventAddTrigger>> halfPlanes = index.halfPlanes.get(volume.getDirection().val);
+			List<EventAddTrigger> triggers = halfPlanes.get(volume.getBorder());
+			if (triggers != null) {
+				triggers.remove(trigger);
+				if (triggers.isEmpty()) {
+					halfPlanes.remove(volume.getBorder());
+				}
+			}
+		} else {
+			Bounding bounding = volume.getBounding();
+			for (int x = getCell(bounding.getMin().getX()); x <= getCell(bounding.getMax().getX()); x++) {
+				for (int y = getCell(bounding.getMin().getY()); y <= getCell(bounding.getMax().getY()); y++) {
+					Vector2i cell = new Vector2i(x, y);
+					List<EventAddTrigger> triggers = index.boxes.get(cell);
+					if (triggers != null) {
+						triggers.remove(trigger);
+						if (triggers.isEmpty()) {
+							index.boxes.remove(cell);
+						}
+					}
+				}
+			}
+		}
+		if (index.isEmpty()) {
+			indices.remove(trigger.tag);
+		}
+	}
+
+	private void entitiesMoved(EventEntitiesMoved event) {
+		for (Entity entity : event.entities) {
+			entityMoved(entity, entity.getPosition());
+		}
+	}
+
+	private void entityMoved(Entity entity, Vector2f to) {
+		if (indices.isEmpty()) {
+			return;
+		}
+		List<EventAddTrigger> fired = new ArrayList<>();
+		for (Map.Entry<Class<? extends Component>, TriggerIndex> entry : indices.entrySet()) {
+			if (entity.hasComponent(entry.getKey())) {
+				collectTriggers(entry.getValue(), to, fired);
+			}
+		}
+		// remove all first, callbacks might add new triggers
+		fired.forEach(this::removeTrigger);
+		for (EventAddTrigger trigger : fired) {
+			trigger.callback.call(entity);
+		}
+	}
+
+	private void collectTriggers(TriggerIndex index, Vector2f position, List<EventAddTrigger> fired) {
+		index.halfPlanes.get(Direction.UP.val).headMap(position.getY(), false).values().forEach(fired::addAll);
+		index.halfPlanes.get(Direction.RIGHT.val).headMap(position.getX(), false).values().forEach(fired::addAll);
+		index.halfPlanes.get(Direction.DOWN.val).tailMap(position.getY(), false).values().forEach(fired::addAll);
+		index.halfPlanes.get(Direction.LEFT.val).tailMap(position.getX(), false).values().forEach(fired::addAll);
+
+		List<EventAddTrigger> boxes = index.boxes.get(new Vector2i(getCell(position.getX()), getCell(position.getY())));
+		if (boxes != null) {
+			for (EventAddTrigger trigger : boxes) {
+				if (trigger.volume.contains(position)) {
+					fired.add(trigger);
+				}
+			}
+		}
+	}
+
+	private static int getCell(float coordinate) {
+		return (int) Math.floor(coordinate / CELL_SIZE);
+	}
+
+	@Override
+	public void stop() {
+		Event.unregister(EventAddTrigger.class, eventAddTrigger);
+		Event.unregister(EventRemoveTrigger.class, eventRemoveTrigger);
+		Event.unregister(EventEntityMoved.class, eventEntityMoved);
+		Event.unregister(EventEntitiesMoved.class, eventEntitiesMoved);
+		indices.clear();
+	}
+}
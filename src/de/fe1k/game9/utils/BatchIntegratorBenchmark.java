@@ -0,0 +1,70 @@
+package de.fe1k.game9.utils;
+
+import de.nerogar.noise.util.Vector2f;
+
+import java.util.Random;
+
+/**
+ * Compares integrating bodies one by one using {@code Vector2f} with integrating them as packed arrays in a {@link BatchIntegrator}.
+ * Usage: {@code BatchIntegratorBenchmark}
+ */
+public class BatchIntegratorBenchmark {
+
+	private static final int   BODIES     = 100_000;
+	private static final int   ITERATIONS = 500;
+	private static final int   WARMUP     = 100;
+	private static final float DELTA_TIME = 1f / 60f;
+
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		Vector2f[] positions = new Vector2f[BODIES];
+		Vector2f[] velocities = new Vector2f[BODIES];
+		Vector2f gravity = new Vector2f(0, -20);
+		float friction = 0.5f;
+		BatchIntegrator batch = new BatchIntegrator(BODIES);
+		for (int i = 0; i < BODIES; i++) {
+			float x = random.nextFloat() * 100;
+			float y = random.nextFloat() * 100;
+			float vx = random.nextFloat() * 10 - 5;
+			float vy = random.nextFloat() * 10 - 5;
+			positions[i] = new Vector2f(x, y);
+			velocities[i] = new Vector2f(vx, vy);
+			batch.add(x, y, vx, vy, gravity.getX(), gravity.getY(), friction);
+		}
+
+		for (int i = 0; i < WARMUP; i++) {
+			integrateObjects(positions, velocities, gravity, friction);
+			batch.integrate(DELTA_TIME);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			integrateObjects(positions, velocities, gravity, friction);
+		}
+		long objects = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			batch.integrate(DELTA_TIME);
+		}
+		long packed = System.nanoTime() - start;
+
+		for (int i = 0; i < BODIES; i++) {
+			if (positions[i].getX() != batch.posX[i] || positions[i].getY() != batch.posY[i]) {
+				throw new IllegalStateException("Results differ for body " + i);
+			}
+		}
+
+		System.out.printf("Vector2f: %.2f ms/iteration%n", objects / 1e6 / ITERATIONS);
+		System.out.printf("packed:   %.2f ms/iteration%n", packed / 1e6 / ITERATIONS);
+		System.out.printf("speedup:  %.2fx%n", (double) objects / packed);
+	}
+
+	private static void integrateObjects(Vector2f[] positions, Vector2f[] velocities, Vector2f gravity, float friction) {
+		for (int i = 0; i < positions.length; i++) {
+			velocities[i].add(gravity.multiplied(DELTA_TIME));
+			velocities[i].multiply(1 - (friction * DELTA_TIME));
+			positions[i].add(velocities[i].multiplied(DELTA_TIME));
+		}
+	}
+}
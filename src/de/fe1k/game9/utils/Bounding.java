@@ -52,6 +52,39 @@ public class Bounding {
 		return Optional.of(escape);
 	}
 
+	/**
+	 * Sweeps this bounding along a movement and determines when it first touches another bounding.
+	 *
+	 * @param bounding the other, stationary bounding
+	 * @param movement the movement of this bounding
+	 * @return fraction of the movement (0 to 1) after which the boundings touch, 0 if they already overlap,
+	 * or empty if they don't touch during the movement
+	 */
+	public Optional<Float> getTimeOfImpact(Bounding bounding, Vector2f movement) {
+		float[] timesX = getEntryExitTimes(getMin().getX(), getMax().getX(), bounding.getMin().getX(), bounding.getMax().getX(), movement.getX());
+		float[] timesY = getEntryExitTimes(getMin().getY(), getMax().getY(), bounding.getMin().getY(), bounding.getMax().getY(), movement.getY());
+		if (timesX == null || timesY == null) {
+			return Optional.empty();  // never overlapping on one of the axes
+		}
+		float entry = Math.max(timesX[0], timesY[0]);
+		float exit = Math.min(timesX[1], timesY[1]);
+		if (entry > exit || entry > 1 || exit <= 0) {
+			return Optional.empty();
+		}
+		return Optional.of(Math.max(entry, 0));
+	}
+
+	private static float[] getEntryExitTimes(float min, float max, float otherMin, float otherMax, float movement) {
+		if (movement > 0) {
+			return new float[] { (otherMin - max) / movement, (otherMax - min) / movement };
+		} else if (movement < 0) {
+			return new float[] { (otherMax - min) / movement, (otherMin - max) / movement };
+		} else if (max > otherMin && min < otherMax) {
+			return new float[] { Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY };
+		}
+		return null;
+	}
+
 	public Bounding translated(Vector2f pos) {
 		return new Bounding(min.added(pos), max.added(pos));
 	}
@@ -0,0 +1,29 @@
+package de.fe1k.game9.utils;
+
+import de.nerogar.noise.input.InputHandler;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_LAST;
+
+/**
+ * Which keys are held down, copied from the window's input handler once per frame.
+ * The input handler may only be used by the thread that polls the window, this can be read from any thread.
+ */
+public class KeyStates {
+
+	private final AtomicIntegerArray down = new AtomicIntegerArray(GLFW_KEY_LAST + 1);
+
+	/**
+	 * Copies the state of all keys, must be called by the thread that polls the window.
+	 */
+	public void capture(InputHandler inputs) {
+		for (int key = 0; key <= GLFW_KEY_LAST; key++) {
+			down.lazySet(key, inputs.isKeyDown(key) ? 1 : 0);
+		}
+	}
+
+	public boolean isKeyDown(int key) {
+		return down.get(key) != 0;
+	}
+}
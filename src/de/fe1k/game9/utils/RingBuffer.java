@@ -0,0 +1,72 @@
+package de.fe1k.game9.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue between exactly one producer thread and one consumer thread, which never locks or allocates.
+ * A full buffer rejects new items, so the producer decides whether to wait, retry later or drop them.
+ *
+ * @param <T> the type of the queued items
+ */
+public class RingBuffer<T> {
+
+	private final Object[] slots;
+	private final int      mask;
+
+	// both only ever count up. The consumer owns head, the producer owns tail
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * @param capacity the maximum number of queued items, rounded up to a power of two
+	 */
+	public RingBuffer(int capacity) {
+		int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		slots = new Object[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds an item, must only be called by the producer.
+	 *
+	 * @return false if the buffer is full
+	 */
+	public boolean offer(T item) {
+		long t = tail.get();
+		if (t - head.get() == slots.length) {
+			return false;
+		}
+		slots[(int) (t & mask)] = item;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Removes the oldest item, must only be called by the consumer.
+	 *
+	 * @return the item, or null if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll() {
+		long h = head.get();
+		if (h == tail.get()) {
+			return null;
+		}
+		int slot = (int) (h & mask);
+		T item = (T) slots[slot];
+		slots[slot] = null;
+		head.lazySet(h + 1);
+		return item;
+	}
+
+	/**
+	 * @return the number of queued items, which may be outdated by the time it is used if called by another thread
+	 */
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+
+	public int getCapacity() {
+		return slots.length;
+	}
+}
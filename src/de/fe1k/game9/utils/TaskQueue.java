@@ -0,0 +1,34 @@
+package de.fe1k.game9.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Lets any thread hand work to the thread that owns some state, which runs it at a point where that's safe.
+ * Tasks run in the order they were submitted.
+ */
+public class TaskQueue {
+
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+	public void submit(Runnable task) {
+		tasks.add(task);
+	}
+
+	/**
+	 * Runs all tasks that were submitted so far, must only be called by the owning thread.
+	 */
+	public void runAll() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	/**
+	 * Drops all tasks that haven't run yet.
+	 */
+	public void clear() {
+		tasks.clear();
+	}
+}
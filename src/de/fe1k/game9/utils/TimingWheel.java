@@ -0,0 +1,175 @@
+package de.fe1k.game9.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, which schedules and cancels timers in constant time.
+ * Time is measured in integer ticks. Each level has {@value #SLOTS} slots, and every slot of a level
+ * covers as many ticks as the whole level below it. Timers are put into the lowest level that reaches their deadline
+ * and move down a level whenever the wheel below has completed a full turn, until they expire from level 0.
+ * Deadlines further away than the highest level reaches are parked in it and rescheduled when they come around.
+ *
+ * @param <T> the type of the payload that is handed out when a timer expires
+ */
+public class TimingWheel<T> {
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS     = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS    = 4;
+	private static final int MAX_SPAN  = (1 << (SLOT_BITS * LEVELS)) - 1;
+
+	/**
+	 * A scheduled timer, which can be cancelled until it has expired.
+	 */
+	public static class Timer<T> {
+
+		private final TimingWheel<T> wheel;
+		private final T              payload;
+		private final long           deadline;
+
+		// doubly linked within the slot, so it can be removed without searching it
+		private Timer<T> prev;
+		private Timer<T> next;
+
+		private Timer(TimingWheel<T> wheel, T payload, long deadline) {
+			this.wheel = wheel;
+			this.payload = payload;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels this timer. Does nothing if it already expired or got cancelled.
+		 *
+		 * @return true if the timer was still scheduled
+		 */
+		public boolean cancel() {
+			if (!isScheduled()) {
+				return false;
+			}
+			unlink();
+			wheel.size--;
+			return true;
+		}
+
+		public boolean isScheduled() {
+			return prev != null;
+		}
+
+		public T getPayload() {
+			return payload;
+		}
+
+		public long getDeadline() {
+			return deadline;
+		}
+
+		private void unlink() {
+			prev.next = next;
+			next.prev = prev;
+			prev = null;
+			next = null;
+		}
+	}
+
+	// one sentinel per slot, the timers of a slot form a ring with it
+	private final Timer<T>[][] slots;
+
+	private long currentTick;
+	private int  size;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public TimingWheel(long startTick) {
+		currentTick = startTick;
+		slots = new Timer[LEVELS][SLOTS];
+		for (Timer<T>[] level : slots) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				Timer<T> sentinel = new Timer<>(this, null, 0);
+				sentinel.prev = sentinel;
+				sentinel.next = sentinel;
+				level[slot] = sentinel;
+			}
+		}
+	}
+
+	/**
+	 * Schedules a timer to expire at the given tick.
+	 * Deadlines that are not in the future expire with the next tick.
+	 *
+	 * @return the handle to cancel the timer with
+	 */
+	public Timer<T> schedule(long deadline, T payload) {
+		Timer<T> timer = new Timer<>(this, payload, Math.max(deadline, currentTick + 1));
+		insert(timer);
+		size++;
+		return timer;
+	}
+
+	/**
+	 * Advances the wheel tick by tick up to the given tick and hands the payload of every expired timer to {@code expired},
+	 * in the order of their deadlines. Timers may be scheduled and cancelled from within {@code expired}.
+	 */
+	public void advance(long tick, Consumer<T> expired) {
+		while (currentTick < tick) {
+			currentTick++;
+			if (size == 0) {
+				// nothing to cascade or expire, skip ahead
+				currentTick = tick;
+				break;
+			}
+			for (int level = LEVELS - 1; level > 0; level--) {
+				if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+					cascade(level);
+				}
+			}
+			Timer<T> sentinel = slots[0][(int) (currentTick & SLOT_MASK)];
+			while (sentinel.next != sentinel) {
+				Timer<T> timer = sentinel.next;
+				timer.unlink();
+				size--;
+				expired.accept(timer.payload);
+			}
+		}
+	}
+
+	/**
+	 * Moves all timers of the current slot of a level down to the levels below.
+	 */
+	private void cascade(int level) {
+		Timer<T> sentinel = slots[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+		Timer<T> timer = sentinel.next;
+		// detach the ring first, timers parked beyond the last level might go back into this level
+		sentinel.prev = sentinel;
+		sentinel.next = sentinel;
+		while (timer != sentinel) {
+			Timer<T> next = timer.next;
+			insert(timer);
+			timer = next;
+		}
+	}
+
+	private void insert(Timer<T> timer) {
+		long deadline = Math.min(timer.deadline, currentTick + MAX_SPAN);
+		long span = deadline - currentTick;
+		int level = 0;
+		while (span >= (1L << (SLOT_BITS * (level + 1)))) {
+			level++;
+		}
+		Timer<T> sentinel = slots[level][(int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK)];
+		timer.prev = sentinel.prev;
+		timer.next = sentinel;
+		sentinel.prev.next = timer;
+		sentinel.prev = timer;
+	}
+
+	public long getCurrentTick() {
+		return currentTick;
+	}
+
+	/**
+	 * @return the number of timers that are scheduled
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,83 @@
+package de.fe1k.game9.utils;
+
+import de.nerogar.noise.util.Vector2f;
+
+/**
+ * A region of the map, either an AABB or an axis-aligned half-plane.
+ */
+public class TriggerVolume {
+
+	private final Bounding  bounding;
+	private final Direction direction;
+	private final float     border;
+
+	private TriggerVolume(Bounding bounding, Direction direction, float border) {
+		this.bounding = bounding;
+		this.direction = direction;
+		this.border = border;
+	}
+
+	/**
+	 * @param bounding the area of the volume, including its min and excluding its max
+	 * @return volume covering the bounding
+	 */
+	public static TriggerVolume box(Bounding bounding) {
+		return new TriggerVolume(bounding, null, 0);
+	}
+
+	/**
+	 * Creates a volume covering everything beyond a border, e.g. everything right of x=10.
+	 * UP means increasing y.
+	 *
+	 * @param direction the side of the border covered by the volume
+	 * @param border the x coordinate for horizontal directions, the y coordinate otherwise
+	 * @return volume covering the half-plane
+	 */
+	public static TriggerVolume halfPlane(Direction direction, float border) {
+		return new TriggerVolume(null, direction, border);
+	}
+
+	public boolean isHalfPlane() {
+		return bounding == null;
+	}
+
+	public Bounding getBounding() {
+		return bounding;
+	}
+
+	public Direction getDirection() {
+		return direction;
+	}
+
+	public float getBorder() {
+		return border;
+	}
+
+	public boolean contains(Vector2f point) {
+		if (bounding != null) {
+			return point.getX() >= bounding.getMin().getX() && point.getX() < bounding.getMax().getX()
+					&& point.getY() >= bounding.getMin().getY() && point.getY() < bounding.getMax().getY();
+		}
+		switch (direction) {
+			case UP:
+				return point.getY() > border;
+			case RIGHT:
+				return point.getX() > border;
+			case DOWN:
+				return point.getY() < border;
+			default:
+				return point.getX() < border;
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (bounding != null) {
+			return "TriggerVolume{" + bounding + '}';
+		}
+		return "TriggerVolume{" +
+				"direction=" + direction +
+				", border=" + border +
+				'}';
+	}
+}
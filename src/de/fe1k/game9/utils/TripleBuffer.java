@@ -0,0 +1,53 @@
+package de.fe1k.game9.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands the latest state from one writer thread to one reader thread without locking either of them.
+ * The writer fills the back buffer and publishes it, the reader always gets the most recently published buffer.
+ * A third buffer sits in between, so neither thread ever touches the buffer the other one is using.
+ *
+ * @param <T> the type of the buffers, which are reused instead of being created for every publish
+ */
+public class TripleBuffer<T> {
+
+	// set in the middle index when the writer published a buffer the reader hasn't taken yet
+	private static final int FRESH = 4;
+	private static final int INDEX = 3;
+
+	private final Object[]      buffers;
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private       int           back   = 0;  // only accessed by the writer
+	private       int           front  = 2;  // only accessed by the reader
+
+	public TripleBuffer(Supplier<T> factory) {
+		buffers = new Object[] { factory.get(), factory.get(), factory.get() };
+	}
+
+	/**
+	 * @return the buffer the writer may fill, until it is published
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) buffers[back];
+	}
+
+	/**
+	 * Makes the back buffer available to the reader and hands the writer a new back buffer.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * @return the most recently published buffer, which the reader may use until it calls this again
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFront() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX;
+		}
+		return (T) buffers[front];
+	}
+}
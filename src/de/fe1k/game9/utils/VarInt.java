@@ -0,0 +1,119 @@
+package de.fe1k.game9.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact encodings for networked events. Varints store 7 bits per byte, so small numbers take a single byte.
+ * The signed variants zigzag the number first, so small negative numbers stay small too.
+ */
+public class VarInt {
+
+	private static final int MAX_INT_BYTES  = 5;
+	private static final int MAX_LONG_BYTES = 10;
+
+	// the same limit as DataOutput.writeUTF, so a peer can't make us allocate more
+	public static final int MAX_STRING_BYTES = 0xFFFF;
+
+	private VarInt() {
+	}
+
+	public static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	public static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	public static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Writes an int as unsigned, negative numbers always take five bytes.
+	 */
+	public static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	public static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int i = 0; i < MAX_INT_BYTES; i++) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << (7 * i);
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("varint is longer than " + MAX_INT_BYTES + " bytes");
+	}
+
+	public static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	public static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for (int i = 0; i < MAX_LONG_BYTES; i++) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << (7 * i);
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("varlong is longer than " + MAX_LONG_BYTES + " bytes");
+	}
+
+	public static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+		writeVarInt(out, zigZag(value));
+	}
+
+	public static int readSignedVarInt(DataInput in) throws IOException {
+		return unZigZag(readVarInt(in));
+	}
+
+	public static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+		writeVarLong(out, zigZag(value));
+	}
+
+	public static long readSignedVarLong(DataInput in) throws IOException {
+		return unZigZag(readVarLong(in));
+	}
+
+	/**
+	 * Writes the string as UTF-8 after its length in bytes, at most {@link #MAX_STRING_BYTES}.
+	 */
+	public static void writeString(DataOutput out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_STRING_BYTES) {
+			throw new IOException("string is longer than " + MAX_STRING_BYTES + " bytes");
+		}
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(DataInput in) throws IOException {
+		int length = readVarInt(in);
+		if (length < 0 || length > MAX_STRING_BYTES) {
+			throw new IOException("bad string length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,55 @@
+package de.fe1k.game9.entities;
+
+import de.fe1k.game9.components.ComponentBounding;
+import de.fe1k.game9.utils.Bounding;
+import de.nerogar.noise.util.Vector2f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SpatialQueryTest {
+
+	@AfterEach
+	void tearDown() {
+		Entity.despawnAll();
+	}
+
+	private static ComponentBounding bounding() {
+		return new ComponentBounding(new Bounding(0, 0, 1, 1), ComponentBounding.LAYER_PLAYER, ComponentBounding.LAYER_ALL);
+	}
+
+	@Test
+	void removedBoundingIsNotQueried() {
+		Entity entity = Entity.spawn(new Vector2f(3, 4));
+		entity.addComponent(bounding());
+		List<Entity> found = new ArrayList<>();
+		assertEquals(1, SpatialQuery.queryCell(3, 4, ComponentBounding.LAYER_PLAYER, found));
+
+		entity.removeComponent(ComponentBounding.class);
+		found.clear();
+		assertEquals(0, SpatialQuery.queryCell(3, 4, ComponentBounding.LAYER_PLAYER, found));
+	}
+
+	@Test
+	void movedBoundingIsQueriedAtItsNewOwner() {
+		Entity first = Entity.spawn(new Vector2f(3, 4));
+		Entity second = Entity.spawn(new Vector2f(7, 8));
+		ComponentBounding bounding = bounding();
+		first.addComponent(bounding);
+		second.addComponent(bounding);
+
+		List<Entity> found = new ArrayList<>();
+		assertEquals(0, SpatialQuery.queryCell(3, 4, ComponentBounding.LAYER_PLAYER, found));
+		assertEquals(1, SpatialQuery.queryCell(7, 8, ComponentBounding.LAYER_PLAYER, found));
+		assertSame(second, found.get(0));
+
+		Entity.despawn(second.getId());
+		found.clear();
+		assertEquals(0, SpatialQuery.queryCell(7, 8, ComponentBounding.LAYER_PLAYER, found));
+	}
+}
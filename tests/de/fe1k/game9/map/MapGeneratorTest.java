@@ -0,0 +1,77 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.components.ComponentMarker;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapGeneratorTest {
+	@Test
+	void sameSeedSameMap() {
+		MapData first = MapGenerator.generate(MapGenerator.Settings.ofScale(2, 7));
+		MapData second = MapGenerator.generate(MapGenerator.Settings.ofScale(2, 7));
+		assertEquals(first.width, second.width);
+		assertEquals(first.height, second.height);
+		for (int x = 0; x < first.width; x++) {
+			for (int y = 0; y < first.height; y++) {
+				assertEquals(first.getTile(x, y), second.getTile(x, y));
+				assertEquals(first.getMarker(x, y), second.getMarker(x, y));
+			}
+		}
+	}
+
+	@Test
+	void placesFeatures() {
+		MapGenerator.Settings settings = new MapGenerator.Settings();
+		MapData map = MapGenerator.generate(settings);
+
+		Map<Tile, Integer> counts = new EnumMap<>(Tile.class);
+		int starts = 0;
+		for (int x = 0; x < map.width; x++) {
+			for (int y = 0; y < map.height; y++) {
+				assertTrue(map.getTile(x, y) != MapData.UNKNOWN);
+				Tile tile = map.getTileOrFallback(x, y);
+				if (tile != null) {
+					counts.merge(tile, 1, Integer::sum);
+				}
+				if (map.getMarker(x, y) == ComponentMarker.MARKER_START) {
+					starts++;
+				}
+			}
+		}
+		assertEquals(1, starts);
+		assertEquals(1, (int) counts.get(Tile.PLAYER));
+		assertEquals(settings.lava, (int) counts.get(Tile.LAVA));
+		assertEquals(settings.fire, (int) counts.get(Tile.FIRE));
+		assertEquals(settings.fallingBlocks, (int) counts.get(Tile.FALLING_BLOCK));
+		assertEquals(settings.platforms * 3, (int) counts.get(Tile.PATH_MOVING_BLOCK));
+	}
+
+	@Test
+	void platformsAreOnPaths() {
+		MapData map = MapGenerator.generate(MapGenerator.Settings.ofScale(4, 1));
+		PathGraph graph = map.getPathGraph();
+		int platforms = 0;
+		for (int y = 0; y < map.height; y++) {
+			for (int x = 0; x < map.width; x++) {
+				if (map.getTileOrFallback(x, y) != Tile.PATH_MOVING_BLOCK) {
+					continue;
+				}
+				// platforms are a row of blocks, exactly one of them starts on the path
+				int onPath = 0;
+				for (; x < map.width && map.getTileOrFallback(x, y) == Tile.PATH_MOVING_BLOCK; x++) {
+					if (graph.getWaypoint(x, y) != PathGraph.NONE) {
+						onPath++;
+					}
+				}
+				assertEquals(1, onPath);
+				platforms++;
+			}
+		}
+		assertTrue(platforms > 0);
+	}
+}
@@ -0,0 +1,63 @@
+package de.fe1k.game9.map;
+
+import de.fe1k.game9.utils.Vector2i;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PathGraphTest {
+	@Test
+	void openChain() {
+		PathGraph graph = PathGraph.build(Arrays.asList(
+				new Vector2i(1, 0),
+				new Vector2i(0, 0),
+				new Vector2i(2, 0),
+				new Vector2i(2, 1)
+		));
+		int start = graph.getWaypoint(0, 0);
+		assertNotEquals(PathGraph.NONE, start);
+		assertEquals(PathGraph.NONE, graph.getPrev(start));
+
+		int second = graph.getNext(start);
+		assertEquals(graph.getWaypoint(1, 0), second);
+		int third = graph.getNext(second);
+		assertEquals(graph.getWaypoint(2, 0), third);
+		int end = graph.getNext(third);
+		assertEquals(graph.getWaypoint(2, 1), end);
+		assertEquals(PathGraph.NONE, graph.getNext(end));
+		assertEquals(third, graph.getPrev(end));
+	}
+
+	@Test
+	void loop() {
+		PathGraph graph = PathGraph.build(Arrays.asList(
+				new Vector2i(0, 0),
+				new Vector2i(1, 0),
+				new Vector2i(1, 1),
+				new Vector2i(0, 1)
+		));
+		int waypoint = graph.getWaypoint(0, 0);
+		for (int i = 0; i < graph.size(); i++) {
+			int next = graph.getNext(waypoint);
+			assertNotEquals(PathGraph.NONE, next);
+			assertEquals(waypoint, graph.getPrev(next));
+			waypoint = next;
+		}
+		assertEquals(graph.getWaypoint(0, 0), waypoint);
+	}
+
+	@Test
+	void separateChains() {
+		PathGraph graph = PathGraph.build(Arrays.asList(
+				new Vector2i(0, 0),
+				new Vector2i(5, 5)
+		));
+		assertEquals(2, graph.size());
+		assertEquals(PathGraph.NONE, graph.getNext(graph.getWaypoint(0, 0)));
+		assertEquals(PathGraph.NONE, graph.getPrev(graph.getWaypoint(5, 5)));
+		assertEquals(PathGraph.NONE, graph.getWaypoint(1, 0));
+	}
+}
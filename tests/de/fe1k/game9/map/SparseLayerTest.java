@@ -0,0 +1,35 @@
+package de.fe1k.game9.map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SparseLayerTest {
+	@Test
+	void mostCommonValueIsDefault() {
+		int[] dense = { 7, 7, 3, 7, 7, 9, 7, 3 };
+		SparseLayer layer = SparseLayer.compress(dense);
+		assertEquals(7, layer.getDefaultValue());
+		assertEquals(3, layer.size());
+		for (int cell = 0; cell < dense.length; cell++) {
+			assertEquals(dense[cell], layer.get(cell));
+		}
+	}
+
+	@Test
+	void givenDefault() {
+		int[] dense = { -1, -1, 5, 5, 5 };
+		SparseLayer layer = SparseLayer.compress(dense, -1);
+		assertEquals(3, layer.size());
+		for (int cell = 0; cell < dense.length; cell++) {
+			assertEquals(dense[cell], layer.get(cell));
+		}
+	}
+
+	@Test
+	void empty() {
+		SparseLayer layer = SparseLayer.compress(new int[0]);
+		assertEquals(0, layer.size());
+		assertEquals(0, layer.get(3));
+	}
+}
@@ -0,0 +1,28 @@
+package de.fe1k.game9.network;
+
+import de.fe1k.game9.utils.VarInt;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PacketNetworkedEventTest {
+	@Test
+	void rejectsOversizedPayload() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		VarInt.writeVarInt(out, 0);
+		VarInt.writeVarInt(out, Integer.MAX_VALUE);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertThrows(IOException.class, () -> new PacketNetworkedEvent().fromStream(in));
+	}
+
+	@Test
+	void rejectsOversizedEventTypeCount() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		VarInt.writeVarInt(new DataOutputStream(bytes), Integer.MAX_VALUE);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertThrows(IOException.class, () -> new PacketEventTypes().fromStream(in));
+	}
+}
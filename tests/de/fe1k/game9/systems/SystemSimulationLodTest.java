@@ -0,0 +1,50 @@
+package de.fe1k.game9.systems;
+
+import de.fe1k.game9.components.ComponentPlayer;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventAddLodUpdate;
+import de.fe1k.game9.events.EventUpdate;
+import de.nerogar.noise.util.Vector2f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SystemSimulationLodTest {
+
+	private final SystemSimulationLod system = new SystemSimulationLod();
+
+	@AfterEach
+	void tearDown() {
+		system.stop();
+		Entity.despawnAll();
+	}
+
+	@Test
+	void localEntitiesAtEveryLod() {
+		system.start();
+		Entity.spawn(new Vector2f(0, 0)).addComponent(new ComponentPlayer());
+
+		// two local entities per LOD, so both odd and even negative ids are covered
+		float[] distances = {0, 50, 100, 200};
+		int[] strides = {1, 2, 4, 8};
+		int[][] updates = new int[distances.length][2];
+		for (int lod = 0; lod < distances.length; lod++) {
+			for (int i = 0; i < 2; i++) {
+				int[] counter = updates[lod];
+				int index = i;
+				Entity entity = Entity.spawnLocal(new Vector2f(distances[lod], 0));
+				Event.trigger(new EventAddLodUpdate(entity, event -> counter[index]++));
+			}
+		}
+
+		for (int tick = 0; tick < 16; tick++) {
+			Event.trigger(new EventUpdate(0.05f));
+		}
+		for (int lod = 0; lod < distances.length; lod++) {
+			assertEquals(16 / strides[lod], updates[lod][0]);
+			assertEquals(16 / strides[lod], updates[lod][1]);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package de.fe1k.game9.systems;
+
+import de.fe1k.game9.components.ComponentFallingBlock;
+import de.fe1k.game9.components.ComponentMoving;
+import de.fe1k.game9.components.ComponentPlayer;
+import de.fe1k.game9.entities.Entity;
+import de.fe1k.game9.events.Event;
+import de.fe1k.game9.events.EventAddTrigger;
+import de.fe1k.game9.events.EventRemoveTrigger;
+import de.fe1k.game9.utils.Bounding;
+import de.fe1k.game9.utils.Direction;
+import de.fe1k.game9.utils.TriggerVolume;
+import de.nerogar.noise.util.Vector2f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SystemTriggersTest {
+
+	private final SystemTriggers system = new SystemTriggers();
+	private final List<Entity>   fired  = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		system.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		system.stop();
+		Entity.despawnAll();
+	}
+
+	private Entity spawnPlayer(float x, float y) {
+		Entity player = Entity.spawn(new Vector2f(x, y));
+		player.addComponent(new ComponentPlayer());
+		return player;
+	}
+
+	private EventAddTrigger addTrigger(TriggerVolume volume) {
+		EventAddTrigger trigger = new EventAddTrigger(volume, ComponentPlayer.class, fired::add);
+		Event.trigger(trigger);
+		return trigger;
+	}
+
+	@Test
+	void boxFiresOnceOnEnter() {
+		Entity player = spawnPlayer(0, 0);
+		addTrigger(TriggerVolume.box(new Bounding(2, 2, 4, 4)));
+
+		player.teleport(1.9f, 3);
+		assertTrue(fired.isEmpty());
+		player.teleport(2, 3);
+		assertEquals(1, fired.size());
+		assertSame(player, fired.get(0));
+
+		// triggers are one-shot, leaving and entering again doesn't fire
+		player.teleport(0, 0);
+		player.teleport(3, 3);
+		assertEquals(1, fired.size());
+	}
+
+	@Test
+	void boxMaxIsExclusive() {
+		Entity player = spawnPlayer(0, 0);
+		addTrigger(TriggerVolume.box(new Bounding(2, 2, 4, 4)));
+
+		player.teleport(4, 3);
+		player.teleport(3, 4);
+		assertTrue(fired.isEmpty());
+		player.teleport(3.9f, 3.9f);
+		assertEquals(1, fired.size());
+	}
+
+	@Test
+	void boxAcrossCells() {
+		// spans the cells on both sides of the origin, on both axes
+		Entity player = spawnPlayer(20, 20);
+		addTrigger(TriggerVolume.box(new Bounding(-10, -10, 10, 10)));
+		addTrigger(TriggerVolume.box(new Bounding(-10, -10, 10, 10)));
+
+		player.teleport(-9.5f, 9.5f);
+		assertEquals(2, fired.size());
+	}
+
+	@Test
+	void halfPlanesFireBeyondTheirBorder() {
+		Entity player = spawnPlayer(0, 0);
+		addTrigger(TriggerVolume.halfPlane(Direction.UP, 5));
+		addTrigger(TriggerVolume.halfPlane(Direction.RIGHT, 5));
+		addTrigger(TriggerVolume.halfPlane(Direction.DOWN, -5));
+		addTrigger(TriggerVolume.halfPlane(Direction.LEFT, -5));
+
+		player.teleport(5, 5);
+		player.teleport(-5, -5);
+		assertTrue(fired.isEmpty());
+		player.teleport(5.5f, 0);
+		assertEquals(1, fired.size());
+		player.teleport(-5.5f, 5.5f);
+		assertEquals(3, fired.size());
+		player.teleport(0, -5.5f);
+		assertEquals(4, fired.size());
+	}
+
+	@Test
+	void onlyNearestBordersFire() {
+		Entity player = spawnPlayer(0, 0);
+		addTrigger(TriggerVolume.halfPlane(Direction.RIGHT, 1));
+		addTrigger(TriggerVolume.halfPlane(Direction.RIGHT, 2));
+		addTrigger(TriggerVolume.halfPlane(Direction.RIGHT, 3));
+
+		player.teleport(2.5f, 0);
+		assertEquals(2, fired.size());
+		player.teleport(3.5f, 0);
+		assertEquals(3, fired.size());
+	}
+
+	@Test
+	void firesImmediatelyWhenAlreadyInside() {
+		spawnPlayer(3, 3);
+		addTrigger(TriggerVolume.box(new Bounding(2, 2, 4, 4)));
+		assertEquals(1, fired.size());
+	}
+
+	@Test
+	void onlyTaggedEntitiesFire() {
+		Entity other = Entity.spawn(new Vector2f(0, 0));
+		addTrigger(TriggerVolume.halfPlane(Direction.RIGHT, 1));
+		other.teleport(2, 0);
+		assertTrue(fired.isEmpty());
+	}
+
+	@Test
+	void removedTriggerDoesNotFire() {
+		Entity player = spawnPlayer(0, 0);
+		EventAddTrigger box = addTrigger(TriggerVolume.box(new Bounding(2, 2, 4, 4)));
+		EventAddTrigger halfPlane = addTrigger(TriggerVolume.halfPlane(Direction.RIGHT, 1));
+		Event.trigger(new EventRemoveTrigger(box));
+		Event.trigger(new EventRemoveTrigger(halfPlane));
+
+		player.teleport(3, 3);
+		assertTrue(fired.isEmpty());
+	}
+
+	@Test
+	void moveAllFires() {
+		Entity player = spawnPlayer(0, 0);
+		addTrigger(TriggerVolume.halfPlane(Direction.UP, 1));
+		Entity.moveAll(new Entity[]{player}, 0, 2);
+		assertEquals(1, fired.size());
+	}
+
+	@Test
+	void fallingBlockFallsOncePlayerPasses() {
+		Entity player = spawnPlayer(0, 0);
+		Entity block = Entity.spawn(new Vector2f(10, 5));
+		block.addComponent(new ComponentFallingBlock());
+
+		player.move(10, 0);
+		assertFalse(block.hasComponent(ComponentMoving.class));
+		player.move(0.5f, 0);
+		assertTrue(block.hasComponent(ComponentMoving.class));
+	}
+}
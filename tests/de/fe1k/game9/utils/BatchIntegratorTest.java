@@ -0,0 +1,53 @@
+package de.fe1k.game9.utils;
+
+import de.nerogar.noise.util.Vector2f;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchIntegratorTest {
+
+	private static final int   BODIES     = 1000;
+	private static final int   ITERATIONS = 60;
+	private static final float DELTA_TIME = 1f / 60f;
+
+	@Test
+	void matchesVector2f() {
+		Random random = new Random(42);
+		Vector2f[] positions = new Vector2f[BODIES];
+		Vector2f[] velocities = new Vector2f[BODIES];
+		Vector2f gravity = new Vector2f(0, -20);
+		float friction = 0.5f;
+		// starts small, so growing the arrays is covered too
+		BatchIntegrator batch = new BatchIntegrator(16);
+		for (int i = 0; i < BODIES; i++) {
+			float x = random.nextFloat() * 100;
+			float y = random.nextFloat() * 100;
+			float vx = random.nextFloat() * 10 - 5;
+			float vy = random.nextFloat() * 10 - 5;
+			positions[i] = new Vector2f(x, y);
+			velocities[i] = new Vector2f(vx, vy);
+			assertEquals(i, batch.add(x, y, vx, vy, gravity.getX(), gravity.getY(), friction));
+		}
+
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			// the same operations in the same order as SystemPhysics.computeStep
+			for (int i = 0; i < BODIES; i++) {
+				velocities[i].add(gravity.multiplied(DELTA_TIME));
+				velocities[i].multiply(1 - (friction * DELTA_TIME));
+				positions[i].add(velocities[i].multiplied(DELTA_TIME));
+			}
+			batch.integrate(DELTA_TIME);
+		}
+
+		// bit-identical, not just close
+		for (int i = 0; i < BODIES; i++) {
+			assertEquals(positions[i].getX(), batch.posX[i], 0);
+			assertEquals(positions[i].getY(), batch.posY[i], 0);
+			assertEquals(velocities[i].getX(), batch.velX[i], 0);
+			assertEquals(velocities[i].getY(), batch.velY[i], 0);
+		}
+	}
+}
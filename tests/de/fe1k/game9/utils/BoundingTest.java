@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class BoundingTest {
@@ -53,4 +54,48 @@ class BoundingTest {
 		), b2);
 	}
 
+	@Test
+	void getTimeOfImpact() {
+		Bounding b1 = new Bounding(
+				new Vector2f(0),
+				new Vector2f(1)
+		);
+		Bounding b2 = new Bounding(
+				new Vector2f(3, 0),
+				new Vector2f(4, 1)
+		);
+		Optional<Float> impact = b1.getTimeOfImpact(b2, new Vector2f(4, 0));
+		assertTrue(impact.isPresent());
+		impact.ifPresent(time -> assertEquals(0.5f, time));
+	}
+
+	@Test
+	void getTimeOfImpactThinObstacle() {
+		Bounding b1 = new Bounding(
+				new Vector2f(0, 2),
+				new Vector2f(0.1f, 2.1f)
+		);
+		Bounding b2 = new Bounding(
+				new Vector2f(0, 0),
+				new Vector2f(1, 0.75f)
+		);
+		// passes the obstacle completely within one step, never overlapping at start or end
+		assertFalse(b1.translated(new Vector2f(0, -3)).getEscapeVector(b2).isPresent());
+		assertTrue(b1.getTimeOfImpact(b2, new Vector2f(0, -3)).isPresent());
+	}
+
+	@Test
+	void getTimeOfImpactMiss() {
+		Bounding b1 = new Bounding(
+				new Vector2f(0),
+				new Vector2f(1)
+		);
+		Bounding b2 = new Bounding(
+				new Vector2f(3, 2),
+				new Vector2f(4, 3)
+		);
+		assertFalse(b1.getTimeOfImpact(b2, new Vector2f(4, 0)).isPresent());
+		assertFalse(b1.getTimeOfImpact(b2, new Vector2f(-4, 2)).isPresent());
+	}
+
 }
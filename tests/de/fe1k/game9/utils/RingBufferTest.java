@@ -0,0 +1,55 @@
+package de.fe1k.game9.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+	@Test
+	void capacityIsPowerOfTwo() {
+		assertEquals(8, new RingBuffer<Integer>(5).getCapacity());
+		assertEquals(8, new RingBuffer<Integer>(8).getCapacity());
+		assertEquals(1, new RingBuffer<Integer>(1).getCapacity());
+	}
+
+	@Test
+	void rejectsWhenFull() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4, buffer.size());
+		assertEquals(0, (int) buffer.poll());
+		assertTrue(buffer.offer(4));
+		for (int i = 1; i <= 4; i++) {
+			assertEquals(i, (int) buffer.poll());
+		}
+		assertNull(buffer.poll());
+	}
+
+	@Test
+	void concurrentKeepsOrder() throws InterruptedException {
+		RingBuffer<Integer> buffer = new RingBuffer<>(16);
+		int count = 200_000;
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < count; i++) {
+				while (!buffer.offer(i)) {
+					Thread.yield();
+				}
+			}
+		});
+		producer.start();
+		for (int expected = 0; expected < count; ) {
+			Integer item = buffer.poll();
+			if (item != null) {
+				assertEquals(expected++, (int) item);
+			}
+		}
+		producer.join();
+		assertEquals(0, buffer.size());
+	}
+}
@@ -0,0 +1,120 @@
+package de.fe1k.game9.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+	@Test
+	void expiresAtDeadline() {
+		TimingWheel<Long> wheel = new TimingWheel<>(0);
+		List<Long> expired = new ArrayList<>();
+		wheel.schedule(5, 5L);
+		wheel.schedule(70, 70L);
+		wheel.schedule(5000, 5000L);
+
+		wheel.advance(4, expired::add);
+		assertTrue(expired.isEmpty());
+		wheel.advance(5, expired::add);
+		assertEquals(Arrays.asList(5L), expired);
+		wheel.advance(69, expired::add);
+		assertEquals(1, expired.size());
+		wheel.advance(70, expired::add);
+		wheel.advance(4999, expired::add);
+		assertEquals(Arrays.asList(5L, 70L), expired);
+		wheel.advance(5000, expired::add);
+		assertEquals(Arrays.asList(5L, 70L, 5000L), expired);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void cancel() {
+		TimingWheel<Long> wheel = new TimingWheel<>(0);
+		List<Long> expired = new ArrayList<>();
+		TimingWheel.Timer<Long> timer = wheel.schedule(100, 100L);
+		wheel.schedule(100, 101L);
+
+		assertTrue(timer.cancel());
+		assertFalse(timer.cancel());
+		assertEquals(1, wheel.size());
+		wheel.advance(200, expired::add);
+		assertEquals(Arrays.asList(101L), expired);
+	}
+
+	@Test
+	void pastDeadlineExpiresWithNextTick() {
+		TimingWheel<Long> wheel = new TimingWheel<>(10);
+		List<Long> expired = new ArrayList<>();
+		wheel.schedule(3, 3L);
+
+		wheel.advance(11, expired::add);
+		assertEquals(Arrays.asList(3L), expired);
+	}
+
+	@Test
+	void beyondRange() {
+		TimingWheel<Long> wheel = new TimingWheel<>(0);
+		List<Long> expired = new ArrayList<>();
+		long deadline = (1L << 24) * 3 + 17;
+		wheel.schedule(deadline, deadline);
+
+		wheel.advance(deadline - 1, expired::add);
+		assertTrue(expired.isEmpty());
+		wheel.advance(deadline, expired::add);
+		assertEquals(Arrays.asList(deadline), expired);
+	}
+
+	@Test
+	void randomDeadlinesInOrder() {
+		Random random = new Random(42);
+		TimingWheel<Long> wheel = new TimingWheel<>(123);
+		List<TimingWheel.Timer<Long>> timers = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			long deadline = 124 + random.nextInt(300_000);
+			timers.add(wheel.schedule(deadline, deadline));
+		}
+		int cancelled = 0;
+		for (int i = 0; i < timers.size(); i += 3) {
+			timers.get(i).cancel();
+			cancelled++;
+		}
+
+		List<Long> expired = new ArrayList<>();
+		long tick = 123;
+		while (wheel.size() > 0) {
+			long previous = tick;
+			tick += 1 + random.nextInt(500);
+			long now = tick;
+			wheel.advance(now, deadline -> {
+				assertTrue(deadline > previous && deadline <= now);
+				expired.add(deadline);
+			});
+		}
+		assertEquals(timers.size() - cancelled, expired.size());
+		for (int i = 1; i < expired.size(); i++) {
+			assertTrue(expired.get(i - 1) <= expired.get(i));
+		}
+	}
+
+	@Test
+	void scheduleWhileExpiring() {
+		TimingWheel<Long> wheel = new TimingWheel<>(0);
+		List<Long> expired = new ArrayList<>();
+		wheel.schedule(10, 10L);
+
+		wheel.advance(100, deadline -> {
+			expired.add(deadline);
+			if (deadline == 10) {
+				wheel.schedule(20, 20L);
+			}
+		});
+		assertEquals(Arrays.asList(10L, 20L), expired);
+	}
+}
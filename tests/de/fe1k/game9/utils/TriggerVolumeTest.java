@@ -0,0 +1,42 @@
+package de.fe1k.game9.utils;
+
+import de.nerogar.noise.util.Vector2f;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriggerVolumeTest {
+
+	@Test
+	void boxIncludesMinExcludesMax() {
+		TriggerVolume volume = TriggerVolume.box(new Bounding(2, 3, 5, 7));
+		assertFalse(volume.isHalfPlane());
+		assertTrue(volume.contains(new Vector2f(2, 3)));
+		assertTrue(volume.contains(new Vector2f(4.9f, 6.9f)));
+		assertFalse(volume.contains(new Vector2f(5, 4)));
+		assertFalse(volume.contains(new Vector2f(3, 7)));
+		assertFalse(volume.contains(new Vector2f(1.9f, 4)));
+		assertFalse(volume.contains(new Vector2f(3, 2.9f)));
+	}
+
+	@Test
+	void halfPlanesExcludeTheirBorder() {
+		TriggerVolume up = TriggerVolume.halfPlane(Direction.UP, 4);
+		assertTrue(up.isHalfPlane());
+		assertFalse(up.contains(new Vector2f(100, 4)));
+		assertTrue(up.contains(new Vector2f(-100, 4.1f)));
+
+		TriggerVolume right = TriggerVolume.halfPlane(Direction.RIGHT, 4);
+		assertFalse(right.contains(new Vector2f(4, 100)));
+		assertTrue(right.contains(new Vector2f(4.1f, -100)));
+
+		TriggerVolume down = TriggerVolume.halfPlane(Direction.DOWN, 4);
+		assertFalse(down.contains(new Vector2f(100, 4)));
+		assertTrue(down.contains(new Vector2f(-100, 3.9f)));
+
+		TriggerVolume left = TriggerVolume.halfPlane(Direction.LEFT, 4);
+		assertFalse(left.contains(new Vector2f(4, 100)));
+		assertTrue(left.contains(new Vector2f(3.9f, -100)));
+	}
+}
@@ -0,0 +1,67 @@
+package de.fe1k.game9.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripleBufferTest {
+	@Test
+	void readerGetsLatest() {
+		TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+		for (int i = 1; i <= 3; i++) {
+			buffer.getBack()[0] = i;
+			buffer.publish();
+		}
+		assertEquals(3, buffer.getFront()[0]);
+	}
+
+	@Test
+	void frontStaysWithoutPublish() {
+		TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+		buffer.getBack()[0] = 1;
+		buffer.publish();
+		int[] front = buffer.getFront();
+		assertSame(front, buffer.getFront());
+		assertEquals(1, front[0]);
+	}
+
+	@Test
+	void writerNeverGetsFront() {
+		TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+		for (int i = 0; i < 10; i++) {
+			buffer.publish();
+			int[] front = buffer.getFront();
+			assertNotSame(front, buffer.getBack());
+			buffer.publish();
+			assertNotSame(front, buffer.getBack());
+		}
+	}
+
+	@Test
+	void concurrentReaderSeesCompleteBuffers() throws InterruptedException {
+		TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[64]);
+		Thread writer = new Thread(() -> {
+			for (int i = 1; i <= 100_000; i++) {
+				int[] back = buffer.getBack();
+				for (int j = 0; j < back.length; j++) {
+					back[j] = i;
+				}
+				buffer.publish();
+			}
+		});
+		writer.start();
+		int last = 0;
+		while (last < 100_000) {
+			int[] front = buffer.getFront();
+			for (int value : front) {
+				assertEquals(front[0], value);
+			}
+			assertTrue(front[0] >= last);
+			last = front[0];
+		}
+		writer.join();
+	}
+}
@@ -0,0 +1,78 @@
+package de.fe1k.game9.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VarIntTest {
+	@Test
+	void smallNumbersTakeOneByte() throws IOException {
+		assertEquals(1, sizeOfVarInt(0));
+		assertEquals(1, sizeOfVarInt(127));
+		assertEquals(2, sizeOfVarInt(128));
+		assertEquals(5, sizeOfVarInt(-1));
+	}
+
+	@Test
+	void zigZagKeepsNegativeNumbersSmall() {
+		assertEquals(0, VarInt.zigZag(0));
+		assertEquals(1, VarInt.zigZag(-1));
+		assertEquals(2, VarInt.zigZag(1));
+		assertEquals(Integer.MIN_VALUE, VarInt.unZigZag(VarInt.zigZag(Integer.MIN_VALUE)));
+		assertEquals(Long.MAX_VALUE, VarInt.unZigZag(VarInt.zigZag(Long.MAX_VALUE)));
+	}
+
+	@Test
+	void roundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		int[] ints = {0, 1, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, -5};
+		long[] longs = {0, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE, -5};
+		for (int value : ints) {
+			VarInt.writeVarInt(out, value);
+			VarInt.writeSignedVarInt(out, value);
+		}
+		for (long value : longs) {
+			VarInt.writeVarLong(out, value);
+			VarInt.writeSignedVarLong(out, value);
+		}
+		VarInt.writeString(out, "map_\u00e4\u00f6\u00fc");
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int value : ints) {
+			assertEquals(value, VarInt.readVarInt(in));
+			assertEquals(value, VarInt.readSignedVarInt(in));
+		}
+		for (long value : longs) {
+			assertEquals(value, VarInt.readVarLong(in));
+			assertEquals(value, VarInt.readSignedVarLong(in));
+		}
+		assertEquals("map_\u00e4\u00f6\u00fc", VarInt.readString(in));
+		assertEquals(0, in.available());
+	}
+
+	@Test
+	void rejectsOverlongVarInt() {
+		byte[] bytes = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		assertThrows(IOException.class, () -> VarInt.readVarInt(in));
+	}
+
+	@Test
+	void rejectsOversizedString() throws IOException {
+		// a length near 2^31 must not be allocated before it's checked
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		VarInt.writeVarInt(new DataOutputStream(bytes), Integer.MAX_VALUE);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertThrows(IOException.class, () -> VarInt.readString(in));
+	}
+
+	private static int sizeOfVarInt(int value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		VarInt.writeVarInt(new DataOutputStream(bytes), value);
+		return bytes.size();
+	}
+}